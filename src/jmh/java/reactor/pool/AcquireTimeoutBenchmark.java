@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+/**
+ * Register then cancel {@code pendingBorrowers} borrowers with an acquire timeout on a
+ * saturated pool, comparing the cost of tracking their timeouts with one task each on
+ * {@link reactor.core.scheduler.Schedulers#parallel()} versus a {@link HashedWheelTimer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AcquireTimeoutBenchmark {
+
+    static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Param({"parallel", "wheel"})
+    String timeoutTracking;
+
+    @Param({"1000", "10000"})
+    int pendingBorrowers;
+
+    Pool<Object>      pool;
+    PooledRef<Object> held;
+    Disposable[]      borrowers;
+
+    @Setup
+    public void setup() {
+        PoolBuilder<Object> builder = PoolBuilder.from(Mono.fromCallable(Object::new))
+                                                 .sizeMax(1);
+        if ("wheel".equals(timeoutTracking)) {
+            builder.acquireTimeoutWheel(Duration.ofMillis(1));
+        }
+        pool = builder.build();
+        held = pool.acquire().block();
+        borrowers = new Disposable[pendingBorrowers];
+    }
+
+    @TearDown
+    public void tearDown() {
+        held.release().block();
+        pool.dispose();
+    }
+
+    @Benchmark
+    public void pendThenCancel() {
+        Disposable[] b = borrowers;
+        for (int i = 0; i < b.length; i++) {
+            b[i] = pool.acquire(TIMEOUT).subscribe();
+        }
+        for (Disposable d : b) {
+            d.dispose();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Acquire and release resources from a pool that never has idle resources: each acquire
+ * goes through the {@link AllocationStrategy} and the allocator, and each release destroys
+ * the resource (returning its permit).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AllocateOnDemandBenchmark {
+
+    @Param({PoolBenchmarks.FIFO, PoolBenchmarks.LIFO, PoolBenchmarks.AFFINITY})
+    String poolType;
+
+    @Param({"1", "10", "100"})
+    int poolSize;
+
+    Pool<Object> pool;
+
+    @Setup
+    public void setup() {
+        pool = PoolBenchmarks.build(PoolBuilder.from(Mono.fromCallable(Object::new))
+                                               .sizeMax(poolSize)
+                                               .evictionPredicate((poolable, meta) -> true),
+                poolType);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.dispose();
+    }
+
+    @Benchmark
+    public void allocateAcquireRelease(Blackhole bh) {
+        PooledRef<Object> ref = pool.acquire().block();
+        bh.consume(ref.poolable());
+        ref.release().block();
+    }
+}
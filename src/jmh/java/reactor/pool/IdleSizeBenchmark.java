@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Read the idle count and acquire/release resources from a pool holding a large number of
+ * idle resources, in LRU or MRU order, where walking the idle queue or stack to size it would
+ * dominate the cost of {@link InstrumentedPool.PoolMetrics#idleSize()} and of every acquire.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdleSizeBenchmark {
+
+    @Param({PoolBenchmarks.FIFO, PoolBenchmarks.AFFINITY, PoolBenchmarks.SHARDED})
+    String poolType;
+
+    @Param({"false", "true"})
+    boolean idleMru;
+
+    @Param({"100", "10000"})
+    int poolSize;
+
+    InstrumentedPool<Object> pool;
+
+    @Setup
+    public void setup() {
+        PoolBuilder<Object> builder = PoolBuilder.from(Mono.fromCallable(Object::new))
+                                                 .initialSize(poolSize)
+                                                 .sizeMax(poolSize);
+        if (idleMru) {
+            builder.idleResourceReuseMruOrder();
+        }
+        pool = (InstrumentedPool<Object>) PoolBenchmarks.build(builder, poolType);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.dispose();
+    }
+
+    @Benchmark
+    public int idleSize() {
+        return pool.metrics().idleSize();
+    }
+
+    @Benchmark
+    public void acquireRelease(Blackhole bh) {
+        PooledRef<Object> ref = pool.acquire().block();
+        bh.consume(ref.poolable());
+        ref.release().block();
+    }
+}
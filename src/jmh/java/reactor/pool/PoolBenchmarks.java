@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+/**
+ * Shared helpers for the {@link Pool} JMH benchmarks.
+ */
+final class PoolBenchmarks {
+
+    /**
+     * The pool implementations covered by the benchmarks, as values for a {@code poolType}
+     * {@link org.openjdk.jmh.annotations.Param}.
+     */
+    static final String FIFO     = "fifo";
+    static final String LIFO     = "lifo";
+    static final String AFFINITY = "affinity";
+    static final String SHARDED  = "sharded";
+
+    /**
+     * Finish configuring the {@link PoolBuilder} so that it builds the implementation
+     * matching the given {@code poolType}, then build the {@link Pool}.
+     *
+     * @param builder the pre-configured {@link PoolBuilder}
+     * @param poolType one of {@link #FIFO}, {@link #LIFO}, {@link #AFFINITY} or {@link #SHARDED} (with one
+     * shard per available processor)
+     * @param <T> the type of resource
+     * @return the {@link Pool} to benchmark
+     */
+    static <T> Pool<T> build(PoolBuilder<T> builder, String poolType) {
+        switch (poolType) {
+            case FIFO:
+                return builder.lifo(false).build();
+            case LIFO:
+                return builder.lifo(true).build();
+            case AFFINITY:
+                return builder.threadAffinity(true).build();
+            case SHARDED:
+                return builder.shards(Runtime.getRuntime().availableProcessors()).build();
+            default:
+                throw new IllegalArgumentException("unknown poolType " + poolType);
+        }
+    }
+
+    private PoolBenchmarks() { }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Subscribe {@code pendingFactor} times more borrowers than there are resources in the
+ * pool at once, each releasing its resource asynchronously, so that most borrowers go
+ * through the pending queue. Each invocation measures the time to serve all of them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SaturatedPoolBenchmark {
+
+    @Param({PoolBenchmarks.FIFO, PoolBenchmarks.LIFO, PoolBenchmarks.AFFINITY, PoolBenchmarks.SHARDED})
+    String poolType;
+
+    @Param({"1", "10", "100"})
+    int poolSize;
+
+    @Param({"4", "16"})
+    int pendingFactor;
+
+    Pool<Object> pool;
+    Flux<Object> borrowers;
+
+    @Setup
+    public void setup() {
+        pool = PoolBenchmarks.build(PoolBuilder.from(Mono.fromCallable(Object::new))
+                                               .initialSize(poolSize)
+                                               .sizeMax(poolSize),
+                poolType);
+
+        borrowers = Flux.range(0, poolSize * pendingFactor)
+                        .flatMap(i -> pool.withPoolable(poolable -> Mono.just(poolable)
+                                                                      .publishOn(Schedulers.parallel())),
+                                poolSize * pendingFactor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.dispose();
+    }
+
+    @Benchmark
+    public void servePendingBorrowers(Blackhole bh) {
+        bh.consume(borrowers.blockLast());
+    }
+}
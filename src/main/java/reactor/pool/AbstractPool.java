@@ -18,12 +18,18 @@ package reactor.pool;
 import java.io.Closeable;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.reactivestreams.Publisher;
@@ -32,11 +38,14 @@ import org.reactivestreams.Subscription;
 import reactor.core.CoreSubscriber;
 import reactor.core.Disposable;
 import reactor.core.Disposables;
+import reactor.core.Exceptions;
 import reactor.core.Scannable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Operators;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.pool.AllocationStrategies.AdaptiveAllocationStrategy;
 import reactor.util.Logger;
 import reactor.util.annotation.Nullable;
 import reactor.util.context.Context;
@@ -61,10 +70,31 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
     volatile     int                                     pendingCount;
     static final AtomicIntegerFieldUpdater<AbstractPool> PENDING_COUNT = AtomicIntegerFieldUpdater.newUpdater(AbstractPool.class, "pendingCount");
 
+    //the number of allocations in flight, only tracked if they are limited
+    volatile     int                                     allocating;
+    static final AtomicIntegerFieldUpdater<AbstractPool> ALLOCATING = AtomicIntegerFieldUpdater.newUpdater(AbstractPool.class, "allocating");
+
+    //the number of background allocations in flight to maintain the minimum idle resources
+    volatile     int                                     replenishing;
+    static final AtomicIntegerFieldUpdater<AbstractPool> REPLENISHING = AtomicIntegerFieldUpdater.newUpdater(AbstractPool.class, "replenishing");
+
+    //the allocation strategy, if it is to be fed with the pool's gauges and latencies
+    @Nullable
+    final AdaptiveAllocationStrategy adaptiveStrategy;
+
+    Disposable evictionTask;
+    Disposable adaptationTask;
+    Disposable leakDetectionTask;
+
     AbstractPool(DefaultPoolConfig<POOLABLE> poolConfig, Logger logger) {
         this.poolConfig = poolConfig;
         this.logger = logger;
         this.metricsRecorder = poolConfig.metricsRecorder;
+        this.adaptiveStrategy = poolConfig.allocationStrategy instanceof AdaptiveAllocationStrategy ?
+                (AdaptiveAllocationStrategy) poolConfig.allocationStrategy : null;
+        this.evictionTask = Disposables.disposed();
+        this.adaptationTask = Disposables.disposed();
+        this.leakDetectionTask = Disposables.disposed();
     }
 
     // == pool introspection methods ==
@@ -106,14 +136,550 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
 
     abstract boolean elementOffer(POOLABLE element);
 
+    /**
+     * Make a newly allocated resource available in the idle store, delivering it to a pending
+     * borrower if there is one. The permit for the resource MUST have already been obtained.
+     *
+     * @param poolable the newly allocated resource
+     */
+    abstract void offerAllocated(POOLABLE poolable);
+
     /**
      * Note to implementors: stop the {@link Borrower} countdown by calling
-     * {@link Borrower#stopPendingCountdown()} as soon as it is known that a resource is
-     * available or is in the process of being allocated.
+     * {@link Borrower#markServed(boolean)} (or {@link Borrower#stopPendingCountdown()}
+     * right before delivering) as soon as it is known that a resource is available or is
+     * in the process of being allocated.
      */
     abstract void doAcquire(Borrower<POOLABLE> borrower);
     abstract void cancelAcquire(Borrower<POOLABLE> borrower);
 
+    /**
+     * Sweep the idle resources, destroying the ones that match the
+     * {@link DefaultPoolConfig#evictionPredicate}, see {@link #shouldEvictInBackground(AbstractPooledRef)}.
+     * Invoked periodically by the background eviction task, see {@link #startBackgroundTasks()}.
+     */
+    abstract void evictInBackground();
+
+    /**
+     * Let the pending borrowers allocate resources with the permits that the {@link AllocationStrategy}
+     * has just made available, see {@link #adaptAllocationStrategy(AdaptiveAllocationStrategy)}.
+     */
+    abstract void allocateForPending();
+
+    /**
+     * Test whether an idle resource should be destroyed by the background sweep: either because it matches the
+     * {@link DefaultPoolConfig#evictionPredicate} or because the {@link AdaptiveAllocationStrategy} has shrunk below
+     * the number of live resources.
+     *
+     * @param ref the idle resource
+     * @return true if the resource should be destroyed
+     */
+    boolean shouldEvictInBackground(AbstractPooledRef<POOLABLE> ref) {
+        return poolConfig.evictionPredicate.test(ref.poolable, ref)
+                || (adaptiveStrategy != null && adaptiveStrategy.isOverLimit());
+    }
+
+    /**
+     * Sample the pending and idle gauges into the {@link AdaptiveAllocationStrategy}, then act upon the new limit.
+     * Invoked periodically by the background adaptation task, see {@link #startBackgroundTasks()}.
+     */
+    void adaptAllocationStrategy(AdaptiveAllocationStrategy strategy) {
+        if (isDisposed()) {
+            return;
+        }
+        int change = strategy.adapt(pendingAcquireSize(), idleSize());
+        if (change > 0) {
+            allocateForPending();
+        }
+        else if (change < 0 && strategy.isOverLimit()) {
+            evictInBackground();
+        }
+    }
+
+    /**
+     * Reserve up to {@code desired} slots for concurrent allocations, see {@link DefaultPoolConfig#maxAllocations}.
+     * This MUST be done before obtaining the permits, and each reserved slot MUST then be freed by either
+     * {@link #endAllocation()} once the allocation completes or {@link #cancelAllocations(int)} if it isn't attempted.
+     *
+     * @param desired the number of allocations to start
+     * @return the number of allocations that can be started, might be zero
+     */
+    int startAllocations(int desired) {
+        int max = poolConfig.maxAllocations;
+        if (max == Integer.MAX_VALUE) {
+            return desired;
+        }
+        AbstractPool<POOLABLE> group = allocationGroup();
+        for (;;) {
+            int current = group.allocating;
+            int possible = Math.min(desired, max - current);
+            if (possible <= 0) {
+                return 0;
+            }
+            if (ALLOCATING.compareAndSet(group, current, current + possible)) {
+                return possible;
+            }
+        }
+    }
+
+    /**
+     * @return the pool whose allocations are limited together with the ones of this pool
+     */
+    AbstractPool<POOLABLE> allocationGroup() {
+        return this;
+    }
+
+    /**
+     * @return true if an allocation could currently be started, see {@link #startAllocations(int)}
+     */
+    boolean canStartAllocation() {
+        return poolConfig.maxAllocations == Integer.MAX_VALUE || allocationGroup().allocating < poolConfig.maxAllocations;
+    }
+
+    /**
+     * Free slots reserved by {@link #startAllocations(int)} for allocations that were not attempted after all.
+     *
+     * @param count the number of slots to free
+     */
+    void cancelAllocations(int count) {
+        if (poolConfig.maxAllocations != Integer.MAX_VALUE) {
+            ALLOCATING.addAndGet(allocationGroup(), -count);
+        }
+    }
+
+    /**
+     * Free the slot of an allocation that completed, successfully or not, and let a borrower that was kept pending
+     * by the limit start its own allocation.
+     */
+    void endAllocation() {
+        if (poolConfig.maxAllocations != Integer.MAX_VALUE) {
+            AbstractPool<POOLABLE> group = allocationGroup();
+            ALLOCATING.decrementAndGet(group);
+            group.allocateForPending();
+        }
+    }
+
+    /**
+     * Read the clock of the {@link AdaptiveAllocationStrategy}, if any. The strategy measures with
+     * {@link System#nanoTime()} rather than with the {@link PoolMetricsRecorder}, which measures nothing when
+     * metrics are not collected.
+     *
+     * @return the current {@link System#nanoTime()}, or 0 if there is no {@link AdaptiveAllocationStrategy} to feed
+     */
+    final long adaptiveNanos() {
+        return adaptiveStrategy != null ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record the latency of a successful allocation, feeding the {@link AdaptiveAllocationStrategy} if any.
+     *
+     * @param startNanos the {@link PoolMetricsRecorder#nowNanos()} when the allocation started
+     * @param adaptiveStartNanos the {@link #adaptiveNanos()} when the allocation started
+     */
+    void recordAllocationSuccess(long startNanos, long adaptiveStartNanos) {
+        metricsRecorder.recordAllocationSuccessAndLatencyNanos(metricsRecorder.measureNanos(startNanos));
+        if (adaptiveStrategy != null) {
+            adaptiveStrategy.recordAllocationLatency(System.nanoTime() - adaptiveStartNanos);
+        }
+    }
+
+    /**
+     * Allocate a resource on the calling thread for {@link #tryAcquire()}, provided the allocator can be invoked
+     * synchronously (ie. it is a {@link Callable}, like {@link Mono#fromCallable(Callable)}) and that both an
+     * allocation slot and a permit can be obtained immediately.
+     *
+     * @return the new resource, or null if it couldn't be allocated synchronously
+     * @throws RuntimeException if the allocator failed, in which case the permit has been returned
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    final POOLABLE tryAllocateNow() {
+        Mono<POOLABLE> allocator = poolConfig.allocator;
+        if (!(allocator instanceof Callable) || startAllocations(1) != 1) {
+            return null;
+        }
+        if (poolConfig.allocationStrategy.getPermits(1) != 1) {
+            cancelAllocations(1);
+            return null;
+        }
+        long start = metricsRecorder.nowNanos();
+        long adaptiveStart = adaptiveNanos();
+        POOLABLE poolable;
+        try {
+            poolable = ((Callable<POOLABLE>) allocator).call();
+        }
+        catch (Throwable e) {
+            metricsRecorder.recordAllocationFailureAndLatencyNanos(metricsRecorder.measureNanos(start));
+            poolConfig.allocationStrategy.returnPermits(1);
+            endAllocation();
+            //the permit could serve a borrower that started pending in the meantime
+            allocateForPending();
+            throw Exceptions.propagate(e);
+        }
+        if (poolable == null) {
+            //an empty allocator
+            poolConfig.allocationStrategy.returnPermits(1);
+            endAllocation();
+            allocateForPending();
+            return null;
+        }
+        recordAllocationSuccess(start, adaptiveStart);
+        endAllocation();
+        return poolable;
+    }
+
+    /**
+     * Mark a resource handed out by {@link #tryAcquire()} as acquired, recording the acquire latency.
+     *
+     * @param ref the resource
+     * @param startNanos the {@link PoolMetricsRecorder#nowNanos()} when {@link #tryAcquire()} was called
+     * @param allocated true if the resource was allocated by {@link #tryAllocateNow()}, false if it was idle
+     * @return the resource
+     */
+    final <R extends AbstractPooledRef<POOLABLE>> R markTryAcquired(R ref, long startNanos, boolean allocated) {
+        ref.markAcquired();
+        trackLease(ref);
+        long latency = metricsRecorder.measureNanos(startNanos);
+        if (allocated) {
+            metricsRecorder.recordAcquireLatencyWithAllocationNanos(latency);
+        }
+        else {
+            metricsRecorder.recordAcquireLatencyFromIdleNanos(latency);
+        }
+        return ref;
+    }
+
+    /**
+     * Start tracking the lease of a resource that was just acquired: hand it to the {@link LeakDetector} if leak
+     * detection is configured, and schedule its reclaim if the {@link DefaultPoolConfig#maxLeaseTime} is set.
+     *
+     * @param ref the acquired resource
+     */
+    final void trackLease(AbstractPooledRef<POOLABLE> ref) {
+        LeakDetector detector = poolConfig.leakDetector;
+        if (detector != null) {
+            detector.track(this, ref);
+        }
+        if (!poolConfig.maxLeaseTime.isZero()) {
+            ref.scheduleLeaseTimeout(this, poolConfig.maxLeaseTime);
+        }
+    }
+
+    /**
+     * Schedule a timeout in nanoseconds on the {@link DefaultPoolConfig#acquireTimeoutWheel} if any, or on
+     * {@link Schedulers#parallel()} otherwise.
+     *
+     * @param task the task to run once the timeout elapses
+     * @param timeout the timeout
+     * @return the {@link Disposable} cancelling the timeout
+     * @throws RejectedExecutionException if the timer has been disposed, eg. a shared timing wheel
+     */
+    final Disposable scheduleTimeout(Runnable task, Duration timeout) {
+        HashedWheelTimer timer = poolConfig.acquireTimeoutWheel;
+        if (timer != null) {
+            return timer.schedule(task, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        return Schedulers.parallel().schedule(task, timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Invalidate a resource on behalf of its borrower because it has been held for longer than the
+     * {@link DefaultPoolConfig#maxLeaseTime}, unless it was released or invalidated in the meantime. Its permit is
+     * returned and pending borrowers are served with a replacement, while the late release or invalidation by the
+     * borrower is ignored.
+     *
+     * @param ref the acquired resource
+     */
+    void reclaimExpiredLease(AbstractPooledRef<POOLABLE> ref) {
+        if (!ref.reclaimLease()) {
+            return;
+        }
+        metricsRecorder.recordLeaseReclaimed();
+        logger.debug("Invalidating a resource held for more than the maxLeaseTime of {}ms", poolConfig.maxLeaseTime.toMillis());
+        leaseReclaimed();
+        ref.untrackLease();
+        destroyPoolable(ref).subscribe(null, e -> allocateForPending(), this::allocateForPending);
+    }
+
+    /**
+     * Reclaim the permit of a resource whose {@link PooledRef} became unreachable without having been released nor
+     * invalidated, destroying the resource. Invoked by the {@link LeakDetector} if configured to reclaim leaks.
+     *
+     * @param poolable the leaked resource
+     */
+    void reclaimLeaked(POOLABLE poolable) {
+        leaseReclaimed();
+        returnPermitAndDestroy(poolable).subscribe(null,
+                e -> {
+                    logger.debug("Failed to destroy a leaked resource", e);
+                    allocateForPending();
+                },
+                this::allocateForPending);
+    }
+
+    /**
+     * Update the state of the pool for a lease that ends without its {@link PooledRef} being released nor
+     * invalidated, see {@link #reclaimLeaked(Object)} and {@link #reclaimExpiredLease(AbstractPooledRef)}.
+     * Does nothing by default.
+     */
+    void leaseReclaimed() {
+    }
+
+    /**
+     * Test whether an idle resource must pass the {@link DefaultPoolConfig#validator} before being handed out: it has
+     * been idle for at least the {@link DefaultPoolConfig#validationIdleThreshold} and hasn't passed validation since.
+     * The idle time is measured with {@link System#nanoTime()}, as the {@link PoolMetricsRecorder} measures nothing
+     * when metrics are not collected.
+     *
+     * @param ref the idle resource
+     * @return true if the resource should be {@link #validate(AbstractPooledRef, Consumer, Consumer) validated}
+     */
+    final boolean needsValidation(AbstractPooledRef<POOLABLE> ref) {
+        if (poolConfig.validator == null || ref.validated) {
+            return false;
+        }
+        long thresholdNanos = poolConfig.validationIdleThreshold.toNanos();
+        return thresholdNanos == 0 || System.nanoTime() - ref.idleSinceNanos >= thresholdNanos;
+    }
+
+    /**
+     * Apply the {@link DefaultPoolConfig#validator} to an idle resource, asynchronously and within the
+     * {@link DefaultPoolConfig#validationTimeout}, recording the validation latency. The resource is neither idle nor
+     * acquired in the meantime. It fails validation if the validator emits {@code false}, completes empty, fails or
+     * times out.
+     *
+     * @param ref the resource taken out of the idle resources
+     * @param onValid invoked with the resource once it passed validation, which is then remembered until its next acquire
+     * @param onInvalid invoked with the resource if it failed validation, which should destroy it
+     */
+    final <R extends AbstractPooledRef<POOLABLE>> void validate(R ref, Consumer<R> onValid, Consumer<R> onInvalid) {
+        long start = metricsRecorder.nowNanos();
+        Mono<Boolean> validation;
+        try {
+            validation = Mono.from(poolConfig.validator.apply(ref.poolable));
+        }
+        catch (Throwable e) {
+            validation = Mono.error(e);
+        }
+        validation.timeout(poolConfig.validationTimeout)
+                  .onErrorResume(e -> {
+                      logger.debug("Failed to validate an idle resource", e);
+                      return Mono.just(false);
+                  })
+                  .defaultIfEmpty(false)
+                  .subscribe(valid -> {
+                      long latency = metricsRecorder.measureNanos(start);
+                      if (valid) {
+                          metricsRecorder.recordValidationSuccessAndLatencyNanos(latency);
+                          ref.validated = true;
+                          onValid.accept(ref);
+                      }
+                      else {
+                          metricsRecorder.recordValidationFailureAndLatencyNanos(latency);
+                          onInvalid.accept(ref);
+                      }
+                  });
+    }
+
+    /**
+     * Stop the background tasks that are owned by this pool, like the background eviction and the
+     * pool-owned {@link HashedWheelTimer}. Implementors MUST call this when the pool is disposed.
+     */
+    void stopBackgroundTasks() {
+        evictionTask.dispose();
+        adaptationTask.dispose();
+        leakDetectionTask.dispose();
+        if (poolConfig.ownsAcquireTimeoutWheel && poolConfig.acquireTimeoutWheel != null) {
+            poolConfig.acquireTimeoutWheel.dispose();
+        }
+    }
+
+    /**
+     * Start the periodic background eviction task if the configuration asks for it, as well as the
+     * sampling task of the {@link AdaptiveAllocationStrategy}, which runs once per target pending time, and the
+     * sweep of the {@link LeakDetector} if any.
+     * Implementors MUST call this at the end of their constructor, once the idle store
+     * is ready, and MUST call {@link #stopBackgroundTasks()} when the pool is disposed.
+     */
+    void startBackgroundTasks() {
+        long intervalNanos = poolConfig.evictionInterval.toNanos();
+        if (intervalNanos > 0) {
+            this.evictionTask = poolConfig.evictionScheduler.schedulePeriodically(this::evictInBackground,
+                    intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+        AdaptiveAllocationStrategy strategy = adaptiveStrategy;
+        if (strategy != null) {
+            long periodNanos = strategy.targetPendingNanos;
+            this.adaptationTask = poolConfig.evictionScheduler.schedulePeriodically(() -> adaptAllocationStrategy(strategy),
+                    periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        }
+        LeakDetector detector = poolConfig.leakDetector;
+        if (detector != null) {
+            long periodNanos = detector.sweepPeriodNanos();
+            this.leakDetectionTask = poolConfig.evictionScheduler.schedulePeriodically(detector::sweep,
+                    periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public Flux<PooledRef<POOLABLE>> acquire(int n) {
+        if (n <= 0) {
+            return Flux.error(new IllegalArgumentException("n must be strictly positive"));
+        }
+        int maxPermits = poolConfig.allocationStrategy.permitMaximum();
+        if (n > maxPermits) {
+            return Flux.error(new IllegalArgumentException("Cannot acquire " + n + " resources at once from a pool of maximum size " + maxPermits));
+        }
+        return acquireBatch(n);
+    }
+
+    @Override
+    public CompletableFuture<PooledRef<POOLABLE>> acquireFuture() {
+        return acquireFuture(Duration.ZERO);
+    }
+
+    /**
+     * Register a {@link Borrower} that completes the returned {@link BorrowerFuture} directly upon delivery, with no
+     * {@link Mono} in between.
+     */
+    @Override
+    public CompletableFuture<PooledRef<POOLABLE>> acquireFuture(Duration timeout) {
+        BorrowerFuture<POOLABLE> future = new BorrowerFuture<>();
+        future.borrower = borrow(future, timeout);
+        return future;
+    }
+
+    /**
+     * Acquire a resource for a subscriber that is not reached through a {@link Mono}: create a {@link Borrower}
+     * delivering to it and request it right away. The subscriber's {@code onSubscribe} is not called, the returned
+     * {@link Borrower} being the {@link Subscription} to cancel the acquire with.
+     *
+     * @param actual the subscriber to deliver the resource to
+     * @param acquireTimeout the timeout of the acquire, once pending
+     * @return the requested {@link Borrower}
+     */
+    Borrower<POOLABLE> borrow(CoreSubscriber<? super PooledRef<POOLABLE>> actual, Duration acquireTimeout) {
+        Borrower<POOLABLE> borrower = newBorrower(actual, acquireTimeout);
+        borrower.request(1);
+        return borrower;
+    }
+
+    /**
+     * @param actual the subscriber to deliver the resource to
+     * @param acquireTimeout the timeout of the acquire, once pending
+     * @return a new {@link Borrower} suitable for this pool's {@link #doAcquire(Borrower)}, not yet requested
+     */
+    abstract Borrower<POOLABLE> newBorrower(CoreSubscriber<? super PooledRef<POOLABLE>> actual, Duration acquireTimeout);
+
+    /**
+     * Acquire a validated number of resources at once, see {@link #acquire(int)}. Defaults to acquiring
+     * them one after the other.
+     *
+     * @param n the number of resources to acquire, between 1 and the maximum size of the pool
+     * @return the {@link Flux} of the {@code n} acquired resources
+     */
+    Flux<PooledRef<POOLABLE>> acquireBatch(int n) {
+        return InstrumentedPool.super.acquire(n);
+    }
+
+    @Override
+    public Mono<Integer> warmup() {
+        return Mono.defer(() -> {
+            if (isDisposed()) {
+                return Mono.just(0);
+            }
+            AllocationStrategy strategy = poolConfig.allocationStrategy;
+            int toBuild = strategy.getPermits(poolConfig.initialSize - strategy.permitGranted());
+            if (toBuild <= 0) {
+                return Mono.just(0);
+            }
+            //permits of allocations that failed, were cancelled or never attempted are returned at the end
+            AtomicInteger unusedPermits = new AtomicInteger(toBuild);
+            return Flux.range(0, toBuild)
+                       .flatMap(i -> {
+                           long start = metricsRecorder.nowNanos();
+                           long adaptiveStart = adaptiveNanos();
+                           return poolConfig.allocator
+                                   .doOnNext(poolable -> {
+                                       recordAllocationSuccess(start, adaptiveStart);
+                                       unusedPermits.decrementAndGet();
+                                       offerAllocated(poolable);
+                                   })
+                                   .doOnError(e -> metricsRecorder.recordAllocationFailureAndLatencyNanos(metricsRecorder.measureNanos(start)));
+                       }, poolConfig.warmupParallelism)
+                       .doFinally(signal -> {
+                           int unused = unusedPermits.getAndSet(0);
+                           if (unused > 0) {
+                               strategy.returnPermits(unused);
+                           }
+                       })
+                       .count()
+                       .map(Long::intValue);
+        });
+    }
+
+    /**
+     * Allocate resources in the background until there are {@link DefaultPoolConfig#minIdle} idle resources,
+     * counting the allocations already in flight, as far as the {@link AllocationStrategy} permits. Invoked
+     * whenever a resource is destroyed. Allocation errors are only logged, as a replacement will be attempted
+     * again upon the next destruction.
+     */
+    void replenishIdle() {
+        int minIdle = poolConfig.minIdle;
+        if (minIdle <= 0 || isDisposed()) {
+            return;
+        }
+        int missing;
+        for (;;) {
+            int inFlight = replenishing;
+            missing = minIdle - idleSize() - inFlight;
+            if (missing <= 0) {
+                return;
+            }
+            if (REPLENISHING.compareAndSet(this, inFlight, inFlight + missing)) {
+                break;
+            }
+        }
+        int slots = startAllocations(missing);
+        int permits = poolConfig.allocationStrategy.getPermits(slots);
+        if (permits < slots) {
+            cancelAllocations(slots - permits);
+        }
+        if (permits < missing) {
+            REPLENISHING.addAndGet(this, permits - missing);
+        }
+        for (int i = 0; i < permits; i++) {
+            long start = metricsRecorder.nowNanos();
+            long adaptiveStart = adaptiveNanos();
+            poolConfig.allocator.subscribe(poolable -> {
+                        recordAllocationSuccess(start, adaptiveStart);
+                        REPLENISHING.decrementAndGet(this);
+                        offerAllocated(poolable);
+                        endAllocation();
+                    },
+                    e -> {
+                        metricsRecorder.recordAllocationFailureAndLatencyNanos(metricsRecorder.measureNanos(start));
+                        REPLENISHING.decrementAndGet(this);
+                        poolConfig.allocationStrategy.returnPermits(1);
+                        logger.debug("Failed to allocate a resource to maintain the minimum idle resources", e);
+                        endAllocation();
+                        //the permit could serve a pending borrower
+                        allocateForPending();
+                    });
+        }
+    }
+
+    /**
+     * Allocate the {@link DefaultPoolConfig#initialSize initial resources} in a blocking fashion,
+     * unless the configuration asks for lazy initialization. Implementors MUST call this from their
+     * constructor, once the idle store is ready.
+     */
+    void warmupUnlessLazy() {
+        if (!poolConfig.isLazyInitialization) {
+            warmup().block();
+        }
+    }
+
     private void defaultDestroy(@Nullable POOLABLE poolable) {
         if (poolable instanceof Disposable) {
             ((Disposable) poolable).dispose();
@@ -130,26 +696,38 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
 
     /**
      * Apply the configured destroyHandler to get the destroy {@link Mono} AND return a permit to the {@link AllocationStrategy},
-     * which assumes that the {@link Mono} will always be subscribed immediately.
+     * which assumes that the {@link Mono} will always be subscribed immediately. This also triggers the replacement of the
+     * resource if the pool drops below its {@link DefaultPoolConfig#minIdle minimum idle resources}.
      *
      * @param ref the {@link PooledRef} that is not part of the live set
      * @return the destroy {@link Mono}, which MUST be subscribed immediately
      */
     Mono<Void> destroyPoolable(AbstractPooledRef<POOLABLE> ref) {
-        POOLABLE poolable = ref.poolable();
+        metricsRecorder.recordLifetimeDurationNanos(ref.lifeTimeNanos());
+        return returnPermitAndDestroy(ref.poolable());
+    }
+
+    /**
+     * Return the permit of a resource to the {@link AllocationStrategy} and apply the configured destroyHandler to it,
+     * see {@link #destroyPoolable(AbstractPooledRef)}.
+     *
+     * @param poolable the resource that is not part of the live set
+     * @return the destroy {@link Mono}, which MUST be subscribed immediately
+     */
+    Mono<Void> returnPermitAndDestroy(POOLABLE poolable) {
         poolConfig.allocationStrategy.returnPermits(1);
-        long start = metricsRecorder.now();
-        metricsRecorder.recordLifetimeDuration(ref.lifeTime());
+        replenishIdle();
+        long start = metricsRecorder.nowNanos();
         Function<POOLABLE, ? extends Publisher<Void>> factory = poolConfig.destroyHandler;
         if (factory == PoolBuilder.NOOP_HANDLER) {
             return Mono.fromRunnable(() -> {
                 defaultDestroy(poolable);
-                metricsRecorder.recordDestroyLatency(metricsRecorder.measureTime(start));
+                metricsRecorder.recordDestroyLatencyNanos(metricsRecorder.measureNanos(start));
             });
         }
         else {
             return Mono.from(factory.apply(poolable))
-                       .doFinally(fin -> metricsRecorder.recordDestroyLatency(metricsRecorder.measureTime(start)));
+                       .doFinally(fin -> metricsRecorder.recordDestroyLatencyNanos(metricsRecorder.measureNanos(start)));
         }
     }
 
@@ -160,6 +738,14 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
      */
     abstract static class AbstractPooledRef<T> implements PooledRef<T>, PooledRefMetadata {
 
+        //System.nanoTime-style timestamps can be negative, so the markers are values that the clock won't realistically return
+        static final long ACQUIRED_MARKER       = Long.MIN_VALUE;
+        static final long NEVER_RELEASED_MARKER = Long.MIN_VALUE + 1;
+
+        //markers of the leaseTimeout, while the timeout of a new lease is being scheduled and once the pool reclaimed the lease
+        static final Disposable LEASE_STARTING  = () -> {};
+        static final Disposable LEASE_RECLAIMED = () -> {};
+
         final long            creationTimestamp;
         final PoolMetricsRecorder metricsRecorder;
         final T poolable;
@@ -167,15 +753,32 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
         volatile int acquireCount;
         static final AtomicIntegerFieldUpdater<AbstractPooledRef> ACQUIRE = AtomicIntegerFieldUpdater.newUpdater(AbstractPooledRef.class, "acquireCount");
 
-        //might be peeked at by multiple threads, in which case a value of -1 indicates it is currently held/acquired
+        //might be peeked at by multiple threads, in which case a value of ACQUIRED_MARKER indicates it is currently held/acquired
         volatile long timeSinceRelease;
         static final AtomicLongFieldUpdater<AbstractPooledRef> TIME_SINCE_RELEASE = AtomicLongFieldUpdater.newUpdater(AbstractPooledRef.class, "timeSinceRelease");
 
+        //the tracking of the current lease by the LeakDetector, if it is sampled
+        @Nullable
+        volatile LeakDetector.LeaseRecord leaseRecord;
+
+        //true once the resource passed validation while idle, until its next acquire
+        volatile boolean validated;
+
+        //the System.nanoTime() of the creation or of the last release, published to acquirers by the idle store
+        long idleSinceNanos;
+
+        //the task reclaiming the current lease once it exceeds the maxLeaseTime, null if there is none
+        @Nullable
+        volatile Disposable leaseTimeout;
+        static final AtomicReferenceFieldUpdater<AbstractPooledRef, Disposable> LEASE_TIMEOUT =
+                AtomicReferenceFieldUpdater.newUpdater(AbstractPooledRef.class, Disposable.class, "leaseTimeout");
+
         AbstractPooledRef(T poolable, PoolMetricsRecorder metricsRecorder) {
             this.poolable = poolable;
             this.metricsRecorder = metricsRecorder;
-            this.creationTimestamp = metricsRecorder.now();
-            this.timeSinceRelease = -2L;
+            this.creationTimestamp = metricsRecorder.nowNanos();
+            this.timeSinceRelease = NEVER_RELEASED_MARKER;
+            this.idleSinceNanos = System.nanoTime();
         }
 
         @Override
@@ -194,19 +797,98 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
          * @return the incremented {@link #acquireCount()}
          */
         int markAcquired() {
+            this.validated = false;
             int acq = ACQUIRE.incrementAndGet(this);
-            long tsr = TIME_SINCE_RELEASE.getAndSet(this, -1);
-            if (tsr > 0) {
-                metricsRecorder.recordIdleTime(metricsRecorder.measureTime(tsr));
+            long tsr = TIME_SINCE_RELEASE.getAndSet(this, ACQUIRED_MARKER);
+            if (tsr == NEVER_RELEASED_MARKER) { //allocated, never acquired
+                metricsRecorder.recordIdleTimeNanos(metricsRecorder.measureNanos(creationTimestamp));
             }
-            else if (tsr < -1L) { //allocated, never acquired
-                metricsRecorder.recordIdleTime(metricsRecorder.measureTime(creationTimestamp));
+            else if (tsr != ACQUIRED_MARKER) {
+                metricsRecorder.recordIdleTimeNanos(metricsRecorder.measureNanos(tsr));
             }
             return acq;
         }
 
         void markReleased() {
-            this.timeSinceRelease = metricsRecorder.now();
+            untrackLease();
+            this.timeSinceRelease = metricsRecorder.nowNanos();
+            this.idleSinceNanos = System.nanoTime();
+        }
+
+        /**
+         * Schedule the reclaim of this resource by the pool if the lease that just started is not ended by a release
+         * or an invalidation within {@code maxLeaseTime}, see {@link #endLease()}.
+         *
+         * @param pool the pool that reclaims the resource
+         * @param maxLeaseTime the maximum duration of the lease
+         */
+        void scheduleLeaseTimeout(AbstractPool<T> pool, Duration maxLeaseTime) {
+            LEASE_TIMEOUT.set(this, LEASE_STARTING);
+            Disposable task;
+            try {
+                task = pool.scheduleTimeout(() -> pool.reclaimExpiredLease(this), maxLeaseTime);
+            }
+            catch (RejectedExecutionException e) {
+                //eg. the timing wheel of a pool disposed concurrently: the delivery mustn't throw
+                pool.logger.debug("Could not schedule the maxLeaseTime of a resource, it won't be reclaimed", e);
+                LEASE_TIMEOUT.compareAndSet(this, LEASE_STARTING, null);
+                return;
+            }
+            if (!LEASE_TIMEOUT.compareAndSet(this, LEASE_STARTING, task)) {
+                //ended or already reclaimed
+                task.dispose();
+            }
+        }
+
+        /**
+         * End the current lease on behalf of the borrower, cancelling its reclaim. Implementors MUST call this first
+         * when releasing or invalidating, and do nothing if it returns false.
+         *
+         * @return false if the pool already reclaimed the resource, true otherwise
+         */
+        boolean endLease() {
+            for (;;) {
+                Disposable current = this.leaseTimeout;
+                if (current == LEASE_RECLAIMED) {
+                    return false;
+                }
+                if (current == null) {
+                    return true;
+                }
+                if (LEASE_TIMEOUT.compareAndSet(this, current, null)) {
+                    current.dispose();
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Take over the current lease on behalf of the pool, as it exceeded the maxLeaseTime.
+         *
+         * @return true if the lease wasn't ended by the borrower in the meantime
+         */
+        boolean reclaimLease() {
+            for (;;) {
+                Disposable current = this.leaseTimeout;
+                if (current == null || current == LEASE_RECLAIMED) {
+                    return false;
+                }
+                if (LEASE_TIMEOUT.compareAndSet(this, current, LEASE_RECLAIMED)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Stop the tracking of the current lease by the {@link LeakDetector}, as it is ended by a release or an
+         * invalidation.
+         */
+        void untrackLease() {
+            LeakDetector.LeaseRecord record = this.leaseRecord;
+            if (record != null) {
+                this.leaseRecord = null;
+                record.release();
+            }
         }
 
         @Override
@@ -216,17 +898,32 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
 
         @Override
         public long lifeTime() {
-            return metricsRecorder.measureTime(creationTimestamp);
+            return TimeUnit.NANOSECONDS.toMillis(lifeTimeNanos());
+        }
+
+        /**
+         * @return the time since allocation of the underlying object, in nanoseconds
+         */
+        long lifeTimeNanos() {
+            return metricsRecorder.measureNanos(creationTimestamp);
         }
 
         @Override
         public long idleTime() {
+            return TimeUnit.NANOSECONDS.toMillis(idleTimeNanos());
+        }
+
+        /**
+         * @return the time since the reference was last released (or allocated), in nanoseconds,
+         * or 0 if it is currently acquired
+         */
+        long idleTimeNanos() {
             long tsr = this.timeSinceRelease;
-            if (tsr == -1L) { //-1 is when it's been marked as acquired
+            if (tsr == ACQUIRED_MARKER) {
                 return 0L;
             }
-            if (tsr < 0L) tsr = creationTimestamp; //any negative date other than -1 is considered "never yet released"
-            return metricsRecorder.measureTime(tsr);
+            if (tsr == NEVER_RELEASED_MARKER) tsr = creationTimestamp;
+            return metricsRecorder.measureNanos(tsr);
         }
 
         /**
@@ -262,7 +959,7 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
      *
      * @author Simon Baslé
      */
-    static final class Borrower<POOLABLE> extends AtomicBoolean implements Scannable, Subscription, Runnable  {
+    static class Borrower<POOLABLE> extends AtomicBoolean implements Scannable, Subscription, Runnable  {
 
         static final Disposable TIMEOUT_DISPOSED = Disposables.disposed();
 
@@ -272,6 +969,21 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
 
         Disposable timeoutTask;
 
+        //1 while the borrower sits in a pending structure and is counted in PENDING_COUNT,
+        //reset exactly once by whoever takes it out of the count: a poll or a cancellation
+        volatile     int                                 queued;
+        static final AtomicIntegerFieldUpdater<Borrower> QUEUED = AtomicIntegerFieldUpdater.newUpdater(Borrower.class, "queued");
+
+        //acquire metrics state, set upon request before the borrower is handed to the pool
+        long    requestNanos;
+        //the adaptiveNanos() upon request
+        long    pendingSinceNanos;
+        //true if there was neither an idle resource nor a permit upon request, ie. the borrower is expected to wait
+        boolean expectPending;
+        //set by the party serving the borrower, which happens-before the delivery
+        boolean allocating;
+        boolean pendingTimeRecorded;
+
         Borrower(CoreSubscriber<? super AbstractPooledRef<POOLABLE>> actual,
                 AbstractPool<POOLABLE> pool,
                 Duration acquireTimeout) {
@@ -285,6 +997,7 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
         public void run() {
             if (Borrower.this.compareAndSet(false, true)) {
                 pool.cancelAcquire(Borrower.this);
+                pool.metricsRecorder.recordPendingTimeout();
                 actual.onError(new TimeoutException("Acquire has been pending for more than the " +
                         "configured timeout of " + acquireTimeout.toMillis() + "ms"));
             }
@@ -294,12 +1007,22 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
         public void request(long n) {
             if (Operators.validate(n)) {
                 //start the countdown
+                requestNanos = pool.metricsRecorder.nowNanos();
+                pendingSinceNanos = pool.adaptiveNanos();
 
                 boolean noIdle = pool.idleSize() == 0;
                 boolean noPermits = pool.poolConfig.allocationStrategy.estimatePermitCount() == 0;
+                expectPending = noIdle && noPermits;
 
-                if (!acquireTimeout.isZero() && noIdle && noPermits) {
-                    timeoutTask = Schedulers.parallel().schedule(this, acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                if (!acquireTimeout.isZero() && expectPending) {
+                    try {
+                        timeoutTask = pool.scheduleTimeout(this, acquireTimeout);
+                    }
+                    catch (RejectedExecutionException e) {
+                        //eg. a shared timing wheel that has been disposed: request() mustn't throw
+                        fail(e);
+                        return;
+                    }
                 }
                 //doAcquire should interrupt the countdown if there is either an available
                 //resource or the pool can allocate one
@@ -307,6 +1030,24 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
             }
         }
 
+        /**
+         * Mark this borrower as counted in the pending count, right before it is offered to a pending structure.
+         */
+        void markQueued() {
+            QUEUED.set(this, 1);
+        }
+
+        /**
+         * Take this borrower out of the pending count, which only succeeds once per {@link #markQueued()}.
+         * A borrower that is still in a pending structure after this returned true is a tombstone,
+         * to be skipped when polled.
+         *
+         * @return true if the caller should decrement the pending count
+         */
+        boolean unmarkQueued() {
+            return queued == 1 && QUEUED.compareAndSet(this, 1, 0);
+        }
+
         /**
          * Stop the countdown started when calling {@link AbstractPool#doAcquire(Borrower)}.
          */
@@ -314,6 +1055,46 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
             timeoutTask.dispose();
         }
 
+        /**
+         * Stop the countdown and record the time spent pending, as the borrower is about to be served
+         * either with an idle resource or with a resource that is going to be allocated for it.
+         *
+         * @param allocation true if a resource is going to be allocated for this borrower
+         */
+        void markServed(boolean allocation) {
+            stopPendingCountdown();
+            if (allocation) {
+                this.allocating = true;
+            }
+            recordPendingTime();
+        }
+
+        void recordPendingTime() {
+            if (expectPending && !pendingTimeRecorded) {
+                pendingTimeRecorded = true;
+                PoolMetricsRecorder recorder = pool.metricsRecorder;
+                long pendingNanos = recorder.measureNanos(requestNanos);
+                recorder.recordPendingTimeNanos(pendingNanos);
+                if (pool.adaptiveStrategy != null) {
+                    pool.adaptiveStrategy.recordPendingTime(System.nanoTime() - pendingSinceNanos);
+                }
+            }
+        }
+
+        void recordAcquireLatency() {
+            PoolMetricsRecorder recorder = pool.metricsRecorder;
+            long latency = recorder.measureNanos(requestNanos);
+            if (expectPending) {
+                recorder.recordAcquireLatencyAfterPendingNanos(latency);
+            }
+            else if (allocating) {
+                recorder.recordAcquireLatencyWithAllocationNanos(latency);
+            }
+            else {
+                recorder.recordAcquireLatencyFromIdleNanos(latency);
+            }
+        }
+
         @Override
         public void cancel() {
             set(true);
@@ -338,7 +1119,10 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
                 poolSlot.release().subscribe(aVoid -> {}, e -> Operators.onErrorDropped(e, Context.empty())); //actual mustn't receive onError
             }
             else {
+                recordPendingTime();
                 poolSlot.markAcquired();
+                pool.trackLease(poolSlot);
+                recordAcquireLatency();
                 actual.onNext(poolSlot);
                 actual.onComplete();
             }
@@ -357,6 +1141,48 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
         }
     }
 
+    /**
+     * The {@link CompletableFuture} returned by {@link #acquireFuture(Duration)}, which is also the subscriber its
+     * {@link Borrower} delivers to. Cancelling the future cancels the {@link Borrower}, and a resource delivered to
+     * an already cancelled future is released.
+     */
+    static final class BorrowerFuture<POOLABLE> extends CompletableFuture<PooledRef<POOLABLE>>
+            implements CoreSubscriber<PooledRef<POOLABLE>> {
+
+        Borrower<POOLABLE> borrower;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            //the borrower is requested by acquireFuture directly
+        }
+
+        @Override
+        public void onNext(PooledRef<POOLABLE> ref) {
+            if (!complete(ref)) {
+                //cancelled concurrently with the delivery
+                ref.release().subscribe(aVoid -> {}, e -> Operators.onErrorDropped(e, Context.empty()));
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            completeExceptionally(t);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) {
+                borrower.cancel();
+            }
+            return cancelled;
+        }
+    }
+
     /**
      * A inner representation of a {@link AbstractPool} configuration.
      *
@@ -373,6 +1199,20 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
          * The minimum number of objects a {@link Pool} should create at initialization.
          */
         final int                                           initialSize;
+        /**
+         * The minimum number of idle resources to maintain by allocating replacements in the background whenever a
+         * resource is destroyed.
+         */
+        final int                                           minIdle;
+        /**
+         * The maximum number of concurrent allocations when warming up the {@link Pool} to its {@link #initialSize}.
+         */
+        final int                                           warmupParallelism;
+        /**
+         * If {@code true}, the {@link #initialSize} resources are not allocated when the {@link Pool} is created but
+         * only when {@link Pool#warmup()} is called.
+         */
+        final boolean                                       isLazyInitialization;
         /**
          * {@link AllocationStrategy} defines a strategy / limit for the number of pooled object to allocate.
          */
@@ -382,6 +1222,11 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
          * when no idle resource is available and the pool cannot grow. Use a negative number to deactivate.
          */
         final int                                           maxPending;
+        /**
+         * The maximum number of allocations that can be in flight at the same time, {@link Integer#MAX_VALUE} for
+         * no limit. Doesn't apply to warmup, which is limited by {@link #warmupParallelism}.
+         */
+        final int                                           maxAllocations;
         /**
          * When a resource is {@link PooledRef#release() released}, defines a mechanism of resetting any lingering state of
          * the resource in order for it to become usable again. The {@link #evictionPredicate} is applied AFTER this reset.
@@ -403,6 +1248,15 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
          * reaping process. Both the resource and some {@link PooledRefMetadata metrics} about the resource's life within the pool are provided.
          */
         final BiPredicate<POOLABLE, PooledRefMetadata>      evictionPredicate;
+        /**
+         * The interval at which idle resources are swept in the background and tested against the
+         * {@link #evictionPredicate}. {@link Duration#ZERO} deactivates the background sweep.
+         */
+        final Duration                                      evictionInterval;
+        /**
+         * The {@link Scheduler} on which the background eviction sweep is periodically run.
+         */
+        final Scheduler                                     evictionScheduler;
         /**
          * The {@link Scheduler} on which the {@link Pool} should publish resources, independently of which thread called
          * {@link Pool#acquire()} or {@link PooledRef#release()} or on which thread the {@link #allocator} produced new
@@ -411,6 +1265,17 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
          * Use {@link Schedulers#immediate()} if determinism is less important than staying on the same threads.
          */
         final Scheduler                                     acquisitionScheduler;
+        /**
+         * The optional {@link HashedWheelTimer} used to track the timeouts of pending borrowers, instead of scheduling
+         * one task per pending borrower on {@link Schedulers#parallel()}.
+         */
+        @Nullable
+        final HashedWheelTimer                              acquireTimeoutWheel;
+        /**
+         * Whether or not the {@link #acquireTimeoutWheel} is dedicated to the {@link Pool}, in which case it is disposed
+         * along with the pool.
+         */
+        final boolean                                       ownsAcquireTimeoutWheel;
         /**
          * The {@link PoolMetricsRecorder} to use to collect instrumentation data of the {@link Pool}
          * implementations.
@@ -423,26 +1288,96 @@ abstract class AbstractPool<POOLABLE> implements InstrumentedPool<POOLABLE>,
          */
         final boolean                                       isLifo;
 
+        /**
+         * The order in which idle resources are reused ({@code false} for the least recently used first, {@code true}
+         * for the most recently used first). Defaults to {@code false} (LRU).
+         */
+        final boolean                                       isIdleMru;
+
+        /**
+         * The optional {@link Function} that resolves the affinity key of a borrower from its subscriber {@link Context},
+         * used by thread-affinity pools instead of the id of the subscribing {@link Thread} when it returns non-null.
+         */
+        @Nullable
+        final Function<? super Context, ?>                  affinityKeyResolver;
+
+        /**
+         * The optional {@link LeakDetector} that reports the {@link PooledRef} held for too long or never released.
+         */
+        @Nullable
+        final LeakDetector                                  leakDetector;
+
+        /**
+         * The maximum time a resource can be held by a borrower, after which it is invalidated by the {@link Pool}.
+         * {@link Duration#ZERO} for no limit.
+         */
+        final Duration                                      maxLeaseTime;
+
+        /**
+         * The optional asynchronous check that an idle resource is still usable before it is handed out, applied to the
+         * resources that have been idle for at least the {@link #validationIdleThreshold}.
+         */
+        @Nullable
+        final Function<POOLABLE, ? extends Publisher<Boolean>> validator;
+        /**
+         * The idle time from which a resource is checked by the {@link #validator} before being handed out.
+         */
+        final Duration                                      validationIdleThreshold;
+        /**
+         * The maximum time the {@link #validator} can take, after which the resource is considered invalid.
+         */
+        final Duration                                      validationTimeout;
+
         DefaultPoolConfig(Mono<POOLABLE> allocator,
                           int initialSize,
+                          int minIdle,
+                          int warmupParallelism,
+                          boolean isLazyInitialization,
                           AllocationStrategy allocationStrategy,
                           int maxPending,
+                          int maxAllocations,
                           Function<POOLABLE, ? extends Publisher<Void>> releaseHandler,
                           Function<POOLABLE, ? extends Publisher<Void>> destroyHandler,
                           BiPredicate<POOLABLE, PooledRefMetadata> evictionPredicate,
+                          Duration evictionInterval,
+                          Scheduler evictionScheduler,
                           Scheduler acquisitionScheduler,
+                          @Nullable HashedWheelTimer acquireTimeoutWheel,
+                          boolean ownsAcquireTimeoutWheel,
                           PoolMetricsRecorder metricsRecorder,
-                          boolean isLifo) {
+                          boolean isLifo,
+                          boolean isIdleMru,
+                          @Nullable Function<? super Context, ?> affinityKeyResolver,
+                          @Nullable LeakDetector leakDetector,
+                          Duration maxLeaseTime,
+                          @Nullable Function<POOLABLE, ? extends Publisher<Boolean>> validator,
+                          Duration validationIdleThreshold,
+                          Duration validationTimeout) {
             this.allocator = allocator;
             this.initialSize = initialSize;
+            this.minIdle = minIdle;
+            this.warmupParallelism = warmupParallelism;
+            this.isLazyInitialization = isLazyInitialization;
             this.allocationStrategy = allocationStrategy;
             this.maxPending = maxPending;
+            this.maxAllocations = maxAllocations;
             this.releaseHandler = releaseHandler;
             this.destroyHandler = destroyHandler;
             this.evictionPredicate = evictionPredicate;
+            this.evictionInterval = evictionInterval;
+            this.evictionScheduler = evictionScheduler;
             this.acquisitionScheduler = acquisitionScheduler;
+            this.acquireTimeoutWheel = acquireTimeoutWheel;
+            this.ownsAcquireTimeoutWheel = ownsAcquireTimeoutWheel;
             this.metricsRecorder = metricsRecorder;
             this.isLifo = isLifo;
+            this.isIdleMru = isIdleMru;
+            this.affinityKeyResolver = affinityKeyResolver;
+            this.leakDetector = leakDetector;
+            this.maxLeaseTime = maxLeaseTime;
+            this.validator = validator;
+            this.validationIdleThreshold = validationIdleThreshold;
+            this.validationTimeout = validationTimeout;
         }
     }
 }
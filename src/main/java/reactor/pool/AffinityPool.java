@@ -15,9 +15,12 @@
  */
 package reactor.pool;
 
+import java.lang.ref.WeakReference;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
@@ -39,8 +42,23 @@ import reactor.core.publisher.Operators;
 import reactor.util.Loggers;
 import reactor.util.annotation.Nullable;
 import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
 
 /**
+ * A {@link Pool} that keeps one {@link SubPool} of pending borrowers per {@link Thread}, so that resources
+ * released on a thread are preferably handed to borrowers that subscribed on that same thread.
+ * <p>
+ * A {@link SubPool} is weakly tied to its thread: once the thread has died, the sub-pool is retired and its
+ * pending borrowers are migrated to a live one. Dead sub-pools are looked for whenever the number of sub-pools
+ * has doubled since the last sweep, as well as during background eviction, so the cost of the slow paths
+ * stays proportional to the number of live threads even with churning thread pools.
+ * <p>
+ * Alternatively, borrowers can be keyed on a value resolved from their {@link Context} (see
+ * {@link PoolBuilder#affinityKey(Function)}), eg. an event loop that can be backed by different threads over
+ * time. Such sub-pools are never retired. A resource allocated for a keyed borrower is pinned to its key and,
+ * when released, preferably handed to a pending borrower with the same key. Idle resources are shared by all
+ * keys though, so affinity only applies when resources are scarce enough for borrowers to be pending.
+ *
  * @author Simon Baslé
  */
 @SuppressWarnings("WeakerAccess")
@@ -53,38 +71,45 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
     //needs to be at least MPSC. producers include fastpath threads, only consumer is slowpath winner thread
     //we go with Reactor-Core unbounded MPSC queue.
     final Queue<AffinityPooledRef<POOLABLE>> availableElements;
-    final Function<? super Long, ? extends SubPool<POOLABLE>>     subPoolFactory;
+    final Function<Object, ? extends SubPool<POOLABLE>>           subPoolFactory;
+
+    //the exact number of idle resources, maintained by idleOffer/idlePoll so that it can be read without walking availableElements
+    volatile int idleCount;
+    static final AtomicIntegerFieldUpdater<AffinityPool> IDLE_COUNT = AtomicIntegerFieldUpdater.newUpdater(AffinityPool.class, "idleCount");
 
-    volatile Map<Long, SubPool<POOLABLE>> pools;
+    //keyed by thread id, or by AffinityKey for the keys resolved from the Context
+    volatile Map<Object, SubPool<POOLABLE>> pools;
     static final AtomicReferenceFieldUpdater<AffinityPool, Map> POOLS = AtomicReferenceFieldUpdater.newUpdater(AffinityPool.class, Map.class, "pools");
 
     volatile int slowPathWip;
     static final AtomicIntegerFieldUpdater<AffinityPool> SLOWPATH_WIP = AtomicIntegerFieldUpdater.newUpdater(AffinityPool.class, "slowPathWip");
 
+    //the sub-pools that might have pending borrowers, each registered at most once (see SubPool#markReady)
+    final Queue<SubPool<POOLABLE>> readySubPools;
+
+    //borrowers for which an allocation was started, no longer pending: they are served in order, before the
+    //sub-pools, by whichever resource comes first: an allocation or a release
+    final Deque<AffinityBorrower<POOLABLE>> awaitingAllocation;
+
+    //the number of sub-pools past which dead ones are looked for, racy updates are harmless
+    volatile int retireThreshold = MIN_RETIRE_THRESHOLD;
+
+    static final int MIN_RETIRE_THRESHOLD = 16;
+
 
     public AffinityPool(DefaultPoolConfig<POOLABLE> poolConfig) {
         super(poolConfig, Loggers.getLogger(AffinityPool.class));
         this.pools = new ConcurrentHashMap<>();
         this.subPoolFactory = (poolConfig.isLifo) ?
-                it -> new LifoSubPool<>(this) :
-                it -> new FifoSubPool<>(this);
-
-        this.availableElements = Queues.<AffinityPooledRef<POOLABLE>>unboundedMultiproducer().get();
+                key -> new LifoSubPool<>(this, key instanceof AffinityKey ? null : Thread.currentThread()) :
+                key -> new FifoSubPool<>(this, key instanceof AffinityKey ? null : Thread.currentThread());
 
-        int toBuild = poolConfig.allocationStrategy.getPermits(poolConfig.initialSize);
+        this.availableElements = poolConfig.isIdleMru ? new TreiberStack<>() : Queues.<AffinityPooledRef<POOLABLE>>unboundedMultiproducer().get();
+        this.readySubPools = new ConcurrentLinkedQueue<>();
+        this.awaitingAllocation = new ConcurrentLinkedDeque<>();
 
-        for (int i = 0; i < toBuild; i++) {
-            long start = poolConfig.metricsRecorder.now();
-            try {
-                POOLABLE poolable = Objects.requireNonNull(poolConfig.allocator.block(), "allocator returned null in constructor");
-                poolConfig.metricsRecorder.recordAllocationSuccessAndLatency(poolConfig.metricsRecorder.measureTime(start));
-                availableElements.offer(new AffinityPooledRef<>(this, poolable)); //the pool slot won't access this pool instance until after it has been constructed
-            }
-            catch (Throwable t) {
-                poolConfig.metricsRecorder.recordAllocationFailureAndLatency(poolConfig.metricsRecorder.measureTime(start));
-                throw t;
-            }
-        }
+        warmupUnlessLazy();
+        startBackgroundTasks();
     }
 
     @Override
@@ -100,28 +125,83 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
     }
 
     @Override
-    void cancelAcquire(Borrower<POOLABLE> borrower) {
-        for (SubPool<POOLABLE> subPool : pools.values()) {
-            subPool.cancelPending(borrower);
+    Borrower<POOLABLE> newBorrower(CoreSubscriber<? super PooledRef<POOLABLE>> actual, Duration acquireTimeout) {
+        return new AffinityBorrower<>(actual, this, acquireTimeout);
+    }
+
+    @Override
+    @Nullable
+    public PooledRef<POOLABLE> tryAcquire() {
+        if (isDisposed() || pendingCount > 0 || !awaitingAllocation.isEmpty()) {
+            return null; //don't overtake the waiting borrowers
         }
+        long start = metricsRecorder.nowNanos();
+        AffinityPooledRef<POOLABLE> element;
+        while ((element = idlePoll()) != null) {
+            if (poolConfig.evictionPredicate.test(element.poolable, element)) {
+                destroyPoolable(element).subscribe(null, t -> bestEffortAllocateOrPend(), this::bestEffortAllocateOrPend);
+            }
+            else if (needsValidation(element)) {
+                validate(element, this::offerValidated, this::destroyInvalid);
+            }
+            else {
+                return markTryAcquired(element, start, false);
+            }
+        }
+        POOLABLE poolable = tryAllocateNow();
+        if (poolable == null) {
+            return null;
+        }
+        return markTryAcquired(new AffinityPooledRef<>(this, poolable), start, true);
     }
 
+    /**
+     * Cancel a pending borrower by looking into the {@link SubPool} it last registered with only, retrying
+     * if it was concurrently migrated to another {@link SubPool}.
+     */
     @Override
-    void doAcquire(Borrower<POOLABLE> borrower) {
+    void cancelAcquire(Borrower<POOLABLE> b) {
+        AffinityBorrower<POOLABLE> borrower = (AffinityBorrower<POOLABLE>) b;
+        for (;;) {
+            SubPool<POOLABLE> subPool = borrower.subPool;
+            if (subPool == null || subPool.cancelPending(borrower) || borrower.subPool == subPool) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    void doAcquire(Borrower<POOLABLE> b) {
+        AffinityBorrower<POOLABLE> borrower = (AffinityBorrower<POOLABLE>) b;
         if (pools == TERMINATED) {
             borrower.fail(new RuntimeException("Pool has been shut down"));
             return;
         }
 
-        SubPool<POOLABLE> subPool = pools.computeIfAbsent(Thread.currentThread().getId(), this.subPoolFactory);
+        SubPool<POOLABLE> subPool;
+        try {
+            subPool = subPoolFor(borrower);
+        }
+        catch (Throwable e) {
+            borrower.fail(e);
+            return;
+        }
 
-        AffinityPooledRef<POOLABLE> element = availableElements.poll();
+        AffinityPooledRef<POOLABLE> element = idlePoll();
         if (element != null) {
 
             //TODO test this scenario
             if (poolConfig.evictionPredicate.test(element.poolable, element)) {
                 destroyPoolable(element).subscribe(null, t -> allocateOrPend(subPool, borrower), () -> allocateOrPend(subPool, borrower)); //this returns a permit
             }
+            else if (needsValidation(element)) {
+                validate(element,
+                        valid -> {
+                            borrower.stopPendingCountdown();
+                            borrower.deliver(valid);
+                        },
+                        invalid -> destroyPoolable(invalid).subscribe(null, t -> retryAcquire(borrower), () -> retryAcquire(borrower)));
+            }
             else {
                 borrower.stopPendingCountdown();
                 metricsRecorder.recordFastPath();
@@ -133,36 +213,210 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
         }
     }
 
+    /**
+     * Acquire again for a borrower whose idle resource failed validation, moving on to the next idle resource or to
+     * an allocation, unless it was cancelled in the meantime.
+     */
+    void retryAcquire(AffinityBorrower<POOLABLE> borrower) {
+        if (borrower.get()) {
+            bestEffortAllocateOrPend(); //the permit of the invalid resource could serve another borrower
+        }
+        else {
+            doAcquire(borrower);
+        }
+    }
+
+    /**
+     * Put back a resource that passed validation outside of an acquire, to be handed out without being validated again.
+     */
+    void offerValidated(AffinityPooledRef<POOLABLE> ref) {
+        if (isDisposed()) {
+            destroyPoolable(ref).subscribe();
+        }
+        else {
+            idleOffer(ref);
+            slowPathRecycle();
+        }
+    }
+
+    /**
+     * Destroy a resource that failed validation outside of an acquire, letting its permit serve a pending borrower.
+     */
+    void destroyInvalid(AffinityPooledRef<POOLABLE> ref) {
+        destroyPoolable(ref).subscribe(null, t -> bestEffortAllocateOrPend(), this::bestEffortAllocateOrPend);
+    }
+
+    /**
+     * Get the {@link SubPool} of the current thread, creating it if needed. Creating a sub-pool
+     * can trigger a sweep of the sub-pools of dead threads, see {@link #retireDeadSubPools()}.
+     *
+     * @return the {@link SubPool} of the current thread
+     */
+    SubPool<POOLABLE> currentSubPool() {
+        return subPool(Thread.currentThread().getId());
+    }
+
+    /**
+     * Get the {@link SubPool} of the given {@link AffinityBorrower}: the one of the key resolved from its
+     * {@link Context} if there is one, which is then remembered in the borrower, or else the one of the
+     * current thread.
+     *
+     * @param borrower the borrower to find a {@link SubPool} for
+     * @return the {@link SubPool} of the borrower
+     */
+    SubPool<POOLABLE> subPoolFor(AffinityBorrower<POOLABLE> borrower) {
+        Function<? super Context, ?> resolver = poolConfig.affinityKeyResolver;
+        if (resolver != null) {
+            Object key = resolver.apply(borrower.actual.currentContext());
+            if (key != null) {
+                AffinityKey affinityKey = new AffinityKey(key);
+                borrower.affinityKey = affinityKey;
+                return subPool(affinityKey);
+            }
+        }
+        return currentSubPool();
+    }
+
+    SubPool<POOLABLE> subPool(Object key) {
+        SubPool<POOLABLE> subPool = pools.get(key);
+        if (subPool == null) {
+            subPool = pools.computeIfAbsent(key, this.subPoolFactory);
+            if (pools.size() >= retireThreshold) {
+                retireDeadSubPools();
+                this.retireThreshold = Math.max(MIN_RETIRE_THRESHOLD, pools.size() * 2);
+            }
+        }
+        return subPool;
+    }
+
+    /**
+     * Remove the sub-pools whose thread has died from {@link #pools}, migrating their pending
+     * borrowers to the sub-pool of the current thread.
+     */
+    void retireDeadSubPools() {
+        for (Map.Entry<Object, SubPool<POOLABLE>> entry : pools.entrySet()) {
+            SubPool<POOLABLE> subPool = entry.getValue();
+            if (!subPool.isOwnerAlive() && pools.remove(entry.getKey(), subPool)) {
+                subPool.retire();
+            }
+        }
+    }
+
     @Override
     boolean elementOffer(POOLABLE element) {
-        return availableElements.offer(new AffinityPooledRef<>(this, element));
+        return idleOffer(new AffinityPooledRef<>(this, element));
+    }
+
+    @Override
+    void offerAllocated(POOLABLE poolable) {
+        idleOffer(new AffinityPooledRef<>(this, poolable));
+        slowPathRecycle();
     }
 
     @Override
     public int idleSize() {
-        return availableElements.size();
+        return idleCount;
+    }
+
+    /**
+     * Make a resource idle. The {@link #idleCount} is incremented first, so that it never
+     * undercounts the {@link #availableElements}.
+     */
+    boolean idleOffer(AffinityPooledRef<POOLABLE> ref) {
+        IDLE_COUNT.incrementAndGet(this);
+        return availableElements.offer(ref);
+    }
+
+    /**
+     * @return the next idle resource, or null if there is none
+     */
+    @Nullable
+    AffinityPooledRef<POOLABLE> idlePoll() {
+        AffinityPooledRef<POOLABLE> ref = availableElements.poll();
+        if (ref != null) {
+            IDLE_COUNT.decrementAndGet(this);
+        }
+        return ref;
+    }
+
+    @Override
+    void evictInBackground() {
+        if (isDisposed()) {
+            return;
+        }
+        retireDeadSubPools();
+        List<AffinityPooledRef<POOLABLE>> kept = new ArrayList<>();
+        for (int toCheck = idleCount; toCheck > 0; toCheck--) {
+            AffinityPooledRef<POOLABLE> ref = idlePoll();
+            if (ref == null) {
+                break;
+            }
+            if (shouldEvictInBackground(ref)) {
+                destroyPoolable(ref).subscribe(null, t -> bestEffortAllocateOrPend(), this::bestEffortAllocateOrPend);
+            }
+            else {
+                kept.add(ref);
+            }
+        }
+        //put the kept resources back in the same order, ie. in reverse order onto a stack of most recently used ones
+        for (int i = 0; i < kept.size(); i++) {
+            idleOffer(kept.get(poolConfig.isIdleMru ? kept.size() - 1 - i : i));
+        }
+        if (!kept.isEmpty()) {
+            //a borrower could have been put in pending while we were holding the resource
+            slowPathRecycle();
+        }
     }
 
-    void allocateOrPend(SubPool<POOLABLE> subPool, Borrower<POOLABLE> borrower) {
-        if (poolConfig.allocationStrategy.getPermits(1) == 1) {
-            borrower.stopPendingCountdown();
-            long start = metricsRecorder.now();
+    void allocateOrPend(SubPool<POOLABLE> subPool, AffinityBorrower<POOLABLE> borrower) {
+        boolean allocate = startAllocations(1) == 1;
+        if (allocate && poolConfig.allocationStrategy.getPermits(1) != 1) {
+            cancelAllocations(1);
+            allocate = false;
+        }
+        if (allocate) {
+            borrower.markServed(true);
+            awaitingAllocation.offer(borrower);
+            long start = metricsRecorder.nowNanos();
+            long adaptiveStart = adaptiveNanos();
             poolConfig.allocator
                     //we expect the allocator will publish in the same thread or a "compatible" one
                     // (like EventLoopGroup for Netty connections), which makes it more suitable to use with Schedulers.immediate()
 //                    .publishOn(poolConfig.acquisitionScheduler())
                     .subscribe(newInstance -> {
-                                metricsRecorder.recordAllocationSuccessAndLatency(metricsRecorder.measureTime(start));
-                                borrower.deliver(new AffinityPooledRef<>(this, newInstance));
+                                recordAllocationSuccess(start, adaptiveStart);
+                                //pinned to the key of the borrower, if any, but handed to whoever is first in line.
+                                //a cancelled borrower releases the resource, which then goes to the next one
+                                AffinityPooledRef<POOLABLE> ref = new AffinityPooledRef<>(this, newInstance, borrower.affinityKey);
+                                AffinityBorrower<POOLABLE> first;
+                                if (isDisposed()) {
+                                    destroyPoolable(ref).subscribe();
+                                }
+                                else if ((first = awaitingAllocation.poll()) != null) {
+                                    first.deliver(ref);
+                                }
+                                else {
+                                    //the awaiting borrowers were served by releases
+                                    idleOffer(ref);
+                                    slowPathRecycle();
+                                }
+                                endAllocation();
                             },
                             e -> {
-                                metricsRecorder.recordAllocationFailureAndLatency(metricsRecorder.measureTime(start));
+                                metricsRecorder.recordAllocationFailureAndLatencyNanos(metricsRecorder.measureNanos(start));
                                 poolConfig.allocationStrategy.returnPermits(1);
-                                borrower.fail(e);
+                                AffinityBorrower<POOLABLE> first = awaitingAllocation.poll();
+                                if (first != null) {
+                                    first.fail(e);
+                                }
+                                else {
+                                    logger.debug("Allocation failed after the borrowers awaiting it were served", e);
+                                }
+                                endAllocation();
                             });
         }
         else {
-            //cannot create, add to pendingLocal
+            //cannot create (no permit or too many allocations in flight), add to pendingLocal
             subPool.offerPending(borrower);
             //now it's just a matter of waiting for a #release
         }
@@ -170,9 +424,22 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
 
     void recycle(AffinityPooledRef<POOLABLE> pooledRef) {
         metricsRecorder.recordRecycled();
+        if (!awaitingAllocation.isEmpty()) {
+            //the borrowers awaiting an allocation are first in line
+            idleOffer(pooledRef);
+            slowPathRecycle();
+            return;
+        }
+        Object pinnedKey = pooledRef.affinityKey;
+        if (pinnedKey != null) {
+            SubPool<POOLABLE> pinned = pools.get(pinnedKey);
+            if (pinned != null && pinned.tryDirectRecycle(pooledRef)) {
+                return;
+            }
+        }
         SubPool<POOLABLE> subPool = pools.get(Thread.currentThread().getId());
         if (subPool == null || !subPool.tryDirectRecycle(pooledRef)) {
-            availableElements.offer(pooledRef);
+            idleOffer(pooledRef);
             slowPathRecycle();
         }
     }
@@ -184,13 +451,27 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
         //TODO should we randomize the order of subpools to try?
         for(;;) {
             if (availableElements.peek() != null) { //do not poll immediately
+                AffinityBorrower<POOLABLE> awaiting = awaitingAllocation.poll();
+                if (awaiting != null) {
+                    AffinityPooledRef<POOLABLE> ref = idlePoll();
+                    if (ref != null) {
+                        metricsRecorder.recordSlowPath();
+                        awaiting.deliver(ref);
+                    }
+                    else {
+                        //racing with doAcquire, keep it first in line
+                        awaitingAllocation.offerFirst(awaiting);
+                    }
+                    continue; //loop again to re-evaluate availableElements
+                }
+
                 boolean lookAtSubPools = true;
                 SubPool<POOLABLE> directMatch = pools.get(Thread.currentThread().getId());
                 if (directMatch != null && directMatch.tryLockForSlowPath()) {
-                    Borrower<POOLABLE> pending = directMatch.getPendingAndUnlock();
+                    AffinityBorrower<POOLABLE> pending = directMatch.getPendingAndUnlock();
                     if (pending != null) {
                         //this might return null, racing with doAcquire
-                        AffinityPooledRef<POOLABLE> ref = availableElements.poll();
+                        AffinityPooledRef<POOLABLE> ref = idlePoll();
                         if (ref != null) {
                             lookAtSubPools = false;
                             metricsRecorder.recordSlowPath();
@@ -206,21 +487,35 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
 
                 if (lookAtSubPools) {
                     //we only arrive at this point if there was no direct match
-                    for (SubPool<POOLABLE> subPool : pools.values()) {
-                        if (subPool.tryLockForSlowPath()) {
-                            Borrower<POOLABLE> pending = subPool.getPendingAndUnlock();
-                            if (pending != null) {
-                                AffinityPooledRef<POOLABLE> ref = availableElements.poll();
-                                if (ref == null) {
-                                    subPool.offerPending(pending);
-                                    //continue
-                                }
-                                else {
-                                    metricsRecorder.recordSlowPath();
-                                    pending.deliver(ref);
-                                    break; //break out of the subpool iteration
-                                }
+                    List<SubPool<POOLABLE>> busy = null;
+                    SubPool<POOLABLE> subPool;
+                    while ((subPool = pollReadySubPool()) != null) {
+                        if (!subPool.tryLockForSlowPath()) {
+                            //a direct recycle is serving that subpool, it is registered again below
+                            if (busy == null) {
+                                busy = new ArrayList<>(2);
+                            }
+                            busy.add(subPool);
+                            continue;
+                        }
+                        AffinityBorrower<POOLABLE> pending = subPool.getPendingAndUnlock();
+                        subPool.markReadyIfPending();
+                        if (pending != null) {
+                            AffinityPooledRef<POOLABLE> ref = idlePoll();
+                            if (ref == null) {
+                                subPool.offerPending(pending);
+                            }
+                            else {
+                                metricsRecorder.recordSlowPath();
+                                pending.deliver(ref);
                             }
+                            break; //break out of the subpool iteration
+                        }
+                        //else the subpool was emptied in the meantime, look at the next one
+                    }
+                    if (busy != null) {
+                        for (SubPool<POOLABLE> b : busy) {
+                            b.markReadyIfPending();
                         }
                     }
                 }
@@ -235,41 +530,88 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
     void bestEffortAllocateOrPend() {
         SubPool<POOLABLE> directMatch = pools.get(Thread.currentThread().getId());
         if (directMatch != null && directMatch.tryLockForSlowPath()) {
-            Borrower<POOLABLE> pending = directMatch.getPendingAndUnlock();
+            AffinityBorrower<POOLABLE> pending = directMatch.getPendingAndUnlock();
             if (pending != null) {
                 allocateOrPend(directMatch, pending);
                 //return
             }
         }
         else {
-            for (SubPool<POOLABLE> subPool : pools.values()) {
-                if (subPool.tryLockForSlowPath()) {
-                    Borrower<POOLABLE> pending = subPool.getPendingAndUnlock();
-                    if (pending != null) {
-                        allocateOrPend(subPool, pending);
-                        return;
+            List<SubPool<POOLABLE>> busy = null;
+            SubPool<POOLABLE> subPool;
+            while ((subPool = pollReadySubPool()) != null) {
+                if (!subPool.tryLockForSlowPath()) {
+                    if (busy == null) {
+                        busy = new ArrayList<>(2);
                     }
+                    busy.add(subPool);
+                    continue;
+                }
+                AffinityBorrower<POOLABLE> pending = subPool.getPendingAndUnlock();
+                subPool.markReadyIfPending();
+                if (pending != null) {
+                    allocateOrPend(subPool, pending);
+                    break;
+                }
+            }
+            if (busy != null) {
+                for (SubPool<POOLABLE> b : busy) {
+                    b.markReadyIfPending();
                 }
             }
         }
     }
 
+    @Override
+    void allocateForPending() {
+        while (pendingCount > 0 && poolConfig.allocationStrategy.estimatePermitCount() > 0 && canStartAllocation()) {
+            int pendingBefore = pendingCount;
+            bestEffortAllocateOrPend();
+            if (pendingCount >= pendingBefore) {
+                return; //no borrower could be served, eg. because of a concurrent allocation
+            }
+        }
+    }
+
+    /**
+     * Take the next {@link SubPool} that might have pending borrowers out of {@link #readySubPools}. The caller
+     * MUST call {@link SubPool#markReadyIfPending()} once it is done polling its pending borrowers, so that it is
+     * registered again if it still has some.
+     *
+     * @return the next ready {@link SubPool}, or null if none
+     */
+    @Nullable
+    SubPool<POOLABLE> pollReadySubPool() {
+        SubPool<POOLABLE> subPool = readySubPools.poll();
+        if (subPool != null) {
+            SubPool.READY.set(subPool, 0);
+        }
+        return subPool;
+    }
+
 
     @Override
     public void dispose() {
         @SuppressWarnings("unchecked")
-        Map<Long, SubPool<POOLABLE>> toClose = POOLS.getAndSet(this, TERMINATED);
+        Map<Object, SubPool<POOLABLE>> toClose = POOLS.getAndSet(this, TERMINATED);
         if (toClose != TERMINATED) {
+            stopBackgroundTasks();
+
             for (SubPool<POOLABLE> subPool : toClose.values()) {
-                Borrower<POOLABLE> pending;
+                AffinityBorrower<POOLABLE> pending;
                 while((pending = subPool.pollPending()) != null) {
                     pending.fail(new RuntimeException("Pool has been shut down"));
                 }
             }
             toClose.clear();
+            readySubPools.clear();
+            AffinityBorrower<POOLABLE> awaiting;
+            while ((awaiting = awaitingAllocation.poll()) != null) {
+                awaiting.fail(new RuntimeException("Pool has been shut down"));
+            }
 
             while(!availableElements.isEmpty()) {
-                destroyPoolable(availableElements.poll()).subscribe();
+                destroyPoolable(idlePoll()).subscribe();
             }
         }
     }
@@ -283,45 +625,224 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
     static abstract class SubPool<POOLABLE> {
 
         final AffinityPool<POOLABLE> parent;
+        //null for the sub-pools of keys resolved from the Context, which are never retired
+        @Nullable
+        final WeakReference<Thread>  owner;
 
         volatile int directReleaseInProgress;
+        volatile int retired;
+        //1 while the subpool is registered in the parent's readySubPools
+        volatile int ready;
+        //the cancelled borrowers left in the local pendings as tombstones
+        volatile int cancelled;
 
 
         static final AtomicIntegerFieldUpdater<SubPool> DIRECT_RELEASE_WIP = AtomicIntegerFieldUpdater.newUpdater(SubPool.class, "directReleaseInProgress");
+        static final AtomicIntegerFieldUpdater<SubPool> RETIRED = AtomicIntegerFieldUpdater.newUpdater(SubPool.class, "retired");
+        static final AtomicIntegerFieldUpdater<SubPool> READY = AtomicIntegerFieldUpdater.newUpdater(SubPool.class, "ready");
+        static final AtomicIntegerFieldUpdater<SubPool> CANCELLED = AtomicIntegerFieldUpdater.newUpdater(SubPool.class, "cancelled");
 
 
-        protected SubPool(AffinityPool<POOLABLE> parent) {
+        protected SubPool(AffinityPool<POOLABLE> parent, @Nullable Thread owner) {
             this.parent = parent;
+            this.owner = owner == null ? null : new WeakReference<>(owner);
         }
 
         /**
-         * Add a new pending {@link Borrower} to the subpool, which
+         * Add a pending {@link Borrower} to the subpool without touching the pending count, which
          * can either work in FIFO order (like a {@link Deque#offerLast(Object) queue offer})
-         * or in LIFO order (like a {@link Deque#offerFirst(Object) stack push}).
+         * or in LIFO order (like a {@link Deque#offerFirst(Object) stack push}). The borrower MUST be
+         * {@link Borrower#markQueued() marked as queued} before it is offered.
          *
          * @param pending the pending {@link Borrower} to add to the SubPool
          */
-        abstract void offerPending(Borrower<POOLABLE> pending);
+        abstract void offerLocal(AffinityBorrower<POOLABLE> pending);
 
-        abstract void cancelPending(Borrower<POOLABLE> borrower);
+        /**
+         * Remove a pending from the subpool and return it without touching the pending count,
+         * or return {@code null} if it is empty. The subpool can either work in FIFO order
+         * (like a {@link Deque#pollLast() queue poll}) or in LIFO order (like a {@link Deque#pollFirst() stack pop}.
+         * Tombstones left by {@link #removeLocal(AffinityBorrower)} are skipped and dropped along the way.
+         *
+         * @return the next pending {@link Borrower} to serve, or null if none
+         */
+        @Nullable
+        abstract AffinityBorrower<POOLABLE> pollLocal();
+
+        /**
+         * Remove the tombstones of the cancelled borrowers from the local pendings, in linear time.
+         */
+        abstract void purgeLocal();
+
+        /**
+         * @return true if there is no pending {@link Borrower} in the subpool, tombstones aside
+         */
+        abstract boolean isLocalEmpty();
+
+        /**
+         * Remove the given pending {@link Borrower} from the subpool without touching the pending count,
+         * in constant time: the borrower is left in the local pendings as a tombstone, which
+         * {@link #pollLocal()} skips. Once there have been more cancellations than there are pending
+         * borrowers in the whole pool, the tombstones are purged, amortizing that sweep over the cancellations.
+         *
+         * @param borrower the {@link Borrower} to remove
+         * @return true if the borrower was still pending and is now removed
+         */
+        boolean removeLocal(AffinityBorrower<POOLABLE> borrower) {
+            if (!borrower.unmarkQueued()) {
+                return false; //already polled, or being migrated
+            }
+            int tombstones = CANCELLED.incrementAndGet(this);
+            if (tombstones >= SimplePool.TOMBSTONES_PURGE_THRESHOLD && tombstones > parent.pendingCount
+                    && CANCELLED.compareAndSet(this, tombstones, 0)) {
+                purgeLocal();
+            }
+            return true;
+        }
+
+        /**
+         * Account for a tombstone that {@link #pollLocal()} dropped, floored at zero as a purge resetting
+         * the count can race with the poll.
+         */
+        void tombstonePolled() {
+            for (;;) {
+                int tombstones = CANCELLED.get(this);
+                if (tombstones == 0 || CANCELLED.compareAndSet(this, tombstones, tombstones - 1)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Add a pending {@link Borrower} to the subpool, remember the subpool in the {@link Borrower}
+         * and register the subpool as ready.
+         * <p>
+         * A cancellation racing with the enqueue, eg. while the borrower is being migrated out of a
+         * retired subpool, can miss it in both subpools. As the borrower is flagged as cancelled before
+         * its subpool is looked up, it is then seen as such here and taken out of this subpool and of
+         * the pending count, whichever of the two parties gets to remove it.
+         *
+         * @param pending the pending {@link Borrower} to add to the SubPool
+         */
+        void enqueue(AffinityBorrower<POOLABLE> pending) {
+            pending.subPool = this;
+            pending.markQueued();
+            offerLocal(pending);
+            markReady();
+            if (pending.get()) {
+                cancelPending(pending);
+            }
+        }
+
+        /**
+         * Register this subpool in the parent's ready sub-pools, unless it already is. MUST be called after
+         * adding a pending borrower, so that a concurrent {@link AffinityPool#pollReadySubPool()} either
+         * sees this subpool registered or sees the borrower in {@link #markReadyIfPending()}.
+         */
+        void markReady() {
+            if (ready == 0 && READY.compareAndSet(this, 0, 1)) {
+                parent.readySubPools.offer(this);
+            }
+        }
+
+        void markReadyIfPending() {
+            if (!isLocalEmpty()) {
+                markReady();
+            }
+        }
+
+        /**
+         * Add a new pending {@link Borrower} to the subpool, unless the pool has reached its maximum
+         * number of pending borrowers, in which case the borrower is failed.
+         *
+         * @param pending the pending {@link Borrower} to add to the SubPool
+         */
+        void offerPending(AffinityBorrower<POOLABLE> pending) {
+            int maxPending = parent.poolConfig.maxPending;
+            for (;;) {
+                int currentPending = AbstractPool.PENDING_COUNT.get(parent);
+                if (maxPending >= 0 && currentPending == maxPending) {
+                    parent.metricsRecorder.recordPendingRejected();
+                    pending.fail(new IllegalStateException("Pending acquire queue has reached its maximum size of " + maxPending));
+                    return;
+                }
+                else if (AbstractPool.PENDING_COUNT.compareAndSet(parent, currentPending, currentPending + 1)) {
+                    enqueue(pending);
+                    if (retired == 1) {
+                        //raced with the retirement, which might have missed this borrower
+                        migratePending();
+                    }
+                    return;
+                }
+            }
+        }
 
         /**
          * Remove a pending from the subpool and return it, or {@code null} if it is empty.
-         * The subpool can either work in FIFO order (like a {@link Deque#pollLast() queue poll})
-         * or in LIFO order (like a {@link Deque#pollFirst() stack pop}.
          *
          * @return the next pending {@link Borrower} to serve, or null if none
          */
         @Nullable
-        abstract Borrower<POOLABLE> pollPending();
+        AffinityBorrower<POOLABLE> pollPending() {
+            AffinityBorrower<POOLABLE> b = pollLocal();
+            if (b != null) {
+                AbstractPool.PENDING_COUNT.decrementAndGet(parent);
+            }
+            return b;
+        }
+
+        boolean cancelPending(AffinityBorrower<POOLABLE> borrower) {
+            if (removeLocal(borrower)) {
+                AbstractPool.PENDING_COUNT.decrementAndGet(parent);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return true if the thread this subpool is tied to is still alive, or if it isn't tied to a thread
+         */
+        boolean isOwnerAlive() {
+            if (owner == null) {
+                return true;
+            }
+            Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        /**
+         * Mark this subpool, which MUST have been removed from the {@link AffinityPool#pools}, as retired
+         * and migrate its pending borrowers.
+         */
+        void retire() {
+            RETIRED.set(this, 1);
+            migratePending();
+        }
+
+        /**
+         * Move the pending borrowers of this retired subpool to the subpool of the current thread.
+         * They keep being counted as pending.
+         */
+        void migratePending() {
+            AffinityBorrower<POOLABLE> pending;
+            while ((pending = pollLocal()) != null) {
+                if (parent.isDisposed()) {
+                    AbstractPool.PENDING_COUNT.decrementAndGet(parent);
+                    pending.fail(new RuntimeException("Pool has been shut down"));
+                }
+                else {
+                    parent.currentSubPool().enqueue(pending);
+                }
+            }
+        }
 
         public boolean tryLockForSlowPath() {
             return DIRECT_RELEASE_WIP.compareAndSet(this, 0, 1);
         }
 
         @Nullable
-        public Borrower<POOLABLE> getPendingAndUnlock() {
-            Borrower<POOLABLE> m = pollPending();
+        public AffinityBorrower<POOLABLE> getPendingAndUnlock() {
+            AffinityBorrower<POOLABLE> m = pollPending();
             DIRECT_RELEASE_WIP.decrementAndGet(this);
             return m;
         }
@@ -331,7 +852,7 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
                 return false;
             }
 
-            Borrower<POOLABLE> m = pollPending();
+            AffinityBorrower<POOLABLE> m = pollPending();
 
             DIRECT_RELEASE_WIP.decrementAndGet(this);
 
@@ -347,96 +868,116 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
     static final class FifoSubPool<POOLABLE> extends SubPool<POOLABLE> {
 
         //needs to be MPMC. Producer: any thread that doAcquire. Consumer: whomever has the LOCKED + remove.
-        final Queue<Borrower<POOLABLE>> localPendings;
+        final Queue<AffinityBorrower<POOLABLE>> localPendings;
 
-        FifoSubPool(AffinityPool<POOLABLE> parent) {
-            super(parent);
+        FifoSubPool(AffinityPool<POOLABLE> parent, @Nullable Thread owner) {
+            super(parent, owner);
             //unbounded MPMC with remove capacity
             this.localPendings = new ConcurrentLinkedQueue<>();
         }
 
         @Override
-        public void offerPending(Borrower<POOLABLE> pending) {
-            int maxPending = parent.poolConfig.maxPending;
-            for (;;) {
-                int currentPending = AbstractPool.PENDING_COUNT.get(parent);
-                if (maxPending >= 0 && currentPending == maxPending) {
-                    pending.fail(new IllegalStateException("Pending acquire queue has reached its maximum size of " + maxPending));
-                    return;
+        void offerLocal(AffinityBorrower<POOLABLE> pending) {
+            this.localPendings.offer(pending);
+        }
+
+        @Override
+        AffinityBorrower<POOLABLE> pollLocal() {
+            AffinityBorrower<POOLABLE> b;
+            while ((b = this.localPendings.poll()) != null) {
+                if (b.unmarkQueued()) {
+                    return b;
                 }
-                else if (AbstractPool.PENDING_COUNT.compareAndSet(parent, currentPending, currentPending + 1)) {
-                    this.localPendings.offer(pending);
-                    return;
+                else {
+                    tombstonePolled();
                 }
             }
+            return null;
         }
 
         @Override
-        public Borrower<POOLABLE> pollPending() {
-            Borrower<POOLABLE> b = this.localPendings.poll();
-            if (b != null) {
-                AbstractPool.PENDING_COUNT.decrementAndGet(parent);
-            }
-            return b;
+        void purgeLocal() {
+            this.localPendings.removeIf(b -> b.queued == 0);
         }
 
         @Override
-        void cancelPending(Borrower<POOLABLE> borrower) {
-            this.localPendings.remove(borrower);
+        boolean isLocalEmpty() {
+            for (AffinityBorrower<POOLABLE> b : this.localPendings) {
+                if (b.queued == 1) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
     static final class LifoSubPool<POOLABLE> extends SubPool<POOLABLE> {
 
-        final ConcurrentLinkedDeque<Borrower<POOLABLE>> localPendings;
+        final ConcurrentLinkedDeque<AffinityBorrower<POOLABLE>> localPendings;
 
-        LifoSubPool(AffinityPool<POOLABLE> parent) {
-            super(parent);
+        LifoSubPool(AffinityPool<POOLABLE> parent, @Nullable Thread owner) {
+            super(parent, owner);
             this.localPendings = new ConcurrentLinkedDeque<>();
         }
 
         @Override
-        public void offerPending(Borrower<POOLABLE> pending) {
-            int maxPending = parent.poolConfig.maxPending;
-            for (;;) {
-                int currentPending = AbstractPool.PENDING_COUNT.get(parent);
-                if (maxPending >= 0 && currentPending == maxPending) {
-                    pending.fail(new IllegalStateException("Pending acquire queue has reached its maximum size of " + maxPending));
-                    return;
+        void offerLocal(AffinityBorrower<POOLABLE> pending) {
+            this.localPendings.offerFirst(pending);
+        }
+
+        @Override
+        AffinityBorrower<POOLABLE> pollLocal() {
+            AffinityBorrower<POOLABLE> b;
+            while ((b = this.localPendings.pollFirst()) != null) {
+                if (b.unmarkQueued()) {
+                    return b;
                 }
-                else if (AbstractPool.PENDING_COUNT.compareAndSet(parent, currentPending, currentPending + 1)) {
-                    this.localPendings.offerFirst(pending);
-                    return;
+                else {
+                    tombstonePolled();
                 }
             }
+            return null;
         }
 
         @Override
-        public Borrower<POOLABLE> pollPending() {
-            Borrower<POOLABLE> b = this.localPendings.pollFirst();
-            if (b != null) {
-                AbstractPool.PENDING_COUNT.decrementAndGet(parent);
-            }
-            return b;
+        void purgeLocal() {
+            this.localPendings.removeIf(b -> b.queued == 0);
         }
 
         @Override
-        void cancelPending(Borrower<POOLABLE> borrower) {
-            this.localPendings.remove(borrower);
+        boolean isLocalEmpty() {
+            for (AffinityBorrower<POOLABLE> b : this.localPendings) {
+                if (b.queued == 1) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
     static final class AffinityPooledRef<T> extends AbstractPooledRef<T> {
 
         final AffinityPool<T> pool;
+        //the key of the borrower this resource was allocated for, if resolved from its Context
+        @Nullable
+        final AffinityKey     affinityKey;
 
         AffinityPooledRef(AffinityPool<T> pool, T poolable) {
+            this(pool, poolable, null);
+        }
+
+        AffinityPooledRef(AffinityPool<T> pool, T poolable, @Nullable AffinityKey affinityKey) {
             super(poolable, pool.metricsRecorder);
             this.pool = pool;
+            this.affinityKey = affinityKey;
         }
 
         @Override
         public Mono<Void> release() {
+            if (!endLease()) {
+                //already invalidated by the pool, as it was held for too long
+                return Mono.empty();
+            }
             if (POOLS.get(pool) == TERMINATED) {
                 markReleased();
                 return pool.destroyPoolable(this);
@@ -457,6 +998,11 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
 
         @Override
         public Mono<Void> invalidate() {
+            if (!endLease()) {
+                //already invalidated by the pool, as it was held for too long
+                return Mono.empty();
+            }
+            untrackLease();
             return pool.destroyPoolable(this).then(Mono.fromRunnable(pool::bestEffortAllocateOrPend));
         }
     }
@@ -473,11 +1019,60 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
 
         @Override
         public void subscribe(CoreSubscriber<? super PooledRef<T>> actual) {
-            Borrower<T> borrower = new Borrower<>(actual, parent, acquireTimeout);
+            AffinityBorrower<T> borrower = new AffinityBorrower<>(actual, parent, acquireTimeout);
             actual.onSubscribe(borrower);
         }
     }
 
+    /**
+     * A {@link Borrower} that remembers the {@link SubPool} it is pending in, so that it can be cancelled
+     * without looking at all the sub-pools.
+     */
+    static final class AffinityBorrower<POOLABLE> extends Borrower<POOLABLE> {
+
+        //the SubPool this borrower was last offered to, updated upon migration
+        @Nullable
+        volatile SubPool<POOLABLE> subPool;
+
+        //the key resolved from the Context upon acquire, null if keyed on the thread
+        @Nullable
+        AffinityKey affinityKey;
+
+        AffinityBorrower(CoreSubscriber<? super AbstractPooledRef<POOLABLE>> actual,
+                AffinityPool<POOLABLE> pool,
+                Duration acquireTimeout) {
+            super(actual, pool, acquireTimeout);
+        }
+    }
+
+    /**
+     * The key of a {@link SubPool} resolved from the {@link Context}, wrapped so as not to collide with the
+     * thread ids.
+     */
+    static final class AffinityKey {
+
+        final Object key;
+
+        AffinityKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof AffinityKey && key.equals(((AffinityKey) o).key);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "AffinityKey{" + key + '}';
+        }
+    }
+
     private static final class AffinityPoolRecyclerInner<T> implements CoreSubscriber<Void>, Scannable, Subscription {
 
         final CoreSubscriber<? super Void> actual;
@@ -497,7 +1092,7 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
         @Override
         public void onSubscribe(Subscription s) {
             if (Operators.validate(upstream, s)) {
-                this.start = pool.metricsRecorder.now();
+                this.start = pool.metricsRecorder.nowNanos();
                 this.upstream = s;
                 actual.onSubscribe(this);
             }
@@ -512,7 +1107,7 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
         public void onError(Throwable throwable) {
             AffinityPooledRef<T> slot = pooledRef;
             pooledRef = null;
-            pool.metricsRecorder.recordResetLatency(pool.metricsRecorder.measureTime(start));
+            pool.metricsRecorder.recordResetLatencyNanos(pool.metricsRecorder.measureNanos(start));
             if (slot == null) {
                 Operators.onErrorDropped(throwable, actual.currentContext());
                 return;
@@ -526,7 +1121,7 @@ final class AffinityPool<POOLABLE> extends AbstractPool<POOLABLE> {
         public void onComplete() {
             AffinityPooledRef<T> slot = pooledRef;
             pooledRef = null;
-            pool.metricsRecorder.recordResetLatency(pool.metricsRecorder.measureTime(start));
+            pool.metricsRecorder.recordResetLatencyNanos(pool.metricsRecorder.measureNanos(start));
             if (slot == null) {
                 return;
             }
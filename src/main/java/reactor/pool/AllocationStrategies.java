@@ -112,4 +112,134 @@ final class AllocationStrategies {
             PERMITS.addAndGet(this, returned);
         }
     }
+
+    /**
+     * An {@link AllocationStrategy} whose limit moves between {@code min} and {@code max} with the observed demand,
+     * in an additive-increase / multiplicative-decrease fashion. The {@link Pool} periodically {@link #adapt(int, int) samples}
+     * its pending and idle gauges, and feeds the strategy with the time borrowers spend pending and with the allocation
+     * latency, both smoothed by an exponentially weighted moving average:
+     * <ul>
+     *     <li>when borrowers are pending and have been waiting longer than the target (or have been pending since the
+     *     previous sample), the limit grows by the number of pending borrowers, unless allocating is slower than waiting
+     *     for a release</li>
+     *     <li>when resources have been idle since the previous sample and nobody is pending, the limit is halved, but
+     *     never below the number of resources in use. The surplus idle resources are then destroyed by the pool</li>
+     * </ul>
+     */
+    static final class AdaptiveAllocationStrategy implements AllocationStrategy {
+
+        final int  min;
+        final int  max;
+        final long targetPendingNanos;
+
+        volatile int limit;
+        volatile int granted;
+        static final AtomicIntegerFieldUpdater<AdaptiveAllocationStrategy> GRANTED = AtomicIntegerFieldUpdater.newUpdater(AdaptiveAllocationStrategy.class, "granted");
+
+        //moving averages, racy updates are harmless
+        volatile long pendingNanosAverage;
+        volatile long allocationNanosAverage;
+
+        //only accessed by the sampling task
+        int previousPending;
+        int previousIdle;
+
+        AdaptiveAllocationStrategy(int min, int max, long targetPendingNanos) {
+            if (min < 0) {
+                throw new IllegalArgumentException("min must be >= 0");
+            }
+            if (max < 1 || max < min) {
+                throw new IllegalArgumentException("max must be >= 1 and >= min");
+            }
+            if (targetPendingNanos <= 0) {
+                throw new IllegalArgumentException("targetPendingTime must be strictly positive");
+            }
+            this.min = min;
+            this.max = max;
+            this.targetPendingNanos = targetPendingNanos;
+            this.limit = Math.max(1, min);
+        }
+
+        @Override
+        public int getPermits(int desired) {
+            if (desired < 1) return 0;
+
+            for (;;) {
+                int g = granted;
+                int possible = Math.min(desired, limit - g);
+                if (possible <= 0) {
+                    return 0;
+                }
+                if (GRANTED.compareAndSet(this, g, g + possible)) {
+                    return possible;
+                }
+            }
+        }
+
+        @Override
+        public int estimatePermitCount() {
+            return Math.max(0, limit - granted);
+        }
+
+        @Override
+        public int permitMaximum() {
+            return max;
+        }
+
+        @Override
+        public int permitGranted() {
+            return granted;
+        }
+
+        @Override
+        public void returnPermits(int returned) {
+            GRANTED.addAndGet(this, -returned);
+        }
+
+        /**
+         * @return true if more permits are currently granted than the limit allows, ie. some idle resources are surplus
+         */
+        boolean isOverLimit() {
+            return granted > limit;
+        }
+
+        void recordPendingTime(long pendingNanos) {
+            long average = pendingNanosAverage;
+            this.pendingNanosAverage = average + (pendingNanos - average) / 4;
+        }
+
+        void recordAllocationLatency(long allocationNanos) {
+            long average = allocationNanosAverage;
+            this.allocationNanosAverage = average + (allocationNanos - average) / 4;
+        }
+
+        /**
+         * Move the limit according to the current gauges of the pool. MUST only be called by a single periodic task.
+         *
+         * @param pending the number of pending borrowers
+         * @param idle the number of idle resources
+         * @return the change applied to the limit: positive if pending borrowers can now get an allocation, negative if
+         * idle resources might be surplus
+         */
+        int adapt(int pending, int idle) {
+            int current = limit;
+            int next = current;
+            if (pending > 0) {
+                long waited = pendingNanosAverage;
+                boolean tooLong = previousPending > 0 || waited > targetPendingNanos;
+                if (tooLong && allocationNanosAverage <= Math.max(waited, targetPendingNanos)) {
+                    next = (int) Math.min(max, (long) current + pending);
+                }
+            }
+            else if (idle > 0 && previousIdle > 0) {
+                int inUse = Math.max(0, granted - idle);
+                next = Math.max(Math.max(min, 1), Math.max(inUse, current / 2));
+                next = Math.min(next, current);
+            }
+            this.previousPending = pending;
+            this.previousIdle = idle;
+            this.limit = next;
+            return next - current;
+        }
+    }
 }
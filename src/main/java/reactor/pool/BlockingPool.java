@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.reactivestreams.Subscription;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.util.annotation.Nullable;
+import reactor.util.context.Context;
+
+/**
+ * A blocking view of a {@link Pool}, for callers that run on threads that can afford to block, typically virtual
+ * threads. Acquiring parks the calling thread until the resource is delivered to it, without assembling nor
+ * subscribing to a {@link Mono} for the pools built by {@link PoolBuilder}, and the acquired resource is handed
+ * out as a {@link Lease} to be released with try-with-resources:
+ * <pre>
+ * try (BlockingPool.Lease&lt;Connection&gt; lease = pool.blocking().acquire()) {
+ *     lease.poolable().execute(query);
+ * }
+ * </pre>
+ * Waiting only relies on {@link LockSupport}, never on monitors, so a virtual thread waiting for a resource
+ * doesn't pin its carrier thread.
+ */
+public final class BlockingPool<POOLABLE> {
+
+    final Pool<POOLABLE> pool;
+
+    BlockingPool(Pool<POOLABLE> pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @return the {@link Pool} this is a blocking view of
+     */
+    public Pool<POOLABLE> pool() {
+        return pool;
+    }
+
+    /**
+     * Acquire a {@code POOLABLE} from the pool, parking the calling thread until it is available, and become
+     * responsible for its release (see {@link Lease#close()}).
+     *
+     * @return the {@link Lease} of the acquired resource
+     * @throws InterruptedException if the calling thread was interrupted while waiting, in which case the acquire
+     * is cancelled
+     * @throws RuntimeException if the resource couldn't be acquired, eg. because its allocation failed
+     * @see Pool#acquire()
+     */
+    public Lease<POOLABLE> acquire() throws InterruptedException {
+        try {
+            return acquire(Duration.ZERO);
+        }
+        catch (TimeoutException e) {
+            //no timeout
+            throw Exceptions.propagate(e);
+        }
+    }
+
+    /**
+     * Acquire a {@code POOLABLE} from the pool, parking the calling thread until it is available, and become
+     * responsible for its release (see {@link Lease#close()}). The provided {@link Duration} acts as a timeout that
+     * only applies if the acquisition is added to the pending queue, like with {@link Pool#acquire(Duration)}.
+     *
+     * @param timeout the maximum time to wait for a resource once pending, {@link Duration#ZERO} for no timeout
+     * @return the {@link Lease} of the acquired resource
+     * @throws InterruptedException if the calling thread was interrupted while waiting, in which case the acquire
+     * is cancelled
+     * @throws TimeoutException if the acquire has been pending for longer than the timeout
+     * @throws RuntimeException if the resource couldn't be acquired, eg. because its allocation failed
+     * @see Pool#acquire(Duration)
+     */
+    public Lease<POOLABLE> acquire(Duration timeout) throws InterruptedException, TimeoutException {
+        Parker<PooledRef<POOLABLE>> parker = new Parker<>();
+        if (pool instanceof AbstractPool) {
+            parker.upstream = ((AbstractPool<POOLABLE>) pool).borrow(parker, timeout);
+        }
+        else {
+            pool.acquire(timeout).subscribe(parker);
+        }
+        return new Lease<>(parker.awaitInterruptibly());
+    }
+
+    /**
+     * Try to acquire a {@code POOLABLE} from the pool without waiting, see {@link Pool#tryAcquire()}.
+     *
+     * @return the {@link Lease} of the acquired resource, or {@code null} if no resource could be acquired immediately
+     */
+    @Nullable
+    public Lease<POOLABLE> tryAcquire() {
+        PooledRef<POOLABLE> ref = pool.tryAcquire();
+        return ref == null ? null : new Lease<>(ref);
+    }
+
+    /**
+     * An acquired resource, released back to the {@link Pool} when closed.
+     */
+    public static final class Lease<POOLABLE> implements AutoCloseable {
+
+        final PooledRef<POOLABLE> ref;
+
+        boolean closed;
+
+        Lease(PooledRef<POOLABLE> ref) {
+            this.ref = ref;
+        }
+
+        /**
+         * @return the acquired {@code POOLABLE}
+         */
+        public POOLABLE poolable() {
+            return ref.poolable();
+        }
+
+        /**
+         * @return the underlying {@link PooledRef}, eg. for its {@link PooledRef#metadata() metadata}
+         */
+        public PooledRef<POOLABLE> ref() {
+            return ref;
+        }
+
+        /**
+         * Invalidate the resource instead of releasing it, parking the calling thread until it has been destroyed.
+         * Closing this {@link Lease} afterwards is a no-op.
+         *
+         * @see PooledRef#invalidate()
+         */
+        public void invalidate() {
+            if (!closed) {
+                closed = true;
+                await(ref.invalidate());
+            }
+        }
+
+        /**
+         * Release the resource back to the {@link Pool}, parking the calling thread until it has been released.
+         * This is a no-op if the {@link Lease} was already closed or invalidated.
+         *
+         * @see PooledRef#release()
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                await(ref.release());
+            }
+        }
+
+        /**
+         * Wait for a release or invalidation, which can't be cancelled: an interruption is only acknowledged once
+         * it is done.
+         */
+        static void await(Mono<Void> release) {
+            Parker<Void> parker = new Parker<>();
+            release.subscribe(parker);
+            parker.awaitUninterruptibly();
+        }
+    }
+
+    /**
+     * A subscriber that parks the thread that created it until it is terminated.
+     */
+    static final class Parker<T> extends AtomicReference<Object> implements CoreSubscriber<T> {
+
+        static final Object COMPLETE  = new Object();
+        static final Object CANCELLED = new Object();
+
+        final Thread waiter;
+
+        //the Borrower for direct acquires, set right after it is requested, or else the Subscription
+        volatile Subscription upstream;
+
+        Parker() {
+            this.waiter = Thread.currentThread();
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.upstream = s;
+            s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T t) {
+            if (compareAndSet(null, t)) {
+                LockSupport.unpark(waiter);
+            }
+            else if (t instanceof PooledRef) {
+                //the waiter gave up concurrently with the delivery
+                ((PooledRef<?>) t).release().subscribe(aVoid -> {}, e -> Operators.onErrorDropped(e, Context.empty()));
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (compareAndSet(null, new Failure(t))) {
+                LockSupport.unpark(waiter);
+            }
+            else {
+                Operators.onErrorDropped(t, Context.empty());
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (compareAndSet(null, COMPLETE)) {
+                LockSupport.unpark(waiter);
+            }
+        }
+
+        /**
+         * Park until a value is received, cancelling the upstream if interrupted first. If the interrupt
+         * loses the race with the value, the value is returned and the interrupted status of the thread
+         * is restored.
+         */
+        @SuppressWarnings("unchecked")
+        T awaitInterruptibly() throws InterruptedException, TimeoutException {
+            Object result;
+            while ((result = get()) == null) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    if (compareAndSet(null, CANCELLED)) {
+                        upstream.cancel();
+                        throw new InterruptedException();
+                    }
+                    //a value arrived at the same time
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (result instanceof Failure) {
+                Throwable error = ((Failure) result).error;
+                if (error instanceof TimeoutException) {
+                    throw (TimeoutException) error;
+                }
+                throw Exceptions.propagate(error);
+            }
+            if (result == COMPLETE) {
+                throw new IllegalStateException("Completed without a value");
+            }
+            return (T) result;
+        }
+
+        /**
+         * Park until terminated, restoring the interrupted status of the thread if it was interrupted meanwhile.
+         */
+        void awaitUninterruptibly() {
+            boolean interrupted = false;
+            Object result;
+            while ((result = get()) == null) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (result instanceof Failure) {
+                throw Exceptions.propagate(((Failure) result).error);
+            }
+        }
+    }
+
+    static final class Failure {
+
+        final Throwable error;
+
+        Failure(Throwable error) {
+            this.error = error;
+        }
+    }
+}
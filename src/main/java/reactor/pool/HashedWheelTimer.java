@@ -0,0 +1,310 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.annotation.Nullable;
+import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
+
+/**
+ * A hashed timing wheel that tracks many short-lived timeouts, like the ones of pending
+ * {@link Pool#acquire(Duration)}, with constant-time insertion and cancellation.
+ * <p>
+ * Instead of scheduling one task per timeout on a {@link Scheduler}, the wheel is advanced by a single
+ * periodic task that runs every {@code tickDuration} and expires the timeouts of the current bucket.
+ * Timeouts are thus fired with a precision of one tick, which can be lower than a millisecond.
+ * Expired tasks are run on the thread of the periodic task, so they should be short.
+ * <p>
+ * A wheel can be dedicated to a single {@link Pool} (see {@link PoolBuilder#acquireTimeoutWheel(Duration)})
+ * or shared by several pools (see {@link PoolBuilder#acquireTimeoutWheel(HashedWheelTimer)}), in which case
+ * it must outlive them and be {@link #dispose() disposed} by its creator.
+ */
+public final class HashedWheelTimer implements Disposable {
+
+    /**
+     * Create a {@link HashedWheelTimer} backed by its own daemon thread, which is started
+     * upon the first {@link #schedule(Runnable, long, TimeUnit)}.
+     *
+     * @param tickDuration the duration of a tick, ie. the precision of the timeouts (resolution: ns)
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of 2
+     * @return a new {@link HashedWheelTimer}
+     */
+    public static HashedWheelTimer create(Duration tickDuration, int ticksPerWheel) {
+        return new HashedWheelTimer(tickDuration, ticksPerWheel,
+                Schedulers.newSingle("pool-timeout-wheel", true), true);
+    }
+
+    /**
+     * Create a {@link HashedWheelTimer} that is advanced by a periodic task on the provided {@link Scheduler}.
+     * The {@link Scheduler} is not disposed when the wheel is.
+     *
+     * @param tickDuration the duration of a tick, ie. the precision of the timeouts (resolution: ns)
+     * @param ticksPerWheel the number of buckets in the wheel, rounded up to a power of 2
+     * @param tickScheduler the {@link Scheduler} on which to advance the wheel
+     * @return a new {@link HashedWheelTimer}
+     */
+    public static HashedWheelTimer create(Duration tickDuration, int ticksPerWheel, Scheduler tickScheduler) {
+        return new HashedWheelTimer(tickDuration, ticksPerWheel,
+                Objects.requireNonNull(tickScheduler, "tickScheduler"), false);
+    }
+
+    static final int STATE_INIT     = 0;
+    static final int STATE_STARTED  = 1;
+    static final int STATE_DISPOSED = 2;
+
+    final long                tickNanos;
+    final int                 mask;
+    final Bucket[]            wheel;
+    final Scheduler           tickScheduler;
+    final boolean             ownsScheduler;
+    //MPSC: producers are the threads scheduling timeouts, the consumer is the tick task
+    final Queue<WheelTimeout> newTimeouts;
+
+    //only accessed by the tick task, which is never run concurrently with itself
+    long    startTime;
+    long    tick;
+
+    //written once the wheel is started, read by a concurrent dispose()
+    @Nullable
+    volatile Disposable tickTask;
+
+    volatile     int                                         state;
+    static final AtomicIntegerFieldUpdater<HashedWheelTimer> STATE = AtomicIntegerFieldUpdater.newUpdater(HashedWheelTimer.class, "state");
+
+    HashedWheelTimer(Duration tickDuration, int ticksPerWheel, Scheduler tickScheduler, boolean ownsScheduler) {
+        long tickNanos = Objects.requireNonNull(tickDuration, "tickDuration").toNanos();
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("tickDuration must be strictly positive");
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("ticksPerWheel must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.tickNanos = tickNanos;
+        this.mask = size - 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.tickScheduler = tickScheduler;
+        this.ownsScheduler = ownsScheduler;
+        this.newTimeouts = Queues.<WheelTimeout>unboundedMultiproducer().get();
+    }
+
+    /**
+     * Schedule a task to be run once the given delay has elapsed, unless the returned
+     * {@link Disposable} is disposed before that.
+     *
+     * @param task the task to run on timeout
+     * @param delay the delay after which to run the task
+     * @param unit the {@link TimeUnit} of the delay
+     * @return a {@link Disposable} that cancels the timeout in constant time
+     * @throws java.util.concurrent.RejectedExecutionException if the wheel has been disposed
+     */
+    public Disposable schedule(Runnable task, long delay, TimeUnit unit) {
+        if (state != STATE_STARTED) {
+            start();
+        }
+        WheelTimeout timeout = new WheelTimeout(task, System.nanoTime() + unit.toNanos(delay));
+        newTimeouts.offer(timeout);
+        return timeout;
+    }
+
+    void start() {
+        for (;;) {
+            int s = state;
+            if (s == STATE_DISPOSED) {
+                throw Exceptions.failWithRejected();
+            }
+            if (s == STATE_STARTED) {
+                return;
+            }
+            if (STATE.compareAndSet(this, STATE_INIT, STATE_STARTED)) {
+                this.startTime = System.nanoTime();
+                Disposable task = tickScheduler.schedulePeriodically(this::advance, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+                this.tickTask = task;
+                if (state == STATE_DISPOSED) {
+                    //a concurrent dispose() could have missed the task, which would otherwise tick forever on a shared scheduler
+                    task.dispose();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Process all the ticks whose end has been reached, catching up if the tick task
+     * has been late. Only ever invoked by the periodic tick task.
+     */
+    void advance() {
+        long elapsed = System.nanoTime() - startTime;
+        for (;;) {
+            long tickEnd = (tick + 1) * tickNanos;
+            if (tickEnd > elapsed) {
+                return;
+            }
+            transferNewTimeouts();
+            wheel[(int) (tick & mask)].expire(startTime + tickEnd);
+            tick++;
+        }
+    }
+
+    void transferNewTimeouts() {
+        WheelTimeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.state != WheelTimeout.PENDING) {
+                continue;
+            }
+            long calculated = Math.max(0L, timeout.deadline - startTime) / tickNanos;
+            long ticks = Math.max(calculated, tick); //don't schedule in the past
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (STATE.getAndSet(this, STATE_DISPOSED) != STATE_DISPOSED) {
+            Disposable t = tickTask;
+            if (t != null) {
+                t.dispose();
+            }
+            if (ownsScheduler) {
+                tickScheduler.dispose();
+            }
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return state == STATE_DISPOSED;
+    }
+
+    /**
+     * A bucket of the wheel, only ever accessed by the tick task.
+     */
+    static final class Bucket {
+
+        @Nullable
+        WheelTimeout head;
+
+        void add(WheelTimeout timeout) {
+            timeout.next = head;
+            head = timeout;
+        }
+
+        void expire(long deadline) {
+            WheelTimeout previous = null;
+            WheelTimeout timeout = head;
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+                boolean remove;
+                if (timeout.state != WheelTimeout.PENDING) {
+                    remove = true; //cancelled, lazily unlinked
+                }
+                else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    remove = true;
+                    timeout.expire();
+                }
+                else {
+                    remove = false;
+                    timeout.remainingRounds--;
+                }
+
+                if (remove) {
+                    timeout.next = null;
+                    if (previous == null) {
+                        head = next;
+                    }
+                    else {
+                        previous.next = next;
+                    }
+                }
+                else {
+                    previous = timeout;
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    static final class WheelTimeout implements Disposable {
+
+        static final int PENDING   = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED   = 2;
+
+        final long deadline;
+
+        //nulled out on cancel so that a cancelled timeout doesn't retain its task until unlinked
+        @Nullable
+        Runnable task;
+
+        //only accessed by the tick task
+        long         remainingRounds;
+        @Nullable
+        WheelTimeout next;
+
+        volatile     int                                     state;
+        static final AtomicIntegerFieldUpdater<WheelTimeout> TIMEOUT_STATE = AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+        WheelTimeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        void expire() {
+            if (TIMEOUT_STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                Runnable t = task;
+                task = null;
+                if (t != null) {
+                    try {
+                        t.run();
+                    }
+                    catch (Throwable e) {
+                        Operators.onErrorDropped(e, Context.empty());
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void dispose() {
+            if (TIMEOUT_STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                task = null;
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return state != PENDING;
+        }
+    }
+}
@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * A {@link PoolMetricsRecorder} that keeps latency distributions in HdrHistogram {@link Recorder recorders},
+ * so that percentiles like p99 or p99.9 of a {@link Pool} can be observed.
+ * <p>
+ * Recording is wait-free and can be done from any thread. Reading is done by taking a {@link #snapshot()},
+ * which returns the values recorded since the previous snapshot (or since creation) and starts a new interval.
+ * Latencies are recorded in nanoseconds, with a resolution of one microsecond. Each histogram covers a fixed range
+ * of values from 0 to a configurable highest trackable latency, with a configurable number of significant digits,
+ * so the memory footprint is bounded regardless of how many values are recorded. Values above the highest
+ * trackable latency are recorded as that highest latency.
+ * <p>
+ * This requires {@code org.hdrhistogram:HdrHistogram} on the classpath, which is an optional dependency of
+ * reactor-pool.
+ */
+public final class HdrHistogramPoolMetricsRecorder implements PoolMetricsRecorder {
+
+    /**
+     * Create a {@link HdrHistogramPoolMetricsRecorder} that tracks latencies up to one hour with 3 significant digits.
+     *
+     * @return a new {@link HdrHistogramPoolMetricsRecorder}
+     */
+    public static HdrHistogramPoolMetricsRecorder create() {
+        return create(Duration.ofHours(1), 3);
+    }
+
+    /**
+     * Create a {@link HdrHistogramPoolMetricsRecorder} with a custom range and precision, which drive the memory
+     * footprint of each of its histograms.
+     *
+     * @param highestTrackableLatency the highest latency that can be tracked, higher latencies being recorded as this value
+     * @param significantDigits the number of significant decimal digits to keep for each value, between 0 and 5
+     * @return a new {@link HdrHistogramPoolMetricsRecorder}
+     */
+    public static HdrHistogramPoolMetricsRecorder create(Duration highestTrackableLatency, int significantDigits) {
+        Objects.requireNonNull(highestTrackableLatency, "highestTrackableLatency");
+        if (highestTrackableLatency.toNanos() < 2 * LOWEST_DISCERNIBLE_VALUE) {
+            throw new IllegalArgumentException("highestTrackableLatency must be at least 2 microseconds");
+        }
+        if (significantDigits < 0 || significantDigits > 5) {
+            throw new IllegalArgumentException("significantDigits must be between 0 and 5");
+        }
+        return new HdrHistogramPoolMetricsRecorder(highestTrackableLatency.toNanos(), significantDigits);
+    }
+
+    static final long LOWEST_DISCERNIBLE_VALUE = TimeUnit.MICROSECONDS.toNanos(1);
+
+    final long     highestTrackableValue;
+    final Recorder allocationSuccess;
+    final Recorder allocationFailure;
+    final Recorder reset;
+    final Recorder destroy;
+    final Recorder lifetime;
+    final Recorder idleTime;
+    final Recorder acquireFromIdle;
+    final Recorder acquireWithAllocation;
+    final Recorder acquireAfterPending;
+    final Recorder pendingTime;
+    final Recorder validationSuccess;
+    final Recorder validationFailure;
+
+    final LongAdder recycled;
+    final LongAdder slowPath;
+    final LongAdder fastPath;
+    final LongAdder pendingTimeouts;
+    final LongAdder pendingRejections;
+    final LongAdder leaseReclaims;
+
+    HdrHistogramPoolMetricsRecorder(long highestTrackableValue, int significantDigits) {
+        this.highestTrackableValue = highestTrackableValue;
+        this.allocationSuccess = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.allocationFailure = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.reset = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.destroy = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.lifetime = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.idleTime = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.acquireFromIdle = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.acquireWithAllocation = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.acquireAfterPending = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.pendingTime = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.validationSuccess = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.validationFailure = new Recorder(LOWEST_DISCERNIBLE_VALUE, highestTrackableValue, significantDigits);
+        this.recycled = new LongAdder();
+        this.slowPath = new LongAdder();
+        this.fastPath = new LongAdder();
+        this.pendingTimeouts = new LongAdder();
+        this.pendingRejections = new LongAdder();
+        this.leaseReclaims = new LongAdder();
+    }
+
+    void record(Recorder recorder, long value) {
+        if (value < 0L) {
+            value = 0L;
+        }
+        else if (value > highestTrackableValue) {
+            value = highestTrackableValue;
+        }
+        recorder.recordValue(value);
+    }
+
+    /**
+     * Take a {@link Snapshot} of the values recorded since the previous snapshot, and start a new interval.
+     * Values that are recorded concurrently with this method end up in exactly one of the two intervals.
+     *
+     * @return a {@link Snapshot} of the interval that just ended
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(allocationSuccess.getIntervalHistogram(),
+                allocationFailure.getIntervalHistogram(),
+                reset.getIntervalHistogram(),
+                destroy.getIntervalHistogram(),
+                lifetime.getIntervalHistogram(),
+                idleTime.getIntervalHistogram(),
+                acquireFromIdle.getIntervalHistogram(),
+                acquireWithAllocation.getIntervalHistogram(),
+                acquireAfterPending.getIntervalHistogram(),
+                pendingTime.getIntervalHistogram(),
+                validationSuccess.getIntervalHistogram(),
+                validationFailure.getIntervalHistogram(),
+                recycled.sumThenReset(),
+                slowPath.sumThenReset(),
+                fastPath.sumThenReset(),
+                pendingTimeouts.sumThenReset(),
+                pendingRejections.sumThenReset(),
+                leaseReclaims.sumThenReset());
+    }
+
+    @Override
+    public long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    @Override
+    public long measureTime(long startTimeMillis) {
+        return now() - startTimeMillis;
+    }
+
+    @Override
+    public long nowNanos() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long measureNanos(long startTimeNanos) {
+        return System.nanoTime() - startTimeNanos;
+    }
+
+    @Override
+    public void recordAllocationSuccessAndLatency(long latencyMs) {
+        record(allocationSuccess, TimeUnit.MILLISECONDS.toNanos(latencyMs));
+    }
+
+    @Override
+    public void recordAllocationSuccessAndLatencyNanos(long latencyNanos) {
+        record(allocationSuccess, latencyNanos);
+    }
+
+    @Override
+    public void recordAllocationFailureAndLatency(long latencyMs) {
+        record(allocationFailure, TimeUnit.MILLISECONDS.toNanos(latencyMs));
+    }
+
+    @Override
+    public void recordAllocationFailureAndLatencyNanos(long latencyNanos) {
+        record(allocationFailure, latencyNanos);
+    }
+
+    @Override
+    public void recordResetLatency(long latencyMs) {
+        record(reset, TimeUnit.MILLISECONDS.toNanos(latencyMs));
+    }
+
+    @Override
+    public void recordResetLatencyNanos(long latencyNanos) {
+        record(reset, latencyNanos);
+    }
+
+    @Override
+    public void recordDestroyLatency(long latencyMs) {
+        record(destroy, TimeUnit.MILLISECONDS.toNanos(latencyMs));
+    }
+
+    @Override
+    public void recordDestroyLatencyNanos(long latencyNanos) {
+        record(destroy, latencyNanos);
+    }
+
+    @Override
+    public void recordRecycled() {
+        recycled.increment();
+    }
+
+    @Override
+    public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+        record(lifetime, TimeUnit.MILLISECONDS.toNanos(millisecondsSinceAllocation));
+    }
+
+    @Override
+    public void recordLifetimeDurationNanos(long nanosecondsSinceAllocation) {
+        record(lifetime, nanosecondsSinceAllocation);
+    }
+
+    @Override
+    public void recordIdleTime(long millisecondsIdle) {
+        record(idleTime, TimeUnit.MILLISECONDS.toNanos(millisecondsIdle));
+    }
+
+    @Override
+    public void recordIdleTimeNanos(long nanosecondsIdle) {
+        record(idleTime, nanosecondsIdle);
+    }
+
+    @Override
+    public void recordSlowPath() {
+        slowPath.increment();
+    }
+
+    @Override
+    public void recordFastPath() {
+        fastPath.increment();
+    }
+
+    @Override
+    public void recordAcquireLatencyFromIdleNanos(long latencyNanos) {
+        record(acquireFromIdle, latencyNanos);
+    }
+
+    @Override
+    public void recordAcquireLatencyWithAllocationNanos(long latencyNanos) {
+        record(acquireWithAllocation, latencyNanos);
+    }
+
+    @Override
+    public void recordAcquireLatencyAfterPendingNanos(long latencyNanos) {
+        record(acquireAfterPending, latencyNanos);
+    }
+
+    @Override
+    public void recordPendingTimeNanos(long pendingNanos) {
+        record(pendingTime, pendingNanos);
+    }
+
+    @Override
+    public void recordPendingTimeout() {
+        pendingTimeouts.increment();
+    }
+
+    @Override
+    public void recordPendingRejected() {
+        pendingRejections.increment();
+    }
+
+    @Override
+    public void recordLeaseReclaimed() {
+        leaseReclaims.increment();
+    }
+
+    @Override
+    public void recordValidationSuccessAndLatencyNanos(long latencyNanos) {
+        record(validationSuccess, latencyNanos);
+    }
+
+    @Override
+    public void recordValidationFailureAndLatencyNanos(long latencyNanos) {
+        record(validationFailure, latencyNanos);
+    }
+
+    /**
+     * The latency distributions and counters recorded by a {@link HdrHistogramPoolMetricsRecorder} during one interval,
+     * ie. between two calls to {@link #snapshot()}. Latencies are in nanoseconds.
+     * The histograms are not shared with the recorder and can be freely read, added to other snapshots, etc...
+     */
+    public static final class Snapshot {
+
+        final Histogram allocationSuccess;
+        final Histogram allocationFailure;
+        final Histogram reset;
+        final Histogram destroy;
+        final Histogram lifetime;
+        final Histogram idleTime;
+        final Histogram acquireFromIdle;
+        final Histogram acquireWithAllocation;
+        final Histogram acquireAfterPending;
+        final Histogram pendingTime;
+        final Histogram validationSuccess;
+        final Histogram validationFailure;
+        final long      recycledCount;
+        final long      slowPathCount;
+        final long      fastPathCount;
+        final long      pendingTimeoutCount;
+        final long      pendingRejectedCount;
+        final long      leaseReclaimedCount;
+
+        Snapshot(Histogram allocationSuccess, Histogram allocationFailure, Histogram reset, Histogram destroy,
+                Histogram lifetime, Histogram idleTime, Histogram acquireFromIdle, Histogram acquireWithAllocation,
+                Histogram acquireAfterPending, Histogram pendingTime, Histogram validationSuccess,
+                Histogram validationFailure, long recycledCount, long slowPathCount,
+                long fastPathCount, long pendingTimeoutCount, long pendingRejectedCount, long leaseReclaimedCount) {
+            this.allocationSuccess = allocationSuccess;
+            this.allocationFailure = allocationFailure;
+            this.reset = reset;
+            this.destroy = destroy;
+            this.lifetime = lifetime;
+            this.idleTime = idleTime;
+            this.acquireFromIdle = acquireFromIdle;
+            this.acquireWithAllocation = acquireWithAllocation;
+            this.acquireAfterPending = acquireAfterPending;
+            this.pendingTime = pendingTime;
+            this.validationSuccess = validationSuccess;
+            this.validationFailure = validationFailure;
+            this.recycledCount = recycledCount;
+            this.slowPathCount = slowPathCount;
+            this.fastPathCount = fastPathCount;
+            this.pendingTimeoutCount = pendingTimeoutCount;
+            this.pendingRejectedCount = pendingRejectedCount;
+            this.leaseReclaimedCount = leaseReclaimedCount;
+        }
+
+        /**
+         * @return the latencies of successful allocations
+         */
+        public Histogram allocationSuccessLatencies() {
+            return allocationSuccess;
+        }
+
+        /**
+         * @return the latencies of failed allocations
+         */
+        public Histogram allocationFailureLatencies() {
+            return allocationFailure;
+        }
+
+        /**
+         * @return the latencies of resetting resources upon release
+         */
+        public Histogram resetLatencies() {
+            return reset;
+        }
+
+        /**
+         * @return the latencies of destroying resources
+         */
+        public Histogram destroyLatencies() {
+            return destroy;
+        }
+
+        /**
+         * @return the lifetimes of destroyed resources, from allocation to destruction
+         */
+        public Histogram lifetimes() {
+            return lifetime;
+        }
+
+        /**
+         * @return the time resources had been idle when acquired
+         */
+        public Histogram idleTimes() {
+            return idleTime;
+        }
+
+        /**
+         * @return the end-to-end latencies of acquires that were served with an idle resource
+         */
+        public Histogram acquireFromIdleLatencies() {
+            return acquireFromIdle;
+        }
+
+        /**
+         * @return the end-to-end latencies of acquires that were served by allocating a resource, without waiting
+         */
+        public Histogram acquireWithAllocationLatencies() {
+            return acquireWithAllocation;
+        }
+
+        /**
+         * @return the end-to-end latencies of acquires that had to wait for a resource
+         */
+        public Histogram acquireAfterPendingLatencies() {
+            return acquireAfterPending;
+        }
+
+        /**
+         * @return the time acquires that had to wait spent pending
+         */
+        public Histogram pendingTimes() {
+            return pendingTime;
+        }
+
+        /**
+         * @return the latencies of validations that idle resources passed before being handed out
+         */
+        public Histogram validationSuccessLatencies() {
+            return validationSuccess;
+        }
+
+        /**
+         * @return the latencies of validations that idle resources failed (or timed out on), the failure rate being
+         * their count over the count of all validations
+         */
+        public Histogram validationFailureLatencies() {
+            return validationFailure;
+        }
+
+        /**
+         * @return the number of resources that were recycled
+         */
+        public long recycledCount() {
+            return recycledCount;
+        }
+
+        /**
+         * @return the number of times the slow path of recycling was used
+         */
+        public long slowPathCount() {
+            return slowPathCount;
+        }
+
+        /**
+         * @return the number of times the fast path of recycling was used
+         */
+        public long fastPathCount() {
+            return fastPathCount;
+        }
+
+        /**
+         * @return the number of pending acquires that timed out
+         */
+        public long pendingTimeoutCount() {
+            return pendingTimeoutCount;
+        }
+
+        /**
+         * @return the number of acquires rejected because the maximum number of pending acquires was reached
+         */
+        public long pendingRejectedCount() {
+            return pendingRejectedCount;
+        }
+
+        /**
+         * @return the number of resources invalidated by the pool because they were held for longer than the maximum
+         * lease time
+         */
+        public long leaseReclaimedCount() {
+            return leaseReclaimedCount;
+        }
+    }
+}
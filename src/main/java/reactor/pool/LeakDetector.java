@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import reactor.pool.AbstractPool.AbstractPooledRef;
+import reactor.util.Logger;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Tracks a sample of the acquired {@link PooledRef} of a {@link Pool} until they are released or invalidated, in order
+ * to report the ones that are held for longer than a threshold and the ones that become unreachable without having
+ * been released, which would otherwise lose their permit forever. The stack of the acquire is captured for each
+ * tracked {@link PooledRef}, so that reports point at the code that acquired it.
+ * <p>
+ * Tracked references are only weakly held, and checked by a periodic {@link #sweep()}. The permit of a reference that
+ * became unreachable can optionally be reclaimed, in which case its resource is destroyed.
+ */
+final class LeakDetector {
+
+    static final Logger LOGGER = Loggers.getLogger(LeakDetector.class);
+
+    /**
+     * The maximum period of the {@link #sweep()}, so that unreachable references are reported timely even with a
+     * long threshold.
+     */
+    static final long MAX_SWEEP_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    final long    thresholdNanos;
+    final double  samplingRate;
+    final boolean reclaimUnreachable;
+
+    final Set<LeaseRecord>                           tracked;
+    final ReferenceQueue<AbstractPooledRef<?>> unreachable;
+
+    LeakDetector(Duration threshold, double samplingRate, boolean reclaimUnreachable) {
+        this.thresholdNanos = threshold.toNanos();
+        this.samplingRate = samplingRate;
+        this.reclaimUnreachable = reclaimUnreachable;
+        this.tracked = ConcurrentHashMap.newKeySet();
+        this.unreachable = new ReferenceQueue<>();
+    }
+
+    /**
+     * @return the period at which {@link #sweep()} should run
+     */
+    long sweepPeriodNanos() {
+        return Math.min(thresholdNanos, MAX_SWEEP_PERIOD_NANOS);
+    }
+
+    /**
+     * Start tracking a {@link PooledRef} that was just acquired, if it is sampled.
+     *
+     * @param pool the pool the reference belongs to, which reclaims its permit if it becomes unreachable
+     * @param ref the acquired reference
+     */
+    <T> void track(AbstractPool<T> pool, AbstractPooledRef<T> ref) {
+        if (samplingRate < 1d && ThreadLocalRandom.current().nextDouble() >= samplingRate) {
+            return;
+        }
+        LeaseRecord record = new LeaseRecord(this, pool, ref);
+        tracked.add(record);
+        ref.leaseRecord = record;
+    }
+
+    /**
+     * Report the tracked references that became unreachable, reclaiming their permit if configured to, then the ones
+     * that are held for longer than the threshold, each only once.
+     */
+    void sweep() {
+        Reference<?> collected;
+        while ((collected = unreachable.poll()) != null) {
+            LeaseRecord record = (LeaseRecord) collected;
+            if (tracked.remove(record)) {
+                LOGGER.warn("A PooledRef was never released nor invalidated before being garbage collected" +
+                        (reclaimUnreachable ? ", reclaiming its permit" : ""), record.acquireSite);
+                if (reclaimUnreachable) {
+                    record.reclaim();
+                }
+            }
+        }
+        for (LeaseRecord record : tracked) {
+            if (!record.reported && record.heldNanos() > thresholdNanos) {
+                record.reported = true;
+                LOGGER.warn("A PooledRef has been held for " + TimeUnit.NANOSECONDS.toMillis(record.heldNanos()) +
+                        "ms, more than the leak detection threshold of " + TimeUnit.NANOSECONDS.toMillis(thresholdNanos) +
+                        "ms", record.acquireSite);
+            }
+        }
+    }
+
+    /**
+     * The tracking of one acquire of a {@link PooledRef}, which weakly references it.
+     */
+    static final class LeaseRecord extends WeakReference<AbstractPooledRef<?>> {
+
+        final LeakDetector        detector;
+        final AbstractPool<?>     pool;
+        //a System.nanoTime(), as the PoolMetricsRecorder measures nothing when metrics are not collected
+        final long                acquiredNanos;
+        final LeakException       acquireSite;
+        //only retained if the permit is to be reclaimed, as the resource must then be destroyed
+        @Nullable
+        final Object              poolable;
+
+        volatile boolean reported;
+
+        <T> LeaseRecord(LeakDetector detector, AbstractPool<T> pool, AbstractPooledRef<T> ref) {
+            super(ref, detector.unreachable);
+            this.detector = detector;
+            this.pool = pool;
+            this.acquiredNanos = System.nanoTime();
+            this.acquireSite = new LeakException("PooledRef acquired here");
+            this.poolable = detector.reclaimUnreachable ? ref.poolable() : null;
+        }
+
+        long heldNanos() {
+            return System.nanoTime() - acquiredNanos;
+        }
+
+        /**
+         * Stop tracking, as the {@link PooledRef} is released or invalidated.
+         */
+        void release() {
+            detector.tracked.remove(this);
+            clear();
+        }
+
+        @SuppressWarnings("unchecked")
+        void reclaim() {
+            ((AbstractPool<Object>) pool).reclaimLeaked(poolable);
+        }
+    }
+
+    /**
+     * Captures the stack of an acquire, to be logged along with leak reports.
+     */
+    static final class LeakException extends RuntimeException {
+
+        LeakException(String message) {
+            super(message);
+        }
+    }
+}
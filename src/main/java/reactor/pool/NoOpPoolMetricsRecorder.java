@@ -38,26 +38,56 @@ final class NoOpPoolMetricsRecorder implements PoolMetricsRecorder {
         return 0;
     }
 
+    @Override
+    public long nowNanos() {
+        return 0L;
+    }
+
+    @Override
+    public long measureNanos(long startTimeNanos) {
+        return 0L;
+    }
+
     @Override
     public void recordAllocationSuccessAndLatency(long latencyMs) {
 
     }
 
+    @Override
+    public void recordAllocationSuccessAndLatencyNanos(long latencyNanos) {
+
+    }
+
     @Override
     public void recordAllocationFailureAndLatency(long latencyMs) {
 
     }
 
+    @Override
+    public void recordAllocationFailureAndLatencyNanos(long latencyNanos) {
+
+    }
+
     @Override
     public void recordResetLatency(long latencyMs) {
 
     }
 
+    @Override
+    public void recordResetLatencyNanos(long latencyNanos) {
+
+    }
+
     @Override
     public void recordDestroyLatency(long latencyMs) {
 
     }
 
+    @Override
+    public void recordDestroyLatencyNanos(long latencyNanos) {
+
+    }
+
     @Override
     public void recordRecycled() {
 
@@ -68,11 +98,21 @@ final class NoOpPoolMetricsRecorder implements PoolMetricsRecorder {
 
     }
 
+    @Override
+    public void recordIdleTimeNanos(long nanosecondsIdle) {
+
+    }
+
     @Override
     public void recordLifetimeDuration(long millisecondsSinceAllocation) {
 
     }
 
+    @Override
+    public void recordLifetimeDurationNanos(long nanosecondsSinceAllocation) {
+
+    }
+
     @Override
     public void recordSlowPath() {
 
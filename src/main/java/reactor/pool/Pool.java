@@ -19,8 +19,14 @@ import org.reactivestreams.Publisher;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.annotation.Nullable;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Function;
 
 /**
@@ -84,6 +90,124 @@ public interface Pool<POOLABLE> extends Disposable {
      */
     Mono<PooledRef<POOLABLE>> acquire(Duration timeout);
 
+    /**
+     * Acquire a {@code POOLABLE} from the pool right away and become responsible for its release, for callers that
+     * are not reactive. The returned {@link CompletableFuture} completes with the {@link PooledRef} as soon as the
+     * {@code POOLABLE} becomes available, or exceptionally if it cannot be acquired. Cancelling the future before it
+     * completes will either avoid object acquisition entirely or will translate to a
+     * {@link PooledRef#release() release} of the {@code POOLABLE}, like cancelling the subscription to
+     * {@link #acquire()} would.
+     * <p>
+     * Dependent stages that are not {@code async} run on the thread that delivers the resource, so they should not
+     * block. By default, this subscribes to {@link #acquire()}.
+     *
+     * @return a {@link CompletableFuture} of the acquired {@link PooledRef}
+     * @see #acquire()
+     * @see PooledRef#releaseFuture()
+     */
+    default CompletableFuture<PooledRef<POOLABLE>> acquireFuture() {
+        return acquire().toFuture();
+    }
+
+    /**
+     * Acquire a {@code POOLABLE} from the pool right away and become responsible for its release, for callers that
+     * are not reactive. The provided {@link Duration} acts as a timeout that only applies if the acquisition is
+     * added to the pending queue, like with {@link #acquire(Duration)}, in which case the returned
+     * {@link CompletableFuture} completes exceptionally with a {@link java.util.concurrent.TimeoutException}.
+     * <p>
+     * See {@link #acquireFuture()}. By default, this subscribes to {@link #acquire(Duration)}.
+     *
+     * @param timeout the maximum time to wait for a resource once pending
+     * @return a {@link CompletableFuture} of the acquired {@link PooledRef}
+     * @see #acquire(Duration)
+     * @see PooledRef#releaseFuture()
+     */
+    default CompletableFuture<PooledRef<POOLABLE>> acquireFuture(Duration timeout) {
+        return acquire(timeout).toFuture();
+    }
+
+    /**
+     * Try to acquire a {@code POOLABLE} from the pool right away, without going through a {@link Mono}, and become
+     * responsible for its release. This succeeds if an idle resource is available, or if a new one can be allocated
+     * synchronously (typically with an allocator created via {@link Mono#fromCallable(java.util.concurrent.Callable)}
+     * or {@link Mono#just(Object)}, which is then invoked on the calling thread).
+     * <p>
+     * Otherwise, including when other borrowers are already waiting for a resource, this returns {@code null} rather
+     * than waiting, in which case the caller can fall back to {@link #acquire()}. This is meant as a fast path for
+     * callers that nearly always find an idle resource, as it bypasses the reactive acquire machinery altogether.
+     * By default, this always returns {@code null}.
+     *
+     * @return the acquired {@link PooledRef}, or {@code null} if no resource could be acquired immediately
+     * @see #acquire()
+     */
+    @Nullable
+    default PooledRef<POOLABLE> tryAcquire() {
+        return null;
+    }
+
+    /**
+     * Manually acquire {@code n} {@code POOLABLE} from the pool upon subscription and become responsible for their release.
+     * The resulting {@link Flux} emits the {@code n} {@link PooledRef} once they are all available, then completes.
+     * <p>
+     * Implementations are encouraged to acquire the {@code n} resources as a single unit, taking idle resources and
+     * permits to allocate new ones in one step and waiting as a single pending acquire, so that concurrent acquisitions
+     * of several resources can't interleave and deadlock each other under saturation. By default, this acquires the
+     * resources one after the other via {@link #acquire()}, releasing the ones already acquired if the batch fails or is
+     * cancelled before all of them have been acquired.
+     * <p>
+     * A {@code n} lower than 1 results in an {@link IllegalArgumentException}, as does (for pools that have a maximum
+     * size) acquiring more resources than that maximum size.
+     *
+     * @param n the number of resources to acquire at once
+     * @return a {@link Flux}, each subscription to which represents an individual act of acquiring {@code n} pooled
+     * objects and manually managing their lifecycle from there on
+     * @see #withPoolables(int, Function)
+     */
+    default Flux<PooledRef<POOLABLE>> acquire(int n) {
+        if (n <= 0) {
+            return Flux.error(new IllegalArgumentException("n must be strictly positive"));
+        }
+        return Flux.defer(() -> {
+            Queue<PooledRef<POOLABLE>> refs = new ConcurrentLinkedQueue<>();
+            return Flux.range(0, n)
+                       .concatMap(i -> acquire())
+                       .doOnNext(refs::add)
+                       .onErrorResume(e -> Flux.fromIterable(refs)
+                                               .flatMap(PooledRef::release)
+                                               .thenMany(Flux.error(e)))
+                       .doOnCancel(() -> Flux.fromIterable(refs)
+                                             .flatMap(PooledRef::release)
+                                             .subscribe())
+                       .thenMany(Flux.fromIterable(refs));
+        });
+    }
+
+    /**
+     * Return a blocking view of this {@link Pool}, for callers that run on threads that can afford to block,
+     * typically virtual threads. See {@link BlockingPool}.
+     *
+     * @return a {@link BlockingPool} backed by this {@link Pool}
+     */
+    default BlockingPool<POOLABLE> blocking() {
+        return new BlockingPool<>(this);
+    }
+
+    /**
+     * Warm up the {@link Pool} by allocating resources until it holds the configured
+     * {@link PoolBuilder#initialSize(int) initial size}, if it doesn't already, upon subscription.
+     * Resources are allocated concurrently, up to the {@link PoolBuilder#warmupParallelism(int) warmup parallelism},
+     * and are immediately made available to borrowers.
+     * <p>
+     * This is typically used in combination with {@link PoolBuilder#lazyInitialization(boolean)}, so that the pool
+     * doesn't block its creator while allocating its initial resources.
+     *
+     * @return a {@link Mono} that triggers the warmup when subscribed and emits the number of resources
+     * that were allocated by this particular warmup.
+     */
+    default Mono<Integer> warmup() {
+        return Mono.just(0);
+    }
+
     /**
      * Acquire a {@code POOLABLE} object from the pool upon subscription and declaratively use it, automatically releasing
      * the object back to the pool once the derived usage pipeline terminates or is cancelled. This acquire-use-and-release
@@ -112,4 +236,29 @@ public interface Pool<POOLABLE> extends Disposable {
                 PooledRef::release);
     }
 
+    /**
+     * Acquire {@code n} {@code POOLABLE} objects from the pool upon subscription (see {@link #acquire(int)}) and
+     * declaratively use them, automatically releasing all of them back to the pool once the derived usage pipeline
+     * terminates or is cancelled. This acquire-use-and-release scope is represented by a user provided {@link Function}.
+     *
+     * @param n the number of resources to acquire at once
+     * @param scopeFunction the {@link Function} to apply to the {@link List} of {@code n} POOLABLE to instantiate and
+     *                      trigger a processing pipeline around them.
+     * @return a {@link Flux}, each subscription to which represents an individual act of acquiring {@code n} pooled
+     * objects, processing them as declared in {@code scopeFunction} and automatically releasing them together.
+     * @see #acquire(int)
+     */
+    default <V> Flux<V> withPoolables(int n, Function<List<POOLABLE>, Publisher<V>> scopeFunction) {
+        return Flux.usingWhen(acquire(n).collectList(),
+                refs -> {
+                    List<POOLABLE> poolables = new ArrayList<>(refs.size());
+                    for (PooledRef<POOLABLE> ref : refs) {
+                        poolables.add(ref.poolable());
+                    }
+                    return scopeFunction.apply(poolables);
+                },
+                refs -> Flux.fromIterable(refs).flatMap(PooledRef::release),
+                refs -> Flux.fromIterable(refs).flatMap(PooledRef::release));
+    }
+
 }
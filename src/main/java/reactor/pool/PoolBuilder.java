@@ -28,6 +28,7 @@ import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
 
 /**
  * A builder for {@link Pool}.
@@ -58,20 +59,77 @@ public class PoolBuilder<T> {
 
     final Mono<T> allocator;
     boolean                                isThreadAffinity     = false;
+    Duration                               acquireTimeoutTick   = null;
+    HashedWheelTimer                       acquireTimeoutWheel  = null;
     boolean                                isLifo               = false;
+    boolean                                isIdleMru            = false;
+    boolean                                isLazyInitialization = false;
     int                                    initialSize          = 0;
+    int                                    minIdle              = 0;
+    int                                    warmupParallelism    = 1;
     int                                    maxPending           = -1;
+    int                                    maxAllocations       = Integer.MAX_VALUE;
+    int                                    shardCount           = 1;
     AllocationStrategy                     allocationStrategy   = null;
     Function<T, ? extends Publisher<Void>> releaseHandler       = noopHandler();
     Function<T, ? extends Publisher<Void>> destroyHandler       = noopHandler();
     BiPredicate<T, PooledRefMetadata>      evictionPredicate    = neverPredicate();
+    Duration                               evictionInterval     = Duration.ZERO;
+    Scheduler                              evictionScheduler    = Schedulers.parallel();
     Scheduler                              acquisitionScheduler = Schedulers.immediate();
     PoolMetricsRecorder                    metricsRecorder      = NoOpPoolMetricsRecorder.INSTANCE;
+    Function<? super Context, ?>           affinityKeyResolver  = null;
+    Duration                               leakThreshold        = null;
+    double                                 leakSamplingRate     = 1d;
+    boolean                                leakReclaim          = false;
+    Duration                               maxLeaseTime         = Duration.ZERO;
+    Function<T, ? extends Publisher<Boolean>> validator         = null;
+    Duration                               validationIdleThreshold = Duration.ZERO;
+    Duration                               validationTimeout    = Duration.ZERO;
 
     PoolBuilder(Mono<T> allocator) {
         this.allocator = allocator;
     }
 
+    /**
+     * Track the timeouts of pending {@link Pool#acquire(Duration)} in a {@link HashedWheelTimer} dedicated to
+     * the {@link Pool} and disposed along with it, rather than scheduling one task per pending borrower on
+     * {@link Schedulers#parallel()}. This makes the registration and cancellation of timeouts constant-time,
+     * which matters when many borrowers are pending, with a precision of one {@code tickDuration}.
+     * <p>
+     * By default, no timing wheel is used.
+     *
+     * @param tickDuration the precision of the timeouts (resolution: ns)
+     * @return this {@link Pool} builder
+     * @see #acquireTimeoutWheel(HashedWheelTimer)
+     */
+    public PoolBuilder<T> acquireTimeoutWheel(Duration tickDuration) {
+        Objects.requireNonNull(tickDuration, "tickDuration");
+        if (tickDuration.isZero() || tickDuration.isNegative()) {
+            throw new IllegalArgumentException("tickDuration must be strictly positive");
+        }
+        this.acquireTimeoutTick = tickDuration;
+        this.acquireTimeoutWheel = null;
+        return this;
+    }
+
+    /**
+     * Track the timeouts of pending {@link Pool#acquire(Duration)} in the provided {@link HashedWheelTimer},
+     * which can be shared between several {@link Pool pools}. The wheel is NOT disposed along with the pool,
+     * so it must be disposed by the caller once all the pools that use it are disposed.
+     * <p>
+     * By default, no timing wheel is used.
+     *
+     * @param sharedWheel the {@link HashedWheelTimer} to use
+     * @return this {@link Pool} builder
+     * @see #acquireTimeoutWheel(Duration)
+     */
+    public PoolBuilder<T> acquireTimeoutWheel(HashedWheelTimer sharedWheel) {
+        this.acquireTimeoutWheel = Objects.requireNonNull(sharedWheel, "sharedWheel");
+        this.acquireTimeoutTick = null;
+        return this;
+    }
+
     /**
      * Provide a {@link Scheduler} that can optionally be used by a {@link Pool} to deliver its resources in a more
      * deterministic (albeit potentially less efficient) way, thread-wise. Other implementations MAY completely ignore
@@ -87,6 +145,25 @@ public class PoolBuilder<T> {
         return this;
     }
 
+    /**
+     * Activate {@link #threadAffinity(boolean) affinity}, keyed on the value that the provided {@link Function}
+     * resolves from the {@link Context} of each borrower rather than on the subscribing {@link Thread}. The key
+     * would typically identify a {@link Scheduler.Worker} or an event loop, so that affinity survives work hopping
+     * between threads. A resource is pinned to the key of the borrower that triggered its allocation, and is
+     * preferably handed to a pending borrower with that same key when released.
+     * <p>
+     * Keys are compared with {@link Object#equals(Object)} and should thus be of a small, stable set of values.
+     * A {@code null} key falls back to the subscribing {@link Thread}.
+     *
+     * @param affinityKeyResolver the {@link Function} resolving the affinity key of a borrower from its {@link Context}
+     * @return a builder of {@link Pool} with affinity
+     */
+    public PoolBuilder<T> affinityKey(Function<? super Context, ?> affinityKeyResolver) {
+        this.affinityKeyResolver = Objects.requireNonNull(affinityKeyResolver, "affinityKeyResolver");
+        this.isThreadAffinity = true;
+        return this;
+    }
+
     /**
      * Limits in how many resources can be allocated and managed by the {@link Pool} are driven by the
      * provided {@link AllocationStrategy}.
@@ -120,6 +197,46 @@ public class PoolBuilder<T> {
         return this;
     }
 
+    /**
+     * Periodically sweep the idle resources of the {@link Pool} in the background, applying the
+     * {@link #evictionPredicate(BiPredicate) eviction predicate} to each of them. Evicted resources are
+     * destroyed and their permits are returned to the {@link AllocationStrategy}, so that an {@link Pool#acquire()}
+     * doesn't have to find them (and pay for their destruction) on its own path.
+     * <p>
+     * The sweep runs on {@link Schedulers#parallel()}. A {@link Duration#ZERO} interval deactivates
+     * background eviction, which is the default: eviction then only happens lazily on acquire and release.
+     *
+     * @param evictionInterval the interval between two background sweeps
+     * @return this {@link Pool} builder
+     * @see #evictInBackground(Duration, Scheduler)
+     */
+    public PoolBuilder<T> evictInBackground(Duration evictionInterval) {
+        return evictInBackground(evictionInterval, Schedulers.parallel());
+    }
+
+    /**
+     * Periodically sweep the idle resources of the {@link Pool} in the background, applying the
+     * {@link #evictionPredicate(BiPredicate) eviction predicate} to each of them. Evicted resources are
+     * destroyed and their permits are returned to the {@link AllocationStrategy}, so that an {@link Pool#acquire()}
+     * doesn't have to find them (and pay for their destruction) on its own path.
+     * <p>
+     * A {@link Duration#ZERO} interval deactivates background eviction, which is the default: eviction then only
+     * happens lazily on acquire and release.
+     *
+     * @param evictionInterval the interval between two background sweeps
+     * @param reaperTaskScheduler the {@link Scheduler} on which to run the periodic sweep
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> evictInBackground(Duration evictionInterval, Scheduler reaperTaskScheduler) {
+        Objects.requireNonNull(evictionInterval, "evictionInterval");
+        if (evictionInterval.isNegative()) {
+            throw new IllegalArgumentException("evictionInterval must be positive or zero");
+        }
+        this.evictionInterval = evictionInterval;
+        this.evictionScheduler = Objects.requireNonNull(reaperTaskScheduler, "reaperTaskScheduler");
+        return this;
+    }
+
     /**
      * Use an {@link #evictionPredicate(BiPredicate) eviction predicate} that causes eviction (ie returns {@code true})
      * of resources that have been idle (ie released and available in the {@link Pool}) for more than the {@code ttl}
@@ -139,8 +256,8 @@ public class PoolBuilder<T> {
      * This can happen whenever a resource is {@link PooledRef#release() released} back to the {@link Pool} (after
      * it was processed by the {@link #releaseHandler(Function)}), but also when being {@link Pool#acquire() acquired}
      * from the pool (triggering a second pass if the object is found to be unfit, eg. it has been idle for too long).
-     * Finally, some pool implementations MAY implement a reaper thread mechanism that detect idle resources through
-     * this predicate and destroy them.
+     * Finally, the predicate is applied to idle resources by a periodic background sweep if
+     * {@link #evictInBackground(Duration)} is configured.
      * <p>
      * Defaults to never evicting (a {@link BiPredicate} that always returns false).
      *
@@ -155,9 +272,41 @@ public class PoolBuilder<T> {
     }
 
     /**
-     * How many resources the {@link Pool} should allocate upon creation.
+     * Reuse the idle resources in Least Recently Used order: the resource that has been idle the longest is handed out
+     * first, which spreads the load over all the idle resources.
+     * <p>
+     * This is the default.
+     *
+     * @return this {@link Pool} builder
+     * @see #idleResourceReuseMruOrder()
+     */
+    public PoolBuilder<T> idleResourceReuseLruOrder() {
+        this.isIdleMru = false;
+        return this;
+    }
+
+    /**
+     * Reuse the idle resources in Most Recently Used order: the resource that was released last is handed out first.
+     * This keeps a small set of hot resources in use (eg. with warm caches), while the surplus ones stay idle and can
+     * age out through {@link #evictionIdle(Duration)}.
+     * <p>
+     * Idle resources are then kept in a lock-free stack rather than a queue.
+     *
+     * @return this {@link Pool} builder
+     * @see #idleResourceReuseLruOrder()
+     */
+    public PoolBuilder<T> idleResourceReuseMruOrder() {
+        this.isIdleMru = true;
+        return this;
+    }
+
+    /**
+     * How many resources the {@link Pool} should allocate upon creation, or when it is {@link Pool#warmup() warmed up}.
      * This parameter MAY be ignored by some implementations (although they should state so in their documentation).
      * <p>
+     * Unless {@link #lazyInitialization(boolean) lazy initialization} is used, the resources are allocated
+     * in the {@link Pool} constructor, which blocks until they are all available.
+     * <p>
      * Defaults to {@code 0}.
      *
      * @param n the initial size of the {@link Pool}.
@@ -171,6 +320,68 @@ public class PoolBuilder<T> {
         return this;
     }
 
+    /**
+     * If {@code true}, the {@link Pool} doesn't allocate its {@link #initialSize(int) initial resources} upon creation.
+     * Instead, these are allocated when calling {@link Pool#warmup()}, which doesn't block, or lazily on demand by
+     * borrowers. Otherwise, the {@link Pool} constructor blocks until the initial resources have been allocated.
+     * <p>
+     * Defaults to {@code false}.
+     *
+     * @param isLazyInitialization {@literal true} to not allocate resources during the {@link Pool} creation
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> lazyInitialization(boolean isLazyInitialization) {
+        this.isLazyInitialization = isLazyInitialization;
+        return this;
+    }
+
+    /**
+     * Report the {@link PooledRef} that are held for longer than {@code threshold} without being released, logging a
+     * warning along with the stack of the code that acquired them, and the ones that are garbage collected without
+     * ever having been released nor invalidated. See {@link #leakDetection(Duration, double, boolean)}.
+     *
+     * @param threshold the time after which an acquired {@link PooledRef} is reported as possibly leaked
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> leakDetection(Duration threshold) {
+        return leakDetection(threshold, 1d, false);
+    }
+
+    /**
+     * Report the {@link PooledRef} that are held for longer than {@code threshold} without being released, logging a
+     * warning along with the stack of the code that acquired them, and the ones that are garbage collected without
+     * ever having been released nor invalidated, whose permit would otherwise be lost to the {@link Pool}.
+     * <p>
+     * Only a {@code samplingRate} fraction of the acquired {@link PooledRef} are tracked, as capturing the acquire
+     * stack has a cost: a rate of {@code 1} tracks all of them, which is best kept for tests and debugging. If
+     * {@code reclaimUnreachable} is {@code true}, the permit of a tracked {@link PooledRef} that is garbage collected
+     * unreleased is returned to the {@link Pool} and its resource is destroyed, which keeps a leak from starving
+     * the {@link Pool}. Resources of {@link PooledRef} that are held for too long are never reclaimed, as they might
+     * still be in use.
+     * <p>
+     * The check runs periodically on the {@link #evictInBackground(Duration, Scheduler) eviction scheduler}. By
+     * default, there is no leak detection.
+     *
+     * @param threshold the time after which an acquired {@link PooledRef} is reported as possibly leaked
+     * @param samplingRate the fraction of acquired {@link PooledRef} to track, between 0 (excluded) and 1
+     * @param reclaimUnreachable true to reclaim the permit of tracked {@link PooledRef} that are garbage collected
+     * without having been released
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> leakDetection(Duration threshold, double samplingRate, boolean reclaimUnreachable) {
+        Objects.requireNonNull(threshold, "threshold");
+        if (threshold.isNegative() || threshold.isZero()) {
+            throw new IllegalArgumentException("leak detection threshold must be strictly positive");
+        }
+        if (!(samplingRate > 0d && samplingRate <= 1d)) {
+            throw new IllegalArgumentException("samplingRate must be in ]0, 1]");
+        }
+        this.leakThreshold = threshold;
+        this.leakSamplingRate = samplingRate;
+        this.leakReclaim = reclaimUnreachable;
+        return this;
+    }
+
     /**
      * Change the order in which pending {@link Pool#acquire()} {@link Mono Monos} are served
      * whenever a resource becomes available. The default is FIFO, but passing true to this
@@ -184,6 +395,49 @@ public class PoolBuilder<T> {
         return this;
     }
 
+    /**
+     * Limit the number of allocations that can be in flight at the same time, so that a burst of borrowers on a cold
+     * {@link Pool} doesn't open as many connections concurrently (which would all get slow together). Borrowers that
+     * could get a permit but no allocation slot stay pending: they are served either by the next resource to be released
+     * or by an allocation started once an in-flight one completes, whichever comes first.
+     * <p>
+     * This doesn't apply to the allocations of the {@link #initialSize(int) initial resources}, which are limited by the
+     * {@link #warmupParallelism(int) warmup parallelism}. Defaults to no limit.
+     *
+     * @param maxAllocations the maximum number of concurrent allocations
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> maxConcurrentAllocations(int maxAllocations) {
+        if (maxAllocations < 1) {
+            throw new IllegalArgumentException("maxConcurrentAllocations must be >= 1");
+        }
+        this.maxAllocations = maxAllocations;
+        return this;
+    }
+
+    /**
+     * Limit the time a borrower can hold a resource: a {@link PooledRef} that is neither released nor invalidated
+     * within {@code maxLeaseTime} of its acquisition is invalidated by the {@link Pool}, which returns its permit and
+     * serves the pending borrowers with a replacement. This keeps a few borrowers that hang from starving all the
+     * others. The late {@link PooledRef#release() release} or {@link PooledRef#invalidate() invalidation} of such a
+     * {@link PooledRef} by its borrower is a no-op, while the resource itself should no longer be used.
+     * <p>
+     * Forced reclaims are recorded by the {@link PoolMetricsRecorder#recordLeaseReclaimed()}. The lease timeouts are
+     * tracked in the {@link #acquireTimeoutWheel(Duration) acquire timeout wheel} if any, or else scheduled on
+     * {@link Schedulers#parallel()}. Defaults to {@link Duration#ZERO}, ie. no limit.
+     *
+     * @param maxLeaseTime the maximum time a resource can be held (resolution: ms, or the tick of the acquire timeout wheel)
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> maxLeaseTime(Duration maxLeaseTime) {
+        Objects.requireNonNull(maxLeaseTime, "maxLeaseTime");
+        if (maxLeaseTime.isNegative()) {
+            throw new IllegalArgumentException("maxLeaseTime must be positive or zero");
+        }
+        this.maxLeaseTime = maxLeaseTime;
+        return this;
+    }
+
     /**
      * Set the maximum number of <i>subscribed</i> {@link Pool#acquire()} Monos that can
      * be in a pending state (ie they wait for a resource to be released, as no idle
@@ -226,6 +480,26 @@ public class PoolBuilder<T> {
         return this;
     }
 
+    /**
+     * Keep at least {@code minIdle} idle resources in the {@link Pool}: whenever a resource is destroyed (be it through
+     * eviction, invalidation or a failed release) and the number of idle resources drops below {@code minIdle},
+     * replacements are allocated in the background, as far as the {@link AllocationStrategy} permits. This spares the
+     * next burst of borrowers the allocation latency, unlike the {@link #initialSize(int) initial size} which is only
+     * applied once.
+     * <p>
+     * Defaults to {@code 0}, ie. destroyed resources are not replaced until borrowers need them.
+     *
+     * @param minIdle the minimum number of idle resources to maintain
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> minIdle(int minIdle) {
+        if (minIdle < 0) {
+            throw new IllegalArgumentException("minIdle must be >= 0");
+        }
+        this.minIdle = minIdle;
+        return this;
+    }
+
     /**
      * Provide a {@link Function handler} that will derive a reset {@link Publisher} whenever a resource is released.
      * The reset procedure is applied asynchronously before vetting the object through {@link #evictionPredicate}.
@@ -241,6 +515,45 @@ public class PoolBuilder<T> {
         return this;
     }
 
+    /**
+     * Partition the idle resources and the pending borrowers of the {@link Pool} into {@code shardCount} independent
+     * shards, so that concurrent acquires and releases don't all contend on the same data structures. Each thread
+     * acquires from its own shard, and shards that run dry steal idle resources from the others. The
+     * {@link #allocationStrategy(AllocationStrategy) allocation strategy} and the
+     * {@link #maxPendingAcquire(int) maximum number of pending borrowers} apply to all the shards together.
+     * <p>
+     * This is ignored if {@link #threadAffinity(boolean) thread affinity} is activated. Defaults to {@code 1}, ie. no sharding.
+     *
+     * @param shardCount the number of shards, typically the number of CPU cores
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> shards(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be >= 1");
+        }
+        this.shardCount = shardCount;
+        return this;
+    }
+
+    /**
+     * Let the {@link Pool} size itself from the observed demand, between {@code min} and {@code max} resources.
+     * The allocation limit starts at {@code min} (or 1) and is periodically adapted, every {@code targetPendingTime}:
+     * it grows when borrowers stay pending longer than {@code targetPendingTime}, unless allocating a resource takes
+     * even longer than waiting for a release, and it shrinks by half (destroying the surplus idle resources) when
+     * resources stay idle while no borrower is pending. It never shrinks below the number of resources in use.
+     * <p>
+     * The sampling runs on the {@link #evictInBackground(Duration, Scheduler) eviction scheduler}.
+     *
+     * @param min the minimum allocation limit
+     * @param max the maximum number of live resources to keep in the pool
+     * @param targetPendingTime the time borrowers can acceptably spend pending, which is also the sampling period
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> sizeAdaptive(int min, int max, Duration targetPendingTime) {
+        Objects.requireNonNull(targetPendingTime, "targetPendingTime");
+        return allocationStrategy(new AllocationStrategies.AdaptiveAllocationStrategy(min, max, targetPendingTime.toNanos()));
+    }
+
     /**
 	 * Let the {@link Pool} allocate at most {@code max} resources, rejecting further allocations until
 	 * some resources have been {@link PooledRef#release() released}.
@@ -274,12 +587,65 @@ public class PoolBuilder<T> {
      *
      * @param isThreadAffinity {@literal true} to activate thread affinity on the pool.
      * @return a builder of {@link Pool} with thread affinity.
+     * @see #affinityKey(Function)
      */
     public PoolBuilder<T> threadAffinity(boolean isThreadAffinity) {
         this.isThreadAffinity = isThreadAffinity;
         return this;
     }
 
+    /**
+     * Check that an idle resource is still usable before handing it out (eg. by sending a "ping" on a connection),
+     * provided it has been idle for at least {@code idleThreshold}. The {@code validator} is applied asynchronously
+     * and the resource is handed out only if it emits {@code true} within {@code timeout}. Otherwise (it emits
+     * {@code false}, completes empty, fails or times out), the resource is destroyed and the acquire moves on to the
+     * next idle resource or to an allocation.
+     * <p>
+     * Unlike the {@link #evictionPredicate(BiPredicate) eviction predicate}, which is synchronous, this catches dead
+     * resources before the borrower does, at the cost of the validation latency for the borrowers that get a resource
+     * that needs it. A resource that passed validation isn't validated again until it is acquired and released.
+     * The latency and outcome of validations are recorded by the
+     * {@link PoolMetricsRecorder#recordValidationSuccessAndLatencyNanos(long)} and
+     * {@link PoolMetricsRecorder#recordValidationFailureAndLatencyNanos(long)}. By default, resources are not validated.
+     *
+     * @param validator the asynchronous check of an idle resource, {@code true} meaning it is usable
+     * @param idleThreshold the idle time from which a resource is validated, {@link Duration#ZERO} to validate them all
+     * @param timeout the maximum duration of a validation
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> validateOnAcquire(Function<T, ? extends Publisher<Boolean>> validator, Duration idleThreshold,
+            Duration timeout) {
+        Objects.requireNonNull(idleThreshold, "idleThreshold");
+        Objects.requireNonNull(timeout, "timeout");
+        if (idleThreshold.isNegative()) {
+            throw new IllegalArgumentException("idleThreshold must be positive or zero");
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("validation timeout must be strictly positive");
+        }
+        this.validator = Objects.requireNonNull(validator, "validator");
+        this.validationIdleThreshold = idleThreshold;
+        this.validationTimeout = timeout;
+        return this;
+    }
+
+    /**
+     * How many resources can be allocated concurrently when warming up the {@link Pool} to its
+     * {@link #initialSize(int) initial size}, be it during its creation or through {@link Pool#warmup()}.
+     * <p>
+     * Defaults to {@code 1}, ie. the initial resources are allocated one after the other.
+     *
+     * @param parallelism the maximum number of concurrent allocations during warmup
+     * @return this {@link Pool} builder
+     */
+    public PoolBuilder<T> warmupParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("warmupParallelism must be >= 1");
+        }
+        this.warmupParallelism = parallelism;
+        return this;
+    }
+
     /**
      * Build the {@link Pool}.
      *
@@ -290,6 +656,9 @@ public class PoolBuilder<T> {
         if (isThreadAffinity) {
             return new AffinityPool<>(config);
         }
+        if (shardCount > 1) {
+            return new ShardedPool<>(config, shardCount);
+        }
         if (isLifo) {
             return new SimpleLifoPool<>(config);
         }
@@ -298,16 +667,37 @@ public class PoolBuilder<T> {
 
     //kept package-private for the benefit of tests
     AbstractPool.DefaultPoolConfig<T> buildConfig() {
+        HashedWheelTimer timeoutWheel = acquireTimeoutWheel;
+        boolean ownsTimeoutWheel = false;
+        if (timeoutWheel == null && acquireTimeoutTick != null) {
+            timeoutWheel = HashedWheelTimer.create(acquireTimeoutTick, DEFAULT_TICKS_PER_WHEEL);
+            ownsTimeoutWheel = true;
+        }
         return new AbstractPool.DefaultPoolConfig<>(allocator,
                 initialSize,
+                minIdle,
+                warmupParallelism,
+                isLazyInitialization,
                 allocationStrategy == null ? new AllocationStrategies.UnboundedAllocationStrategy() : allocationStrategy,
                 maxPending,
+                maxAllocations,
                 releaseHandler,
                 destroyHandler,
                 evictionPredicate,
+                evictionInterval,
+                evictionScheduler,
                 acquisitionScheduler,
+                timeoutWheel,
+                ownsTimeoutWheel,
                 metricsRecorder,
-                isLifo);
+                isLifo,
+                isIdleMru,
+                affinityKeyResolver,
+                leakThreshold == null ? null : new LeakDetector(leakThreshold, leakSamplingRate, leakReclaim),
+                maxLeaseTime,
+                validator,
+                validationIdleThreshold,
+                validationTimeout);
     }
 
     @SuppressWarnings("unchecked")
@@ -324,6 +714,8 @@ public class PoolBuilder<T> {
         return (poolable, meta) -> meta.idleTime() >= maxIdleTime.toMillis();
     }
 
+    static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
     static final Function<?, Mono<Void>> NOOP_HANDLER    = it -> Mono.empty();
     static final BiPredicate<?, ?>       NEVER_PREDICATE = (ignored1, ignored2) -> false;
 
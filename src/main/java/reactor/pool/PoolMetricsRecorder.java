@@ -15,12 +15,18 @@
  */
 package reactor.pool;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * An interface representing ways for {@link Pool} to collect instrumentation data.
  * Some methods are pool-implementation specific.
  * <p>
- * Additionally wraps the concept of a clock, with {@link #now()} to get the current time with milliseconds
- * resolution and {@link #measureTime(long)} to get the elapsed time.
+ * Additionally wraps the concept of a monotonic clock, with {@link #nowNanos()} to get the current time with
+ * nanoseconds resolution and {@link #measureNanos(long)} to get the elapsed time. Pools only use that clock and
+ * the {@code ...Nanos} recording methods, which by default adapt to the millisecond-based methods
+ * ({@link #now()}, {@link #measureTime(long)}, {@link #recordResetLatency(long)}...). As a consequence, recorders that
+ * only implement the millisecond-based contract keep working, but latencies under a millisecond are truncated.
+ * Recorders that want sub-millisecond precision should override all the nanosecond-based methods.
  *
  * @author Simon Baslé
  */
@@ -39,30 +45,96 @@ public interface PoolMetricsRecorder {
 	 */
 	long now();
 
+	/**
+	 * Get a starting time with nanoseconds resolution, from a monotonic clock like {@link System#nanoTime()}.
+	 * The value is only meaningful when compared to another value of this method, like in {@link #measureNanos(long)}.
+	 * <p>
+	 * Defaults to adapting {@link #now()}, ie. it only has milliseconds resolution.
+	 */
+	default long nowNanos() {
+		return TimeUnit.MILLISECONDS.toNanos(now());
+	}
+
+	/**
+	 * Get the elapsed time in nanoseconds between {@link #nowNanos()} and the given starting time.
+	 * <p>
+	 * Defaults to adapting {@link #measureTime(long)}.
+	 *
+	 * @param startTimeNanos the starting time initially obtained via {@link #nowNanos()}
+	 * @return the elapsed time in nanoseconds
+	 */
+	default long measureNanos(long startTimeNanos) {
+		return TimeUnit.MILLISECONDS.toNanos(measureTime(TimeUnit.NANOSECONDS.toMillis(startTimeNanos)));
+	}
+
 	/**
 	 * Record a latency for successful allocation. Implies incrementing an allocation success counter as well.
 	 * @param latencyMs the latency in milliseconds
 	 */
 	void recordAllocationSuccessAndLatency(long latencyMs);
 
+	/**
+	 * Record a latency for successful allocation. Implies incrementing an allocation success counter as well.
+	 * <p>
+	 * Defaults to adapting {@link #recordAllocationSuccessAndLatency(long)}, truncating to milliseconds.
+	 *
+	 * @param latencyNanos the latency in nanoseconds
+	 */
+	default void recordAllocationSuccessAndLatencyNanos(long latencyNanos) {
+		recordAllocationSuccessAndLatency(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+	}
+
 	/**
 	 * Record a latency for failed allocation. Implies incrementing an allocation failure counter as well.
 	 * @param latencyMs the latency in milliseconds
 	 */
 	void recordAllocationFailureAndLatency(long latencyMs);
 
+	/**
+	 * Record a latency for failed allocation. Implies incrementing an allocation failure counter as well.
+	 * <p>
+	 * Defaults to adapting {@link #recordAllocationFailureAndLatency(long)}, truncating to milliseconds.
+	 *
+	 * @param latencyNanos the latency in nanoseconds
+	 */
+	default void recordAllocationFailureAndLatencyNanos(long latencyNanos) {
+		recordAllocationFailureAndLatency(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+	}
+
 	/**
 	 * Record a latency for resetting a resource to a reusable state. Implies incrementing a counter as well.
 	 * @param latencyMs the latency in milliseconds
 	 */
 	void recordResetLatency(long latencyMs);
 
+	/**
+	 * Record a latency for resetting a resource to a reusable state. Implies incrementing a counter as well.
+	 * <p>
+	 * Defaults to adapting {@link #recordResetLatency(long)}, truncating to milliseconds.
+	 *
+	 * @param latencyNanos the latency in nanoseconds
+	 */
+	default void recordResetLatencyNanos(long latencyNanos) {
+		recordResetLatency(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+	}
+
 	/**
 	 * Record a latency for destroying a resource. Implies incrementing a counter as well.
 	 * @param latencyMs the latency in milliseconds
 	 */
 	void recordDestroyLatency(long latencyMs);
 
+	/**
+	 * Record a latency for destroying a resource. Implies incrementing a counter as well.
+	 * <p>
+	 * Defaults to adapting {@link #recordDestroyLatency(long)}, truncating to milliseconds.
+	 *
+	 * @param latencyNanos the latency in nanoseconds
+	 */
+	default void recordDestroyLatencyNanos(long latencyNanos) {
+		recordDestroyLatency(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+	}
+
 	/**
 	 * Record the fact that a resource was recycled, ie it was reset and tested for reuse.
 	 */
@@ -74,12 +146,34 @@ public interface PoolMetricsRecorder {
 	 */
 	void recordLifetimeDuration(long millisecondsSinceAllocation);
 
+	/**
+	 * Record the number of nanoseconds a pooled object has been live (ie. time between allocation and destruction).
+	 * <p>
+	 * Defaults to adapting {@link #recordLifetimeDuration(long)}, truncating to milliseconds.
+	 *
+	 * @param nanosecondsSinceAllocation the number of nanoseconds since the object was allocated, at the time is is destroyed
+	 */
+	default void recordLifetimeDurationNanos(long nanosecondsSinceAllocation) {
+		recordLifetimeDuration(TimeUnit.NANOSECONDS.toMillis(nanosecondsSinceAllocation));
+	}
+
 	/**
 	 * Record the number of milliseconds an object had been idle when it gets pulled from the pool and passed to a borrower.
 	 * @param millisecondsIdle the number of milliseconds an object that was just acquired had previously been idle.
 	 */
 	void recordIdleTime(long millisecondsIdle);
 
+	/**
+	 * Record the number of nanoseconds an object had been idle when it gets pulled from the pool and passed to a borrower.
+	 * <p>
+	 * Defaults to adapting {@link #recordIdleTime(long)}, truncating to milliseconds.
+	 *
+	 * @param nanosecondsIdle the number of nanoseconds an object that was just acquired had previously been idle.
+	 */
+	default void recordIdleTimeNanos(long nanosecondsIdle) {
+		recordIdleTime(TimeUnit.NANOSECONDS.toMillis(nanosecondsIdle));
+	}
+
 	/**
 	 * Record the fact that a {@link Pool} has a slow path of recycling and just used it.
 	 */
@@ -89,4 +183,95 @@ public interface PoolMetricsRecorder {
 	 * Record the fact that a {@link Pool} has a fast path of recycling and just used it.
 	 */
 	void recordFastPath();
+
+	/**
+	 * Record the end-to-end latency of an acquire, from the request to the delivery of the resource, in the case where
+	 * an idle resource was available when the acquire was requested.
+	 * <p>
+	 * Defaults to doing nothing.
+	 *
+	 * @param latencyNanos the latency in nanoseconds
+	 */
+	default void recordAcquireLatencyFromIdleNanos(long latencyNanos) {
+	}
+
+	/**
+	 * Record the end-to-end latency of an acquire, from the request to the delivery of the resource, in the case where
+	 * no idle resource was available but a new resource could be allocated right away. This includes the allocation latency.
+	 * <p>
+	 * Defaults to doing nothing.
+	 *
+	 * @param latencyNanos the latency in nanoseconds
+	 */
+	default void recordAcquireLatencyWithAllocationNanos(long latencyNanos) {
+	}
+
+	/**
+	 * Record the end-to-end latency of an acquire, from the request to the delivery of the resource, in the case where
+	 * there was neither an idle resource nor a possibility to allocate when the acquire was requested, so it had to
+	 * wait for a resource to be released (or a permit to be returned).
+	 * <p>
+	 * Defaults to doing nothing.
+	 *
+	 * @param latencyNanos the latency in nanoseconds
+	 */
+	default void recordAcquireLatencyAfterPendingNanos(long latencyNanos) {
+	}
+
+	/**
+	 * Record the time an acquire that had to wait has spent pending, from the request to the moment a resource (or a
+	 * permit to allocate one) was found for it.
+	 * <p>
+	 * Defaults to doing nothing.
+	 *
+	 * @param pendingNanos the time spent pending, in nanoseconds
+	 */
+	default void recordPendingTimeNanos(long pendingNanos) {
+	}
+
+	/**
+	 * Record the fact that a pending acquire failed because its acquire timeout was reached.
+	 * <p>
+	 * Defaults to doing nothing.
+	 */
+	default void recordPendingTimeout() {
+	}
+
+	/**
+	 * Record the fact that an acquire was rejected because the maximum number of pending acquires was reached.
+	 * <p>
+	 * Defaults to doing nothing.
+	 */
+	default void recordPendingRejected() {
+	}
+
+	/**
+	 * Record the fact that a resource was invalidated by the {@link Pool} because it had been held for longer than
+	 * the maximum lease time.
+	 * <p>
+	 * Defaults to doing nothing.
+	 */
+	default void recordLeaseReclaimed() {
+	}
+
+	/**
+	 * Record the latency of the validation of an idle resource about to be handed out, in the case where it passed.
+	 * <p>
+	 * Defaults to doing nothing.
+	 *
+	 * @param latencyNanos the latency in nanoseconds
+	 */
+	default void recordValidationSuccessAndLatencyNanos(long latencyNanos) {
+	}
+
+	/**
+	 * Record the latency of the validation of an idle resource about to be handed out, in the case where it failed
+	 * (including timeouts), in which case the resource is destroyed.
+	 * <p>
+	 * Defaults to doing nothing.
+	 *
+	 * @param latencyNanos the latency in nanoseconds
+	 */
+	default void recordValidationFailureAndLatencyNanos(long latencyNanos) {
+	}
 }
@@ -17,6 +17,7 @@ package reactor.pool;
 
 import reactor.core.publisher.Mono;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 /**
@@ -74,4 +75,17 @@ public interface PooledRef<POOLABLE> {
      */
     Mono<Void> release();
 
+    /**
+     * Release the {@code POOLABLE} back to the pool right away, for callers that are not reactive
+     * (see {@link Pool#acquireFuture()}).
+     * <p>
+     * Like {@link #release()}, this method is idempotent.
+     *
+     * @return a {@link CompletableFuture} that completes when the object has been released, or exceptionally in
+     * case of an error, in which case the object is always discarded
+     */
+    default CompletableFuture<Void> releaseFuture() {
+        return release().toFuture();
+    }
+
 }
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.Loggers;
+import reactor.util.annotation.Nullable;
+
+/**
+ * A {@link Pool} that partitions its idle resources and pending borrowers into several independent
+ * {@link SimplePool} shards, so that concurrent acquires and releases don't all contend on a single
+ * drain loop. Each thread acquires from the shard picked by its id (or from any shard with idle resources
+ * if that one has none), and a resource is always released back to the shard that allocated it. All the
+ * shards share the same {@link AllocationStrategy}.
+ * <p>
+ * When a shard runs dry (it has pending borrowers but neither idle resources nor permits), it flags
+ * itself as starved and wakes up the shards that have idle resources, which hand these over one at a
+ * time. Conversely, a shard that ends up with idle resources (or a returned permit) and no borrower of
+ * its own serves the starved shards first. Idle resources are thus never left unused while some
+ * borrower is pending, but there are no fairness guarantees across shards.
+ * <p>
+ * The {@link PoolBuilder#maxPendingAcquire(int) maximum number of pending borrowers} applies to the pool
+ * as a whole: the shards count their pending borrowers against the one of the {@link ShardedPool}.
+ */
+final class ShardedPool<POOLABLE> extends AbstractPool<POOLABLE> {
+
+    final SimplePool<POOLABLE>[] shards;
+
+    volatile     int                                    starving;
+    static final AtomicIntegerFieldUpdater<ShardedPool> STARVING = AtomicIntegerFieldUpdater.newUpdater(ShardedPool.class, "starving");
+
+    volatile     int                                    nextShard;
+    static final AtomicIntegerFieldUpdater<ShardedPool> NEXT_SHARD = AtomicIntegerFieldUpdater.newUpdater(ShardedPool.class, "nextShard");
+
+    volatile     int                                    disposed;
+    static final AtomicIntegerFieldUpdater<ShardedPool> DISPOSED = AtomicIntegerFieldUpdater.newUpdater(ShardedPool.class, "disposed");
+
+    @SuppressWarnings("unchecked")
+    ShardedPool(DefaultPoolConfig<POOLABLE> poolConfig, int shardCount) {
+        super(poolConfig, Loggers.getLogger(ShardedPool.class));
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be >= 1");
+        }
+        DefaultPoolConfig<POOLABLE> shardConfig = shardConfig(poolConfig, shardCount);
+        this.shards = new SimplePool[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            //the shards start no background task: the shared allocation strategy is sampled at the level of the ShardedPool only
+            this.shards[i] = poolConfig.isLifo ? new SimpleLifoPool<>(shardConfig, this) : new SimpleFifoPool<>(shardConfig, this);
+        }
+
+        warmupUnlessLazy();
+        startBackgroundTasks();
+    }
+
+    /**
+     * Derive the configuration of the shards: the initial and minimum idle resources and the background eviction
+     * are taken care of at the level of the {@link ShardedPool}, which also owns the acquire timeout wheel.
+     */
+    static <POOLABLE> DefaultPoolConfig<POOLABLE> shardConfig(DefaultPoolConfig<POOLABLE> config, int shardCount) {
+        return new DefaultPoolConfig<>(config.allocator,
+                0,
+                0,
+                config.warmupParallelism,
+                true,
+                config.allocationStrategy,
+                config.maxPending,
+                config.maxAllocations,
+                config.releaseHandler,
+                config.destroyHandler,
+                config.evictionPredicate,
+                Duration.ZERO,
+                config.evictionScheduler,
+                config.acquisitionScheduler,
+                config.acquireTimeoutWheel,
+                false,
+                config.metricsRecorder,
+                config.isLifo,
+                config.isIdleMru,
+                config.affinityKeyResolver,
+                config.leakDetector,
+                config.maxLeaseTime,
+                config.validator,
+                config.validationIdleThreshold,
+                config.validationTimeout);
+    }
+
+    /**
+     * Pick the shard to acquire from: the one of the current thread, unless it has no idle resource while
+     * another shard has some, in which case the borrower goes there rather than triggering an allocation.
+     *
+     * @return the shard to acquire from
+     */
+    SimplePool<POOLABLE> shard() {
+        int home = (int) (Thread.currentThread().getId() % shards.length);
+        SimplePool<POOLABLE> shard = shards[home];
+        if (shard.idleSize() > 0) {
+            return shard;
+        }
+        for (int i = 1; i < shards.length; i++) {
+            SimplePool<POOLABLE> other = shards[(home + i) % shards.length];
+            if (other.idleSize() > 0) {
+                return other;
+            }
+        }
+        return shard;
+    }
+
+    @Override
+    public Mono<PooledRef<POOLABLE>> acquire() {
+        return Mono.defer(() -> shard().acquire()); //the shard is picked upon subscription
+    }
+
+    @Override
+    public Mono<PooledRef<POOLABLE>> acquire(Duration timeout) {
+        return Mono.defer(() -> shard().acquire(timeout)); //the shard is picked upon subscription
+    }
+
+    @Override
+    Borrower<POOLABLE> borrow(CoreSubscriber<? super PooledRef<POOLABLE>> actual, Duration acquireTimeout) {
+        return shard().borrow(actual, acquireTimeout);
+    }
+
+    @Override
+    @Nullable
+    public PooledRef<POOLABLE> tryAcquire() {
+        return shard().tryAcquire();
+    }
+
+    @Override
+    Flux<PooledRef<POOLABLE>> acquireBatch(int n) {
+        return Flux.defer(() -> shard().acquireBatch(n)); //the shard is picked upon subscription
+    }
+
+    /**
+     * Borrowers are always created by, and registered with, one of the {@link #shards}.
+     */
+    @Override
+    void doAcquire(Borrower<POOLABLE> borrower) {
+        throw new IllegalStateException("Borrowers are handled by the shards");
+    }
+
+    @Override
+    void cancelAcquire(Borrower<POOLABLE> borrower) {
+        throw new IllegalStateException("Borrowers are handled by the shards");
+    }
+
+    @Override
+    Borrower<POOLABLE> newBorrower(CoreSubscriber<? super PooledRef<POOLABLE>> actual, Duration acquireTimeout) {
+        throw new IllegalStateException("Borrowers are handled by the shards");
+    }
+
+    @Override
+    boolean elementOffer(POOLABLE element) {
+        return nextShard().elementOffer(element);
+    }
+
+    /**
+     * Spread the resources allocated upon warmup between the shards.
+     */
+    @Override
+    void offerAllocated(POOLABLE poolable) {
+        nextShard().offerAllocated(poolable);
+    }
+
+    private SimplePool<POOLABLE> nextShard() {
+        int next = NEXT_SHARD.getAndIncrement(this) & Integer.MAX_VALUE;
+        return shards[next % shards.length];
+    }
+
+    /**
+     * Called by the drain loop of a shard that has pending borrowers but neither idle resources nor
+     * permits. Flag the shard as starved, then wake up the shards that could serve it: the ones with idle
+     * resources, which will hand them over (see {@link #findStarved(SimplePool)}), and the starved shard
+     * itself in case a permit was returned in the meantime.
+     *
+     * @param starved the shard that ran dry
+     */
+    void stealFor(SimplePool<POOLABLE> starved) {
+        if (starving == 0) {
+            STARVING.set(this, 1);
+        }
+        for (SimplePool<POOLABLE> shard : shards) {
+            if (shard != starved && shard.idleSize() > 0) {
+                shard.drain();
+            }
+        }
+        if (poolConfig.allocationStrategy.estimatePermitCount() > 0 && canStartAllocation()) {
+            starved.drain();
+        }
+    }
+
+    /**
+     * Called by the drain loop of a shard that has an idle resource or a permit available but no pending
+     * borrower. This is a single volatile read unless some shard was flagged by {@link #stealFor(SimplePool)},
+     * in which case the flag is cleared before looking for a shard that is still starved, so that a shard
+     * flagging itself concurrently is either found here or wakes up the caller again.
+     *
+     * @param donor the shard that could serve another one
+     * @return a shard with pending borrowers and no idle resource, or null if there is none
+     */
+    @Nullable
+    SimplePool<POOLABLE> findStarved(SimplePool<POOLABLE> donor) {
+        if (starving == 0) {
+            return null;
+        }
+        STARVING.set(this, 0);
+        for (SimplePool<POOLABLE> shard : shards) {
+            if (shard != donor && shard.pendingCount > 0 && shard.idleSize() == 0) {
+                STARVING.set(this, 1); //other shards could still be starved
+                return shard;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    void evictInBackground() {
+        for (SimplePool<POOLABLE> shard : shards) {
+            shard.evictInBackground();
+        }
+    }
+
+    @Override
+    void allocateForPending() {
+        for (SimplePool<POOLABLE> shard : shards) {
+            if (shard.pendingCount > 0) {
+                shard.drain();
+            }
+        }
+    }
+
+    @Override
+    public int idleSize() {
+        int idle = 0;
+        for (SimplePool<POOLABLE> shard : shards) {
+            idle += shard.idleSize();
+        }
+        return idle;
+    }
+
+    @Override
+    public void dispose() {
+        if (DISPOSED.compareAndSet(this, 0, 1)) {
+            stopBackgroundTasks();
+            for (SimplePool<POOLABLE> shard : shards) {
+                shard.dispose();
+            }
+        }
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return disposed == 1;
+    }
+}
@@ -19,6 +19,7 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
+import reactor.util.annotation.Nullable;
 import reactor.util.concurrent.Queues;
 
 /**
@@ -38,41 +39,46 @@ final class SimpleFifoPool<POOLABLE> extends SimplePool<POOLABLE> {
             SimpleFifoPool.class, Queue.class, "pending");
 
     public SimpleFifoPool(DefaultPoolConfig<POOLABLE> poolConfig) {
-        super(poolConfig);
+        this(poolConfig, null);
+    }
+
+    SimpleFifoPool(DefaultPoolConfig<POOLABLE> poolConfig, @Nullable ShardedPool<POOLABLE> group) {
+        super(poolConfig, group);
         this.pending = new ConcurrentLinkedQueue<>(); //unbounded MPMC
     }
 
     @Override
     boolean pendingOffer(Borrower<POOLABLE> pending) {
-        int maxPending = poolConfig.maxPending;
-        for (;;) {
-            int currentPending = PENDING_COUNT.get(this);
-            if (maxPending >= 0 && currentPending == maxPending) {
-                pending.fail(new IllegalStateException("Pending acquire queue has reached its maximum size of " + maxPending));
-                return false;
-            }
-            else if (PENDING_COUNT.compareAndSet(this, currentPending, currentPending + 1)) {
-                this.pending.offer(pending); //unbounded
-                return true;
-            }
+        if (!reservePending()) {
+            metricsRecorder.recordPendingRejected();
+            pending.fail(new IllegalStateException("Pending acquire queue has reached its maximum size of " + poolConfig.maxPending));
+            return false;
         }
+        pending.markQueued();
+        this.pending.offer(pending); //unbounded
+        return true;
     }
 
     @Override
     Borrower<POOLABLE> pendingPoll() {
         Queue<Borrower<POOLABLE>> q = this.pending;
-        Borrower<POOLABLE> b = q.poll();
-        if (b != null) PENDING_COUNT.decrementAndGet(this);
-        return b;
+        Borrower<POOLABLE> b;
+        while ((b = q.poll()) != null) {
+            if (b.unmarkQueued()) {
+                decrementPending();
+                return b;
+            }
+            else {
+                tombstonePolled(); //a cancelled borrower, already out of the pending count
+            }
+        }
+        return null;
     }
 
     @Override
     void cancelAcquire(Borrower<POOLABLE> borrower) {
-        if (!isDisposed()) { //ignore pool disposed
-            Queue<Borrower<POOLABLE>> q = this.pending;
-            if (q.remove(borrower)) {
-                PENDING_COUNT.decrementAndGet(this);
-            }
+        if (!isDisposed() && tombstonePending(borrower)) { //ignore pool disposed
+            this.pending.removeIf(b -> b.queued == 0);
         }
     }
 
@@ -81,12 +87,16 @@ final class SimpleFifoPool<POOLABLE> extends SimplePool<POOLABLE> {
         @SuppressWarnings("unchecked")
         Queue<Borrower<POOLABLE>> q = PENDING.getAndSet(this, TERMINATED);
         if (q != TERMINATED) {
+            stopBackgroundTasks();
+
             while(!q.isEmpty()) {
                 q.poll().fail(new RuntimeException("Pool has been shut down"));
             }
+            failFillingBatch();
+            failAwaitingAllocation();
 
             while (!elements.isEmpty()) {
-                destroyPoolable(elements.poll()).subscribe();
+                destroyPoolable(idlePoll()).subscribe();
             }
         }
     }
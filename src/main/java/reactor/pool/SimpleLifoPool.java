@@ -20,6 +20,8 @@ import java.util.Deque;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
+import reactor.util.annotation.Nullable;
+
 /**
  * This implementation is based on {@link java.util.concurrent.ConcurrentLinkedQueue} MPMC queue
  * for idle resources and a {@link ConcurrentLinkedDeque} for pending {@link Pool#acquire()}
@@ -39,41 +41,46 @@ final class SimpleLifoPool<POOLABLE> extends SimplePool<POOLABLE> {
             SimpleLifoPool.class, ConcurrentLinkedDeque.class, "pending");
 
     public SimpleLifoPool(DefaultPoolConfig<POOLABLE> poolConfig) {
-        super(poolConfig);
+        this(poolConfig, null);
+    }
+
+    SimpleLifoPool(DefaultPoolConfig<POOLABLE> poolConfig, @Nullable ShardedPool<POOLABLE> group) {
+        super(poolConfig, group);
         this.pending = new ConcurrentLinkedDeque<>(); //unbounded
     }
 
     @Override
     boolean pendingOffer(Borrower<POOLABLE> pending) {
-        int maxPending = poolConfig.maxPending;
-        for (;;) {
-            int currentPending = PENDING_COUNT.get(this);
-            if (maxPending >= 0 && currentPending == maxPending) {
-                pending.fail(new IllegalStateException("Pending acquire queue has reached its maximum size of " + maxPending));
-                return false;
-            }
-            else if (PENDING_COUNT.compareAndSet(this, currentPending, currentPending + 1)) {
-                this.pending.offerFirst(pending); //unbounded
-                return true;
-            }
+        if (!reservePending()) {
+            metricsRecorder.recordPendingRejected();
+            pending.fail(new IllegalStateException("Pending acquire queue has reached its maximum size of " + poolConfig.maxPending));
+            return false;
         }
+        pending.markQueued();
+        this.pending.offerFirst(pending); //unbounded
+        return true;
     }
 
     @Override
     Borrower<POOLABLE> pendingPoll() {
         ConcurrentLinkedDeque<Borrower<POOLABLE>> q = this.pending;
-        Borrower<POOLABLE> b = q.pollFirst();
-        if (b != null) PENDING_COUNT.decrementAndGet(this);
-        return b;
+        Borrower<POOLABLE> b;
+        while ((b = q.pollFirst()) != null) {
+            if (b.unmarkQueued()) {
+                decrementPending();
+                return b;
+            }
+            else {
+                tombstonePolled(); //a cancelled borrower, already out of the pending count
+            }
+        }
+        return null;
     }
 
     @Override
     void cancelAcquire(Borrower<POOLABLE> borrower) {
-        if (!isDisposed()) { //ignore pool disposed
-            ConcurrentLinkedDeque<Borrower<POOLABLE>> q = this.pending;
-            if (q.remove(borrower)) {
-                PENDING_COUNT.decrementAndGet(this);
-            }
+        if (!isDisposed() && tombstonePending(borrower)) { //ignore pool disposed
+            this.pending.removeIf(b -> b.queued == 0);
         }
     }
 
@@ -82,13 +89,17 @@ final class SimpleLifoPool<POOLABLE> extends SimplePool<POOLABLE> {
         @SuppressWarnings("unchecked")
         ConcurrentLinkedDeque<Borrower<POOLABLE>> q = PENDING.getAndSet(this, TERMINATED);
         if (q != TERMINATED) {
+            stopBackgroundTasks();
+
             Borrower<POOLABLE> p;
             while((p = q.pollFirst()) != null) {
                 p.fail(new RuntimeException("Pool has been shut down"));
             }
+            failFillingBatch();
+            failAwaitingAllocation();
 
             while (!elements.isEmpty()) {
-                destroyPoolable(elements.poll()).subscribe();
+                destroyPoolable(idlePoll()).subscribe();
             }
         }
     }
@@ -16,16 +16,22 @@
 package reactor.pool;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscription;
 
 import reactor.core.CoreSubscriber;
 import reactor.core.Scannable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Operators;
 import reactor.core.scheduler.Scheduler;
@@ -33,6 +39,7 @@ import reactor.core.scheduler.Schedulers;
 import reactor.util.Loggers;
 import reactor.util.annotation.Nullable;
 import reactor.util.concurrent.Queues;
+import reactor.util.context.Context;
 
 /**
  * The {@link SimplePool} is based on queues for idle resources and FIFO or LIFO data structures for
@@ -52,6 +59,11 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
 
     final Queue<QueuePooledRef<POOLABLE>> elements;
 
+    //the exact number of idle resources, maintained by idleOffer/idlePoll so that it can be read without walking elements
+    volatile int                                               idleCount;
+    private static final AtomicIntegerFieldUpdater<SimplePool> IDLE_COUNT = AtomicIntegerFieldUpdater.newUpdater(
+            SimplePool.class, "idleCount");
+
     volatile int                                               acquired;
     private static final AtomicIntegerFieldUpdater<SimplePool> ACQUIRED = AtomicIntegerFieldUpdater.newUpdater(
             SimplePool.class, "acquired");
@@ -60,23 +72,49 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
     private static final AtomicIntegerFieldUpdater<SimplePool> WIP = AtomicIntegerFieldUpdater.newUpdater(
             SimplePool.class, "wip");
 
+    volatile int                                               evictionRequested;
+    private static final AtomicIntegerFieldUpdater<SimplePool> EVICTION_REQUESTED = AtomicIntegerFieldUpdater.newUpdater(
+            SimplePool.class, "evictionRequested");
+
+    volatile int                                               cancelledPending;
+    private static final AtomicIntegerFieldUpdater<SimplePool> CANCELLED_PENDING = AtomicIntegerFieldUpdater.newUpdater(
+            SimplePool.class, "cancelledPending");
+
+    //borrowers for which an allocation was started, served in order by whichever resource comes first: an
+    //allocation or a release. They count as acquired but no longer as pending
+    final Queue<Borrower<POOLABLE>>                            awaitingAllocation;
+
+    //the batch borrower currently being filled, written by the drain loop only
+    @Nullable
+    volatile BatchBorrower<POOLABLE> filling;
+
+    //the group this pool is a shard of, if any
+    @Nullable
+    final ShardedPool<POOLABLE> group;
+
+    /**
+     * The minimum number of cancellations before tombstones are purged from the pending structure.
+     */
+    static final int TOMBSTONES_PURGE_THRESHOLD = 64;
 
     SimplePool(DefaultPoolConfig<POOLABLE> poolConfig) {
+        this(poolConfig, null);
+    }
+
+    /**
+     * @param poolConfig the configuration of the pool
+     * @param group the {@link ShardedPool} this pool is a shard of, if any, in which case the warmup and the
+     * background tasks are left to the group
+     */
+    SimplePool(DefaultPoolConfig<POOLABLE> poolConfig, @Nullable ShardedPool<POOLABLE> group) {
         super(poolConfig, Loggers.getLogger(SimplePool.class));
-        this.elements = Queues.<QueuePooledRef<POOLABLE>>unboundedMultiproducer().get();
+        this.group = group;
+        this.elements = poolConfig.isIdleMru ? new TreiberStack<>() : Queues.<QueuePooledRef<POOLABLE>>unboundedMultiproducer().get();
+        this.awaitingAllocation = new ConcurrentLinkedQueue<>(); //polled by the drain loop and by allocations
 
-        int initSize = poolConfig.allocationStrategy.getPermits(poolConfig.initialSize);
-        for (int i = 0; i < initSize; i++) {
-            long start = metricsRecorder.now();
-            try {
-                POOLABLE poolable = Objects.requireNonNull(poolConfig.allocator.block(), "allocator returned null in constructor");
-                metricsRecorder.recordAllocationSuccessAndLatency(metricsRecorder.measureTime(start));
-                elements.offer(new QueuePooledRef<>(this, poolable)); //the pool slot won't access this pool instance until after it has been constructed
-            }
-            catch (Throwable e) {
-                metricsRecorder.recordAllocationFailureAndLatency(metricsRecorder.measureTime(start));
-                throw e;
-            }
+        if (group == null) {
+            warmupUnlessLazy();
+            startBackgroundTasks();
         }
     }
 
@@ -92,6 +130,76 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
      */
     abstract boolean pendingOffer(Borrower<POOLABLE> pending);
 
+    /**
+     * Count a new pending {@link reactor.pool.AbstractPool.Borrower}, unless the maximum number of pending borrowers
+     * has been reached. When this pool is a shard, that maximum applies to the whole {@link #group}, whose own
+     * count is kept in step with the ones of its shards.
+     *
+     * @return true if the borrower can be registered as pending
+     */
+    final boolean reservePending() {
+        AbstractPool<POOLABLE> limited = group != null ? group : this;
+        int maxPending = poolConfig.maxPending;
+        for (;;) {
+            int currentPending = PENDING_COUNT.get(limited);
+            if (maxPending >= 0 && currentPending == maxPending) {
+                return false;
+            }
+            if (PENDING_COUNT.compareAndSet(limited, currentPending, currentPending + 1)) {
+                if (group != null) {
+                    PENDING_COUNT.incrementAndGet(this);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Take a borrower out of the pending count, including the one of the {@link #group} if this pool is a shard.
+     *
+     * @return the number of borrowers still pending on this pool
+     */
+    final int decrementPending() {
+        if (group != null) {
+            PENDING_COUNT.decrementAndGet(group);
+        }
+        return PENDING_COUNT.decrementAndGet(this);
+    }
+
+    /**
+     * Cancel a pending {@link reactor.pool.AbstractPool.Borrower} in constant time: it is taken out of the
+     * pending count right away but left in the pending structure as a tombstone, which {@link #pendingPoll()}
+     * skips. Tombstones can pile up if nothing is polled, so once there have been more cancellations than
+     * there are live pending borrowers the caller is asked to purge them, amortizing that sweep over the
+     * cancellations.
+     *
+     * @param borrower the cancelled {@link reactor.pool.AbstractPool.Borrower}
+     * @return true if the caller should purge tombstones from its pending structure
+     */
+    final boolean tombstonePending(Borrower<POOLABLE> borrower) {
+        if (!borrower.unmarkQueued()) {
+            return false; //already polled, or not queued yet
+        }
+        int live = decrementPending();
+        int cancelled = CANCELLED_PENDING.incrementAndGet(this);
+        return cancelled >= TOMBSTONES_PURGE_THRESHOLD && cancelled > live
+                && CANCELLED_PENDING.compareAndSet(this, cancelled, 0);
+    }
+
+    /**
+     * Account for a tombstone that {@link #pendingPoll()} dropped from the pending structure, so that only
+     * the tombstones still in there weigh towards a purge. The count is floored at zero, as a purge resetting
+     * it can race with the poll.
+     */
+    final void tombstonePolled() {
+        for (;;) {
+            int cancelled = CANCELLED_PENDING.get(this);
+            if (cancelled == 0 || CANCELLED_PENDING.compareAndSet(this, cancelled, cancelled - 1)) {
+                return;
+            }
+        }
+    }
+
     @Override
     public Mono<PooledRef<POOLABLE>> acquire() {
         return new QueueBorrowerMono<>(this, Duration.ZERO); //the mono is unknown to the pool until requested
@@ -102,6 +210,74 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
         return new QueueBorrowerMono<>(this, timeout); //the mono is unknown to the pool until requested
     }
 
+    @Override
+    Borrower<POOLABLE> newBorrower(CoreSubscriber<? super PooledRef<POOLABLE>> actual, Duration acquireTimeout) {
+        return new Borrower<>(actual, this, acquireTimeout);
+    }
+
+    /**
+     * Hand out an idle resource, or allocate one synchronously, unless borrowers are already waiting for one.
+     * Polling the idle queue requires taking over the drain loop, so this also returns null if the drain loop
+     * is busy at that moment.
+     */
+    @Override
+    @Nullable
+    public PooledRef<POOLABLE> tryAcquire() {
+        if (isDisposed() || pendingCount > 0 || filling != null || !awaitingAllocation.isEmpty()) {
+            return null; //don't overtake the waiting borrowers
+        }
+        long start = metricsRecorder.nowNanos();
+        QueuePooledRef<POOLABLE> slot = tryPollIdle();
+        if (slot != null) {
+            ACQUIRED.incrementAndGet(this);
+            return markTryAcquired(slot, start, false);
+        }
+        POOLABLE poolable = tryAllocateNow();
+        if (poolable == null) {
+            return null;
+        }
+        ACQUIRED.incrementAndGet(this);
+        return markTryAcquired(new QueuePooledRef<>(this, poolable), start, true);
+    }
+
+    /**
+     * Poll an idle resource outside of the drain loop, by running in its stead if it isn't busy, destroying the
+     * resources that match the eviction predicate and starting the validation of the ones that need it on the way.
+     * Any work missed by the drain loop meanwhile is then caught up with.
+     *
+     * @return an idle resource, or null if there is none or if the drain loop is busy
+     */
+    @Nullable
+    private QueuePooledRef<POOLABLE> tryPollIdle() {
+        if (idleCount == 0 || !WIP.compareAndSet(this, 0, 1)) {
+            return null;
+        }
+        QueuePooledRef<POOLABLE> slot;
+        while ((slot = idlePoll()) != null) {
+            if (poolConfig.evictionPredicate.test(slot.poolable, slot)) {
+                destroyPoolable(slot).subscribe(null, e -> drain(), this::drain);
+            }
+            else if (needsValidation(slot)) {
+                validate(slot, this::offerValidated, this::destroyInvalid);
+            }
+            else {
+                break;
+            }
+        }
+        if (WIP.decrementAndGet(this) != 0) {
+            drainLoop();
+        }
+        return slot;
+    }
+
+    /**
+     * Acquire {@code n} resources as a single pending unit: see {@link BatchBorrower}.
+     */
+    @Override
+    Flux<PooledRef<POOLABLE>> acquireBatch(int n) {
+        return new QueueBatchBorrowerFlux<>(this, n); //the flux is unknown to the pool until requested
+    }
+
     @Override
     void doAcquire(Borrower<POOLABLE> borrower) {
         if (isDisposed()) {
@@ -115,12 +291,40 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
 
     @Override
     boolean elementOffer(POOLABLE element) {
-        return elements.offer(new QueuePooledRef<>(this, element));
+        return idleOffer(new QueuePooledRef<>(this, element));
+    }
+
+    @Override
+    void offerAllocated(POOLABLE poolable) {
+        idleOffer(new QueuePooledRef<>(this, poolable));
+        drain();
     }
 
     @Override
     public int idleSize() {
-        return elements.size();
+        return idleCount;
+    }
+
+    /**
+     * Make a resource idle. The {@link #idleCount} is incremented first, so that it never
+     * undercounts the {@link #elements} and a reader may at worst poll a resource that is
+     * about to be offered.
+     */
+    final boolean idleOffer(QueuePooledRef<POOLABLE> slot) {
+        IDLE_COUNT.incrementAndGet(this);
+        return elements.offer(slot);
+    }
+
+    /**
+     * @return the next idle resource, or null if there is none
+     */
+    @Nullable
+    final QueuePooledRef<POOLABLE> idlePoll() {
+        QueuePooledRef<POOLABLE> slot = elements.poll();
+        if (slot != null) {
+            IDLE_COUNT.decrementAndGet(this);
+        }
+        return slot;
     }
 
     @SuppressWarnings("WeakerAccess")
@@ -128,7 +332,7 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
         if (!isDisposed()) {
             if (!poolConfig.evictionPredicate.test(poolSlot.poolable, poolSlot)) {
                 metricsRecorder.recordRecycled();
-                elements.offer(poolSlot);
+                idleOffer(poolSlot);
                 drain();
             }
             else {
@@ -140,68 +344,386 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
         }
     }
 
+    /**
+     * The idle queue only supports a single consumer, so the actual sweep is deferred to the
+     * drain loop, which is the only place where {@link #elements} is polled.
+     */
+    @Override
+    void evictInBackground() {
+        if (!isDisposed()) {
+            EVICTION_REQUESTED.set(this, 1);
+            drain();
+        }
+    }
+
+    @Override
+    void allocateForPending() {
+        drain();
+    }
+
+    /**
+     * Put back a resource that passed validation, to be handed out by the drain loop without being validated again.
+     */
+    private void offerValidated(QueuePooledRef<POOLABLE> slot) {
+        if (isDisposed()) {
+            destroyPoolable(slot).subscribe();
+        }
+        else {
+            idleOffer(slot);
+            drain();
+        }
+    }
+
+    /**
+     * Destroy a resource that failed validation, so that the drain loop moves on to the next idle resource or to
+     * an allocation.
+     */
+    private void destroyInvalid(QueuePooledRef<POOLABLE> slot) {
+        destroyPoolable(slot).subscribe(null, e -> drain(), this::drain);
+    }
+
+    @Override
+    void leaseReclaimed() {
+        ACQUIRED.decrementAndGet(this);
+    }
+
+    @Override
+    AbstractPool<POOLABLE> allocationGroup() {
+        return group != null ? group : this; //the concurrent allocations are limited across all the shards
+    }
+
+    @Override
+    void replenishIdle() {
+        if (group != null) {
+            group.replenishIdle(); //the minimum idle resources are maintained across all the shards
+        }
+        else {
+            super.replenishIdle();
+        }
+    }
+
     void drain() {
         if (WIP.getAndIncrement(this) == 0) {
             drainLoop();
         }
     }
 
+    /**
+     * Must only be called from the drain loop. Polls each idle resource once, destroying the ones
+     * that match the eviction predicate and putting the others back in the idle queue, in the same order.
+     */
+    private void evictIdle() {
+        List<QueuePooledRef<POOLABLE>> kept = new ArrayList<>();
+        for (int toCheck = idleCount; toCheck > 0; toCheck--) {
+            QueuePooledRef<POOLABLE> slot = idlePoll();
+            if (slot == null) {
+                break;
+            }
+            if (shouldEvictInBackground(slot)) {
+                //returns the permit immediately, so pending borrowers are considered by the rest of the loop
+                destroyPoolable(slot).subscribe(null, e -> drain(), this::drain);
+            }
+            else {
+                kept.add(slot);
+            }
+        }
+        offerIdle(kept);
+    }
+
+    /**
+     * Put back resources that were polled from the idle {@link #elements} in that order, so that they keep their
+     * rank: a stack of most recently used resources gets them back in reverse order.
+     */
+    private void offerIdle(List<QueuePooledRef<POOLABLE>> polled) {
+        if (poolConfig.isIdleMru) {
+            for (int i = polled.size() - 1; i >= 0; i--) {
+                idleOffer(polled.get(i));
+            }
+        }
+        else {
+            for (QueuePooledRef<POOLABLE> slot : polled) {
+                idleOffer(slot);
+            }
+        }
+    }
+
+    /**
+     * Must only be called from the drain loop. Allocate a resource for the given {@link BatchBorrower},
+     * for which an allocation slot, a permit and an {@link #acquired} slot have already been obtained.
+     */
+    private void allocate(BatchBorrower<POOLABLE> batch) {
+        long start = metricsRecorder.nowNanos();
+        long adaptiveStart = adaptiveNanos();
+        Mono<POOLABLE> allocator = poolConfig.allocator;
+        Scheduler s = poolConfig.acquisitionScheduler;
+        if (s != Schedulers.immediate())  {
+            allocator = allocator.publishOn(s);
+        }
+        allocator.subscribe(newInstance -> batch.deliver(new QueuePooledRef<>(this, newInstance)),
+                        e -> {
+                            metricsRecorder.recordAllocationFailureAndLatencyNanos(metricsRecorder.measureNanos(start));
+                            ACQUIRED.decrementAndGet(this);
+                            poolConfig.allocationStrategy.returnPermits(1);
+                            batch.fail(e);
+                            endAllocation();
+                            drain();
+                        },
+                        () -> {
+                            recordAllocationSuccess(start, adaptiveStart);
+                            endAllocation();
+                        });
+    }
+
+    /**
+     * Must only be called from the drain loop. Allocate a resource on behalf of the {@link #awaitingAllocation}
+     * borrowers, for which an allocation slot and a permit have already been obtained. The new resource is not
+     * bound to the borrower that triggered the allocation: it goes to whichever awaiting borrower is first in
+     * line, or to the idle queue if they were all served by releases in the meantime, so that a slow allocation
+     * doesn't hold back a borrower that a release could serve. Likewise, a failed allocation fails the first
+     * awaiting borrower in line, if any.
+     */
+    private void allocateForAwaiting() {
+        long start = metricsRecorder.nowNanos();
+        long adaptiveStart = adaptiveNanos();
+        poolConfig.allocator.subscribe(newInstance -> {
+                            QueuePooledRef<POOLABLE> slot = new QueuePooledRef<>(this, newInstance);
+                            Borrower<POOLABLE> borrower = awaitingAllocation.poll();
+                            if (borrower != null) {
+                                //a cancelled borrower releases the resource, which then goes to the next one in line
+                                poolConfig.acquisitionScheduler.schedule(() -> borrower.deliver(slot));
+                            }
+                            else if (isDisposed()) {
+                                destroyPoolable(slot).subscribe();
+                            }
+                            else {
+                                idleOffer(slot);
+                                drain();
+                            }
+                        },
+                        e -> {
+                            metricsRecorder.recordAllocationFailureAndLatencyNanos(metricsRecorder.measureNanos(start));
+                            poolConfig.allocationStrategy.returnPermits(1);
+                            Borrower<POOLABLE> borrower = awaitingAllocation.poll();
+                            if (borrower != null) {
+                                ACQUIRED.decrementAndGet(this);
+                                borrower.fail(e);
+                            }
+                            else {
+                                logger.debug("Allocation failed after the borrowers awaiting it were served", e);
+                            }
+                            endAllocation();
+                            drain();
+                        },
+                        () -> {
+                            recordAllocationSuccess(start, adaptiveStart);
+                            endAllocation();
+                        });
+    }
+
+    /**
+     * Must only be called from the drain loop. Make the given {@link BatchBorrower}, which was just polled from the
+     * pending structure, the batch currently being filled. It still counts as pending until it is filled.
+     */
+    private void startFilling(BatchBorrower<POOLABLE> batch) {
+        PENDING_COUNT.incrementAndGet(this);
+        if (group != null) {
+            PENDING_COUNT.incrementAndGet(group);
+        }
+        this.filling = batch;
+    }
+
+    /**
+     * Must only be called from the drain loop. Assign the idle resources to the batch, then get the permits for all
+     * the resources it still misses in one step and allocate them. Only one batch is filled at a time, while the other
+     * pending borrowers wait, so batches cannot deadlock each other by holding part of the resources they need.
+     *
+     * @return true if the batch doesn't need the drain loop anymore, because all its resources are assigned or
+     * because it was cancelled or failed (in which case it releases the resources that were assigned to it)
+     */
+    private boolean fillBatch(BatchBorrower<POOLABLE> batch) {
+        if (batch.get()) {
+            return true;
+        }
+        int missing = batch.size - batch.assigned;
+        while (missing > 0) {
+            QueuePooledRef<POOLABLE> slot = idlePoll();
+            if (slot == null) {
+                break;
+            }
+            if (poolConfig.evictionPredicate.test(slot.poolable, slot)) {
+                destroyPoolable(slot).subscribe(null, e -> drain(), this::drain);
+                continue;
+            }
+            if (needsValidation(slot)) {
+                validate(slot, this::offerValidated, this::destroyInvalid);
+                continue;
+            }
+            ACQUIRED.incrementAndGet(this);
+            batch.assigned++;
+            missing--;
+            poolConfig.acquisitionScheduler.schedule(() -> batch.deliver(slot));
+        }
+        if (missing > 0) {
+            int slots = startAllocations(missing);
+            int permits = poolConfig.allocationStrategy.getPermits(slots);
+            if (permits < slots) {
+                cancelAllocations(slots - permits);
+            }
+            if (permits > 0) {
+                batch.allocating = true;
+            }
+            for (int i = 0; i < permits; i++) {
+                ACQUIRED.incrementAndGet(this);
+                batch.assigned++;
+                allocate(batch);
+            }
+            missing -= permits;
+        }
+        if (missing == 0) {
+            batch.markServed(false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fail the batch currently being filled, if any, upon disposal of the pool.
+     */
+    void failFillingBatch() {
+        BatchBorrower<POOLABLE> batch = this.filling;
+        if (batch != null) {
+            batch.fail(new RuntimeException("Pool has been shut down"));
+        }
+    }
+
+    /**
+     * Fail the borrowers awaiting an allocation, upon disposal of the pool.
+     */
+    void failAwaitingAllocation() {
+        Borrower<POOLABLE> borrower;
+        while ((borrower = awaitingAllocation.poll()) != null) {
+            ACQUIRED.decrementAndGet(this);
+            borrower.fail(new RuntimeException("Pool has been shut down"));
+        }
+    }
+
     private void drainLoop() {
         int missed = 1;
 
         for (;;) {
-            int availableCount = elements.size();
-            int pendingCount = PENDING_COUNT.get(this);
-            int permits = poolConfig.allocationStrategy.estimatePermitCount();
-
-            if (availableCount == 0) {
-                if (pendingCount > 0 && permits > 0) {
-                    final Borrower<POOLABLE> borrower = pendingPoll(); //shouldn't be null
-                    if (borrower == null) {
+            if (evictionRequested == 1 && EVICTION_REQUESTED.compareAndSet(this, 1, 0)) {
+                evictIdle();
+            }
+
+            BatchBorrower<POOLABLE> batch = this.filling;
+            if (batch != null) {
+                if (fillBatch(batch)) {
+                    this.filling = null;
+                    decrementPending();
+                    continue;
+                }
+                //the batch still misses resources: other pending borrowers wait behind it
+                if (group != null) {
+                    group.stealFor(this);
+                }
+            }
+            else {
+                int availableCount = idleCount;
+                int pendingCount = PENDING_COUNT.get(this);
+                int permits = poolConfig.allocationStrategy.estimatePermitCount();
+
+                if (availableCount == 0) {
+                    //borrowers that can't get an allocation slot stay pending, to be served by the first release
+                    if (pendingCount > 0 && permits > 0 && startAllocations(1) == 1) {
+                        //the permit is obtained before polling, as it can be raced for by other shards
+                        if (poolConfig.allocationStrategy.getPermits(1) != 1) {
+                            cancelAllocations(1);
+                            continue;
+                        }
+                        final Borrower<POOLABLE> borrower = pendingPoll(); //shouldn't be null
+                        if (borrower == null || borrower instanceof BatchBorrower || borrower.get()) {
+                            poolConfig.allocationStrategy.returnPermits(1);
+                            cancelAllocations(1);
+                            if (borrower instanceof BatchBorrower) {
+                                startFilling((BatchBorrower<POOLABLE>) borrower);
+                            }
+                            continue;
+                        }
+                        ACQUIRED.incrementAndGet(this);
+                        borrower.markServed(true);
+                        awaitingAllocation.offer(borrower);
+                        allocateForAwaiting();
+                        //several permits may have been made available at once, see allocateForPending()
                         continue;
                     }
-                    ACQUIRED.incrementAndGet(this);
-                    if (borrower.get() || poolConfig.allocationStrategy.getPermits(1) != 1) {
-                        ACQUIRED.decrementAndGet(this);
-                        continue;
+                    else if (pendingCount > 0) {
+                        if (group != null) {
+                            group.stealFor(this);
+                        }
                     }
-                    borrower.stopPendingCountdown();
-                    long start = metricsRecorder.now();
-                    Mono<POOLABLE> allocator = poolConfig.allocator;
-                    Scheduler s = poolConfig.acquisitionScheduler;
-                    if (s != Schedulers.immediate())  {
-                        allocator = allocator.publishOn(s);
+                    else if (permits > 0 && group != null && canStartAllocation()) {
+                        //a permit may have been returned here while another shard starves for one
+                        SimplePool<POOLABLE> starved = group.findStarved(this);
+                        if (starved != null) {
+                            starved.drain();
+                        }
                     }
-                    allocator.subscribe(newInstance -> borrower.deliver(new QueuePooledRef<>(this, newInstance)),
-                                    e -> {
-                                        metricsRecorder.recordAllocationFailureAndLatency(metricsRecorder.measureTime(start));
-                                        ACQUIRED.decrementAndGet(this);
-                                        poolConfig.allocationStrategy.returnPermits(1);
-                                        borrower.fail(e);
-                                    },
-                                    () -> metricsRecorder.recordAllocationSuccessAndLatency(metricsRecorder.measureTime(start)));
                 }
-            }
-            else if (pendingCount > 0) {
-                //there are objects ready and unclaimed in the pool + a pending
-                QueuePooledRef<POOLABLE> slot = elements.poll();
-                if (slot == null) continue;
+                else if (pendingCount > 0 || !awaitingAllocation.isEmpty()) {
+                    //there are objects ready and unclaimed in the pool + a pending
+                    QueuePooledRef<POOLABLE> slot = idlePoll();
+                    if (slot == null) continue;
 
-                //TODO test the idle eviction scenario
-                if (poolConfig.evictionPredicate.test(slot.poolable, slot)) {
-                    destroyPoolable(slot).subscribe(null, e -> drain(), this::drain);
-                    continue;
+                    //TODO test the idle eviction scenario
+                    if (poolConfig.evictionPredicate.test(slot.poolable, slot)) {
+                        destroyPoolable(slot).subscribe(null, e -> drain(), this::drain);
+                        continue;
+                    }
+
+                    //the resource comes back through offerValidated if it passes, or else frees its permit
+                    if (needsValidation(slot)) {
+                        validate(slot, this::offerValidated, this::destroyInvalid);
+                        continue;
+                    }
+
+                    //the borrowers awaiting an allocation are first in line, as they were polled earlier
+                    Borrower<POOLABLE> awaitingBorrower = awaitingAllocation.poll();
+                    if (awaitingBorrower != null) {
+                        poolConfig.acquisitionScheduler.schedule(() -> awaitingBorrower.deliver(slot));
+                        continue;
+                    }
+
+                    //there is a party currently pending acquiring
+                    Borrower<POOLABLE> inner = pendingPoll();
+                    if (inner == null) {
+                        idleOffer(slot);
+                        continue;
+                    }
+                    if (inner instanceof BatchBorrower) {
+                        idleOffer(slot);
+                        startFilling((BatchBorrower<POOLABLE>) inner);
+                        continue;
+                    }
+                    inner.markServed(false);
+                    ACQUIRED.incrementAndGet(this);
+                    poolConfig.acquisitionScheduler.schedule(() -> inner.deliver(slot));
+                    if (group != null) {
+                        //a shard may have been handed a single resource: look again, to steal more if it still starves
+                        continue;
+                    }
                 }
+                else if (group != null) {
+                    //idle resources but no local borrower: hand them over to a shard that ran dry, one at a time
+                    SimplePool<POOLABLE> starved = group.findStarved(this);
+                    if (starved != null) {
+                        QueuePooledRef<POOLABLE> slot = idlePoll();
+                        if (slot == null) continue;
 
-                //there is a party currently pending acquiring
-                Borrower<POOLABLE> inner = pendingPoll();
-                if (inner == null) {
-                    elements.offer(slot);
-                    continue;
+                        starved.idleOffer(slot);
+                        starved.drain();
+                        continue;
+                    }
                 }
-                inner.stopPendingCountdown();
-                ACQUIRED.incrementAndGet(this);
-                poolConfig.acquisitionScheduler.schedule(() -> inner.deliver(slot));
             }
 
             missed = WIP.addAndGet(this, -missed);
@@ -222,6 +744,10 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
 
         @Override
         public Mono<Void> release() {
+            if (!endLease()) {
+                //already invalidated by the pool, as it was held for too long
+                return Mono.empty();
+            }
             if (pool.isDisposed()) {
                 ACQUIRED.decrementAndGet(pool); //immediately clean up state
                 markReleased();
@@ -244,8 +770,13 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
         @Override
         public Mono<Void> invalidate() {
             return Mono.defer(() -> {
+                if (!endLease()) {
+                    //already invalidated by the pool, as it was held for too long
+                    return Mono.empty();
+                }
                 //immediately clean up state
                 ACQUIRED.decrementAndGet(pool);
+                untrackLease();
                 return pool.destroyPoolable(this).then(Mono.fromRunnable(pool::drain));
             });
         }
@@ -269,6 +800,161 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
         }
     }
 
+    static final class QueueBatchBorrowerFlux<T> extends Flux<PooledRef<T>> {
+
+        final SimplePool<T> parent;
+        final int           size;
+
+        QueueBatchBorrowerFlux(SimplePool<T> pool, int size) {
+            this.parent = pool;
+            this.size = size;
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super PooledRef<T>> actual) {
+            Objects.requireNonNull(actual, "subscribing with null");
+            BatchBorrower<T> borrower = new BatchBorrower<>(actual, parent, size);
+            actual.onSubscribe(borrower);
+        }
+    }
+
+    /**
+     * A {@link reactor.pool.AbstractPool.Borrower} of several resources at once. It takes a single slot in the pending
+     * structure, and once polled the drain loop fills it with all the idle resources plus as many allocations as it can
+     * get permits for in one step, until it has all the resources it needs (see {@link #fillBatch(BatchBorrower)}).
+     * The resources are only emitted once all of them have been received. If the batch is cancelled or fails, the
+     * resources it received (or receives later) are released.
+     */
+    static final class BatchBorrower<POOLABLE> extends Borrower<POOLABLE> {
+
+        final SimplePool<POOLABLE>                                 parent;
+        final int                                                  size;
+        final AtomicReferenceArray<AbstractPooledRef<POOLABLE>>    refs;
+
+        //number of resources assigned by the drain loop, only accessed from the drain loop
+        int assigned;
+        //only accessed from the emission loop
+        int     emitted;
+        boolean ready;
+
+        volatile int                                           started;
+        static final AtomicIntegerFieldUpdater<BatchBorrower> STARTED = AtomicIntegerFieldUpdater.newUpdater(BatchBorrower.class, "started");
+
+        volatile int                                           received;
+        static final AtomicIntegerFieldUpdater<BatchBorrower> RECEIVED = AtomicIntegerFieldUpdater.newUpdater(BatchBorrower.class, "received");
+
+        //incremented after a received resource is stored, so that the emission loop sees all the stored resources
+        volatile int                                           arrived;
+        static final AtomicIntegerFieldUpdater<BatchBorrower> ARRIVED = AtomicIntegerFieldUpdater.newUpdater(BatchBorrower.class, "arrived");
+
+        volatile long                                       requested;
+        static final AtomicLongFieldUpdater<BatchBorrower> REQUESTED = AtomicLongFieldUpdater.newUpdater(BatchBorrower.class, "requested");
+
+        volatile int                                           wip;
+        static final AtomicIntegerFieldUpdater<BatchBorrower> WIP = AtomicIntegerFieldUpdater.newUpdater(BatchBorrower.class, "wip");
+
+        BatchBorrower(CoreSubscriber<? super AbstractPooledRef<POOLABLE>> actual, SimplePool<POOLABLE> pool, int size) {
+            super(actual, pool, Duration.ZERO);
+            this.parent = pool;
+            this.size = size;
+            this.refs = new AtomicReferenceArray<>(size);
+        }
+
+        @Override
+        public void request(long n) {
+            if (Operators.validate(n)) {
+                Operators.addCap(REQUESTED, this, n);
+                if (STARTED.compareAndSet(this, 0, 1)) {
+                    requestNanos = parent.metricsRecorder.nowNanos();
+                    pendingSinceNanos = parent.adaptiveNanos();
+                    expectPending = parent.idleSize() + parent.poolConfig.allocationStrategy.estimatePermitCount() < size;
+                    parent.doAcquire(this);
+                }
+                drainEmission();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (compareAndSet(false, true)) {
+                parent.cancelAcquire(this);
+                parent.drain(); //in case the batch was being filled
+            }
+            drainEmission();
+        }
+
+        @Override
+        void deliver(AbstractPooledRef<POOLABLE> poolSlot) {
+            refs.set(RECEIVED.getAndIncrement(this), poolSlot);
+            ARRIVED.incrementAndGet(this);
+            drainEmission();
+        }
+
+        @Override
+        void fail(Throwable error) {
+            if (compareAndSet(false, true)) {
+                actual.onError(error);
+            }
+            drainEmission();
+        }
+
+        void drainEmission() {
+            if (WIP.getAndIncrement(this) != 0) {
+                return;
+            }
+            int missed = 1;
+            for (;;) {
+                if (get()) {
+                    //cancelled or failed: release whatever was received and not emitted
+                    for (int i = emitted; i < size; i++) {
+                        AbstractPooledRef<POOLABLE> ref = refs.getAndSet(i, null);
+                        if (ref != null) {
+                            ref.release().subscribe(aVoid -> {}, e -> Operators.onErrorDropped(e, Context.empty())); //actual mustn't receive onError
+                        }
+                    }
+                }
+                else if (ready || arrived == size) {
+                    if (!ready) {
+                        ready = true;
+                        recordPendingTime();
+                        for (int i = 0; i < size; i++) {
+                            AbstractPooledRef<POOLABLE> ref = refs.get(i);
+                            ref.markAcquired();
+                            pool.trackLease(ref);
+                        }
+                        recordAcquireLatency();
+                    }
+                    long r = requested;
+                    while (emitted < size && emitted < r && !get()) {
+                        AbstractPooledRef<POOLABLE> ref = refs.getAndSet(emitted, null);
+                        emitted++;
+                        actual.onNext(ref);
+                    }
+                    if (emitted == size && compareAndSet(false, true)) {
+                        actual.onComplete();
+                    }
+                }
+
+                missed = WIP.addAndGet(this, -missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        @Nullable
+        public Object scanUnsafe(Attr key) {
+            if (key == Attr.REQUESTED_FROM_DOWNSTREAM) return requested;
+            return super.scanUnsafe(key);
+        }
+
+        @Override
+        public String toString() {
+            return get() ? "BatchBorrower(" + size + ", terminated)" : "BatchBorrower(" + size + ")";
+        }
+    }
+
     private static final class QueuePoolRecyclerInner<T> implements CoreSubscriber<Void>, Scannable, Subscription {
 
         final CoreSubscriber<? super Void> actual;
@@ -294,7 +980,7 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
             if (Operators.validate(upstream, s)) {
                 this.upstream = s;
                 actual.onSubscribe(this);
-                this.start = pool.metricsRecorder.now();
+                this.start = pool.metricsRecorder.nowNanos();
             }
         }
 
@@ -319,7 +1005,7 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
             }
 
             //TODO should we separate reset errors?
-            pool.metricsRecorder.recordResetLatency(pool.metricsRecorder.measureTime(start));
+            pool.metricsRecorder.recordResetLatencyNanos(pool.metricsRecorder.measureNanos(start));
 
             pool.destroyPoolable(slot).subscribe(null, null, pool::drain); //TODO manage errors?
 
@@ -340,7 +1026,7 @@ abstract class SimplePool<POOLABLE> extends AbstractPool<POOLABLE> {
                 ACQUIRED.decrementAndGet(pool);
             }
 
-            pool.metricsRecorder.recordResetLatency(pool.metricsRecorder.measureTime(start));
+            pool.metricsRecorder.recordResetLatencyNanos(pool.metricsRecorder.measureNanos(start));
 
             pool.maybeRecycleAndDrain(slot);
             actual.onComplete();
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import reactor.util.annotation.Nullable;
+
+/**
+ * An unbounded lock-free stack (Treiber's algorithm) exposed as a {@link java.util.Queue} whose {@link #offer(Object)}
+ * pushes and whose {@link #poll()} pops, so that it can replace the idle queue of a {@link Pool} in order to reuse the
+ * most recently released resource first. It supports several concurrent producers and consumers.
+ * <p>
+ * {@link #size()} walks the whole stack, and the {@link #iterator()} is weakly consistent and doesn't support removal.
+ */
+final class TreiberStack<E> extends AbstractQueue<E> {
+
+    volatile     Node<E>                                            head;
+    @SuppressWarnings("rawtypes")
+    static final AtomicReferenceFieldUpdater<TreiberStack, Node> HEAD = AtomicReferenceFieldUpdater.newUpdater(TreiberStack.class, Node.class, "head");
+
+    @Override
+    public boolean offer(E e) {
+        Node<E> node = new Node<>(Objects.requireNonNull(e, "e"));
+        for (;;) {
+            Node<E> h = head;
+            node.next = h;
+            if (HEAD.compareAndSet(this, h, node)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    @Nullable
+    public E poll() {
+        for (;;) {
+            Node<E> h = head;
+            if (h == null) {
+                return null;
+            }
+            //a popped node is never pushed again, so there is no ABA issue
+            if (HEAD.compareAndSet(this, h, h.next)) {
+                return h.item;
+            }
+        }
+    }
+
+    @Override
+    @Nullable
+    public E peek() {
+        Node<E> h = head;
+        return h == null ? null : h.item;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Node<E> n = head; n != null && size < Integer.MAX_VALUE; n = n.next) {
+            size++;
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            Node<E> next = head;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                Node<E> n = next;
+                if (n == null) {
+                    throw new NoSuchElementException();
+                }
+                next = n.next;
+                return n.item;
+            }
+        };
+    }
+
+    static final class Node<E> {
+
+        final E item;
+        Node<E> next;
+
+        Node(E item) {
+            this.item = item;
+        }
+    }
+}
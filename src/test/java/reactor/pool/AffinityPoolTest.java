@@ -44,12 +44,15 @@ import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.reactivestreams.Subscription;
 
+import reactor.core.Disposable;
 import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.pool.AbstractPool.DefaultPoolConfig;
 import reactor.pool.TestUtils.PoolableTest;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
@@ -408,6 +411,259 @@ class AffinityPoolTest {
         }
     }
 
+    @ParameterizedTest
+    @ValueSource(strings ={"true", "false"})
+    void subPoolsOfDeadThreadsAreRetired(boolean lifo) throws InterruptedException {
+        AffinityPool<Integer> pool = new AffinityPool<>(
+                PoolBuilder.from(Mono.just(1))
+                           .threadAffinity(true)
+                           .lifo(lifo)
+                           .sizeMax(1)
+                           .buildConfig());
+
+        for (int i = 0; i < 100; i++) {
+            Thread thread = new Thread(() -> pool.acquire().flatMap(PooledRef::release).block(), "churn" + i);
+            thread.start();
+            thread.join();
+        }
+
+        assertThat(pool.pools.size()).as("sub-pools").isLessThanOrEqualTo(AffinityPool.MIN_RETIRE_THRESHOLD);
+
+        pool.retireDeadSubPools();
+        assertThat(pool.pools).as("all threads dead").isEmpty();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings ={"true", "false"})
+    void pendingBorrowersOfDeadThreadAreMigrated(boolean lifo) throws InterruptedException {
+        AffinityPool<Integer> pool = new AffinityPool<>(
+                PoolBuilder.from(Mono.just(1))
+                           .threadAffinity(true)
+                           .lifo(lifo)
+                           .sizeMax(1)
+                           .buildConfig());
+        PooledRef<Integer> held = pool.acquire().block();
+        assertThat(held).isNotNull();
+
+        AtomicReference<PooledRef<Integer>> migrated = new AtomicReference<>();
+        AtomicReference<Long> deadThreadId = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            deadThreadId.set(Thread.currentThread().getId());
+            pool.acquire().subscribe(migrated::set);
+        });
+        thread.start();
+        thread.join();
+        assertThat(pool.pendingAcquireSize()).as("pending").isOne();
+
+        pool.retireDeadSubPools();
+
+        assertThat(pool.pools).as("dead sub-pool retired").doesNotContainKey(deadThreadId.get());
+        assertThat(pool.pendingAcquireSize()).as("still pending after migration").isOne();
+
+        held.release().block();
+
+        assertThat(migrated.get()).as("migrated borrower served").isNotNull();
+        assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings ={"true", "false"})
+    void pendingBorrowerIsCancelledFromItsSubPool(boolean lifo) {
+        AffinityPool<Integer> pool = new AffinityPool<>(
+                PoolBuilder.from(Mono.just(1))
+                           .threadAffinity(true)
+                           .lifo(lifo)
+                           .sizeMax(1)
+                           .buildConfig());
+        PooledRef<Integer> held = pool.acquire().block();
+        assertThat(held).isNotNull();
+
+        AtomicReference<Subscription> borrowerRef = new AtomicReference<>();
+        BaseSubscriber<PooledRef<Integer>> subscriber = new BaseSubscriber<PooledRef<Integer>>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                borrowerRef.set(subscription);
+                subscription.request(1);
+            }
+        };
+        pool.acquire().subscribe(subscriber);
+
+        @SuppressWarnings("unchecked")
+        AffinityPool.AffinityBorrower<Integer> borrower = (AffinityPool.AffinityBorrower<Integer>) borrowerRef.get();
+        assertThat(borrower.subPool).as("owning subpool").isSameAs(pool.pools.get(Thread.currentThread().getId()));
+        assertThat(pool.readySubPools).as("ready subpools").containsExactly(borrower.subPool);
+
+        subscriber.dispose();
+
+        assertThat(pool.pendingAcquireSize()).as("pending after cancel").isZero();
+        assertThat(borrower.subPool.isLocalEmpty()).as("removed from subpool").isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings ={"true", "false"})
+    void cancelledPendingAreTombstonedAndPurged(boolean lifo) {
+        AffinityPool<Integer> pool = new AffinityPool<>(
+                PoolBuilder.from(Mono.just(1))
+                           .threadAffinity(true)
+                           .lifo(lifo)
+                           .sizeMax(1)
+                           .buildConfig());
+        PooledRef<Integer> held = pool.acquire().block();
+        assertThat(held).isNotNull();
+
+        AtomicReference<PooledRef<Integer>> survivorRef = new AtomicReference<>();
+        Disposable[] borrowers = new Disposable[1000];
+        for (int i = 0; i < borrowers.length; i++) {
+            borrowers[i] = i == 500 ? pool.acquire().subscribe(survivorRef::set) : pool.acquire().subscribe();
+        }
+        AffinityPool.SubPool<Integer> subPool = pool.pools.get(Thread.currentThread().getId());
+        assertThat(pool.pendingAcquireSize()).as("all pending").isEqualTo(1000);
+
+        for (int i = 0; i < borrowers.length; i++) {
+            if (i != 500) {
+                borrowers[i].dispose();
+            }
+        }
+
+        assertThat(pool.pendingAcquireSize()).as("pending after cancellations").isOne();
+        assertThat(subPool.isLocalEmpty()).as("survivor still pending").isFalse();
+        int localSize = lifo ? ((AffinityPool.LifoSubPool<Integer>) subPool).localPendings.size()
+                : ((AffinityPool.FifoSubPool<Integer>) subPool).localPendings.size();
+        assertThat(localSize).as("tombstones purged").isLessThanOrEqualTo(SimplePool.TOMBSTONES_PURGE_THRESHOLD + 1);
+
+        held.release().block();
+
+        assertThat(survivorRef.get()).as("survivor served").isNotNull();
+        assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings ={"true", "false"})
+    void borrowerCancelledWhileMigratingIsNotReEnqueued(boolean lifo) {
+        AffinityPool<Integer> pool = new AffinityPool<>(
+                PoolBuilder.from(Mono.just(1))
+                           .threadAffinity(true)
+                           .lifo(lifo)
+                           .sizeMax(1)
+                           .buildConfig());
+        PooledRef<Integer> held = pool.acquire().block();
+        assertThat(held).isNotNull();
+
+        BaseSubscriber<PooledRef<Integer>> subscriber = new BaseSubscriber<PooledRef<Integer>>() {};
+        pool.acquire().subscribe(subscriber);
+        AffinityPool.SubPool<Integer> retired = pool.pools.get(Thread.currentThread().getId());
+
+        //interleave a cancellation in the middle of a migration
+        AffinityPool.AffinityBorrower<Integer> migrating = retired.pollLocal();
+        assertThat(migrating).as("polled for migration").isNotNull();
+        subscriber.dispose();
+        assertThat(pool.pendingAcquireSize()).as("cancellation missed the borrower").isOne();
+
+        AffinityPool.SubPool<Integer> target = lifo ? new AffinityPool.LifoSubPool<>(pool, null) : new AffinityPool.FifoSubPool<>(pool, null);
+        target.enqueue(migrating);
+
+        assertThat(pool.pendingAcquireSize()).as("pending after migration").isZero();
+        assertThat(target.pollLocal()).as("not left in the target subpool").isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings ={"true", "false"})
+    void slowPathOnlyLooksAtReadySubPools(boolean lifo) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            AffinityPool<Integer> pool = new AffinityPool<>(
+                    PoolBuilder.from(Mono.just(1))
+                               .threadAffinity(true)
+                               .lifo(lifo)
+                               .sizeMax(1)
+                               .buildConfig());
+            PooledRef<Integer> held = pool.acquire().block();
+            assertThat(held).isNotNull();
+
+            //touch the pool from many threads without leaving pending borrowers
+            for (int i = 0; i < 8; i++) {
+                executor.submit(() -> pool.acquire().subscribe().dispose()).get();
+            }
+            assertThat(pool.readySubPools.size()).as("stale ready subpools are drained lazily").isLessThanOrEqualTo(8);
+
+            AtomicReference<PooledRef<Integer>> served = new AtomicReference<>();
+            pool.acquire().subscribe(served::set);
+            executor.submit(() -> held.release().block()).get();
+
+            assertThat(served.get()).as("pending borrower served").isNotNull();
+            assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+            assertThat(pool.readySubPools).as("no ready subpool left").isEmpty();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings ={"true", "false"})
+    void releasedResourceIsHandedBackToItsAffinityKey(boolean lifo) {
+        AtomicInteger allocations = new AtomicInteger();
+        AffinityPool<Integer> pool = new AffinityPool<>(
+                PoolBuilder.from(Mono.fromCallable(allocations::incrementAndGet))
+                           .affinityKey(ctx -> ctx.getOrDefault("loop", null))
+                           .lifo(lifo)
+                           .sizeMax(2)
+                           .buildConfig());
+        PooledRef<Integer> heldA = pool.acquire().subscriberContext(Context.of("loop", "A")).block();
+        PooledRef<Integer> heldB = pool.acquire().subscriberContext(Context.of("loop", "B")).block();
+        assertThat(heldA.poolable()).as("allocated for A").isEqualTo(1);
+        assertThat(heldB.poolable()).as("allocated for B").isEqualTo(2);
+
+        AtomicReference<PooledRef<Integer>> servedB = new AtomicReference<>();
+        AtomicReference<PooledRef<Integer>> servedA = new AtomicReference<>();
+        pool.acquire().subscriberContext(Context.of("loop", "B")).subscribe(servedB::set);
+        pool.acquire().subscriberContext(Context.of("loop", "A")).subscribe(servedA::set);
+        assertThat(pool.pendingAcquireSize()).as("pending").isEqualTo(2);
+
+        heldA.release().block();
+        assertThat(servedB.get()).as("B still pending").isNull();
+        assertThat(servedA.get()).as("A served").isNotNull();
+        assertThat(servedA.get().poolable()).as("A served its own resource").isEqualTo(1);
+
+        heldB.release().block();
+        assertThat(servedB.get()).as("B served").isNotNull();
+        assertThat(servedB.get().poolable()).as("B served its own resource").isEqualTo(2);
+    }
+
+    @Test
+    void affinityKeySubPoolsAreNotRetiredAndNullKeyFallsBackToThread() throws InterruptedException {
+        AffinityPool<Integer> pool = new AffinityPool<>(
+                PoolBuilder.from(Mono.just(1))
+                           .affinityKey(ctx -> ctx.getOrDefault("loop", null))
+                           .sizeMax(1)
+                           .buildConfig());
+
+        Thread thread = new Thread(() -> pool.acquire()
+                                             .subscriberContext(Context.of("loop", 1))
+                                             .flatMap(PooledRef::release)
+                                             .block());
+        thread.start();
+        thread.join();
+        pool.acquire().flatMap(PooledRef::release).block();
+
+        assertThat(pool.pools).as("keyed and thread sub-pools")
+                              .containsOnlyKeys(new AffinityPool.AffinityKey(1), Thread.currentThread().getId());
+
+        pool.retireDeadSubPools();
+        assertThat(pool.pools).as("keyed sub-pool kept").containsKey(new AffinityPool.AffinityKey(1));
+    }
+
+    @Test
+    void affinityKeyResolverErrorFailsBorrower() {
+        AffinityPool<Integer> pool = new AffinityPool<>(
+                PoolBuilder.from(Mono.just(1))
+                           .affinityKey(ctx -> { throw new IllegalStateException("boom"); })
+                           .buildConfig());
+
+        StepVerifier.create(pool.acquire())
+                    .verifyErrorMessage("boom");
+    }
+
     @ParameterizedTest
     @CsvSource({"1, true", "1, false", "3, true", "3, false", "10, true", "10, false", "100, true", "100, false"})
     @Tag("metrics")
@@ -29,12 +29,14 @@ import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import reactor.pool.AllocationStrategies.AdaptiveAllocationStrategy;
 import reactor.pool.AllocationStrategies.SizeBasedAllocationStrategy;
 import reactor.pool.AllocationStrategies.UnboundedAllocationStrategy;
 import reactor.util.Logger;
 import reactor.util.Loggers;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 /**
  * @author Simon Baslé
@@ -296,4 +298,94 @@ class AllocationStrategiesTest {
         }
     }
 
-}
\ No newline at end of file
+    @DisplayName("adaptive")
+    @Nested
+    @SuppressWarnings("ClassCanBeStatic")
+    class AdaptiveTest {
+
+        final long target = TimeUnit.MILLISECONDS.toNanos(10);
+
+        @Test
+        void startsAtMin() {
+            AdaptiveAllocationStrategy test = new AdaptiveAllocationStrategy(3, 10, target);
+
+            assertThat(test.getPermits(5)).as("permits").isEqualTo(3);
+            assertThat(test.estimatePermitCount()).as("remaining").isZero();
+            assertThat(test.permitMaximum()).as("maximum").isEqualTo(10);
+        }
+
+        @Test
+        void zeroMinStartsAtOne() {
+            AdaptiveAllocationStrategy test = new AdaptiveAllocationStrategy(0, 10, target);
+
+            assertThat(test.estimatePermitCount()).isOne();
+        }
+
+        @Test
+        void rejectsInvalidBounds() {
+            assertThatIllegalArgumentException().isThrownBy(() -> new AdaptiveAllocationStrategy(-1, 10, target));
+            assertThatIllegalArgumentException().isThrownBy(() -> new AdaptiveAllocationStrategy(5, 4, target));
+            assertThatIllegalArgumentException().isThrownBy(() -> new AdaptiveAllocationStrategy(1, 4, 0));
+        }
+
+        @Test
+        void growsWhenPendingLongerThanTarget() {
+            AdaptiveAllocationStrategy test = new AdaptiveAllocationStrategy(1, 10, target);
+            test.getPermits(1);
+
+            test.recordPendingTime(target / 2);
+            assertThat(test.adapt(3, 0)).as("pending below target").isZero();
+
+            assertThat(test.adapt(3, 0)).as("still pending at next sample").isEqualTo(3);
+            assertThat(test.estimatePermitCount()).as("new permits").isEqualTo(3);
+        }
+
+        @Test
+        void growthIsBoundedByMax() {
+            AdaptiveAllocationStrategy test = new AdaptiveAllocationStrategy(1, 4, target);
+            for (int i = 0; i < 20; i++) {
+                test.recordPendingTime(target * 2);
+            }
+
+            assertThat(test.adapt(100, 0)).as("change").isEqualTo(3);
+            assertThat(test.adapt(100, 0)).as("no more change").isZero();
+        }
+
+        @Test
+        void doesntGrowWhenAllocatingIsSlowerThanWaiting() {
+            AdaptiveAllocationStrategy test = new AdaptiveAllocationStrategy(1, 10, target);
+            for (int i = 0; i < 20; i++) {
+                test.recordPendingTime(target * 2);
+                test.recordAllocationLatency(target * 10);
+            }
+
+            assertThat(test.adapt(3, 0)).isZero();
+        }
+
+        @Test
+        void shrinksByHalfWhenIdleWithoutPending() {
+            AdaptiveAllocationStrategy test = new AdaptiveAllocationStrategy(1, 16, target);
+            test.recordPendingTime(target * 8);
+            test.adapt(15, 0);
+            assertThat(test.getPermits(16)).as("grown").isEqualTo(16);
+
+            assertThat(test.adapt(0, 10)).as("idle for the first time").isZero();
+            assertThat(test.adapt(0, 10)).as("still idle").isEqualTo(-8);
+            assertThat(test.isOverLimit()).as("surplus idle resources").isTrue();
+
+            test.returnPermits(8);
+            assertThat(test.isOverLimit()).as("surplus destroyed").isFalse();
+        }
+
+        @Test
+        void doesntShrinkBelowInUse() {
+            AdaptiveAllocationStrategy test = new AdaptiveAllocationStrategy(1, 16, target);
+            test.recordPendingTime(target * 8);
+            test.adapt(15, 0);
+            test.getPermits(16);
+
+            test.adapt(0, 2);
+            assertThat(test.adapt(0, 2)).as("only the idle surplus").isEqualTo(-2);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.test.util.RaceTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.awaitility.Awaitility.await;
+import static reactor.pool.PoolBuilder.from;
+
+class BlockingPoolTest {
+
+    @Test
+    void acquireAndReleaseWithTryWithResources() throws Exception {
+        InstrumentedPool<Integer> pool = (InstrumentedPool<Integer>) from(Mono.just(1)).sizeMax(1).build();
+        BlockingPool<Integer> blocking = pool.blocking();
+
+        try (BlockingPool.Lease<Integer> lease = blocking.acquire()) {
+            assertThat(lease.poolable()).isOne();
+            assertThat(pool.metrics().acquiredSize()).as("acquired").isOne();
+        }
+
+        assertThat(pool.metrics().acquiredSize()).as("acquired after close").isZero();
+        assertThat(pool.metrics().idleSize()).as("idle after close").isOne();
+    }
+
+    @Test
+    void acquireParksUntilRelease() throws Exception {
+        Pool<Integer> pool = from(Mono.just(1)).sizeMax(1).build();
+        BlockingPool<Integer> blocking = pool.blocking();
+        BlockingPool.Lease<Integer> held = blocking.acquire();
+
+        AtomicReference<BlockingPool.Lease<Integer>> acquired = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                acquired.set(blocking.acquire());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> waiter.getState() == Thread.State.WAITING);
+        assertThat(acquired.get()).as("parked").isNull();
+
+        held.close();
+        waiter.join(5000);
+
+        assertThat(acquired.get()).as("acquired after release").isNotNull();
+        assertThat(acquired.get().poolable()).isOne();
+    }
+
+    @Test
+    void acquireTimeout() throws Exception {
+        InstrumentedPool<Integer> pool = (InstrumentedPool<Integer>) from(Mono.just(1)).sizeMax(1).build();
+        BlockingPool<Integer> blocking = pool.blocking();
+        blocking.acquire();
+
+        assertThatExceptionOfType(TimeoutException.class)
+                .isThrownBy(() -> blocking.acquire(Duration.ofMillis(50)));
+        assertThat(pool.metrics().pendingAcquireSize()).as("pending").isZero();
+    }
+
+    @Test
+    void interruptCancelsPendingAcquire() throws Exception {
+        InstrumentedPool<Integer> pool = (InstrumentedPool<Integer>) from(Mono.just(1)).sizeMax(1).build();
+        BlockingPool<Integer> blocking = pool.blocking();
+        BlockingPool.Lease<Integer> held = blocking.acquire();
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                blocking.acquire();
+            }
+            catch (Throwable e) {
+                error.set(e);
+            }
+        });
+        waiter.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> pool.metrics().pendingAcquireSize() == 1);
+
+        waiter.interrupt();
+        waiter.join(5000);
+
+        assertThat(error.get()).isInstanceOf(InterruptedException.class);
+        assertThat(pool.metrics().pendingAcquireSize()).as("pending").isZero();
+
+        held.close();
+        assertThat(pool.metrics().idleSize()).as("released to the pool").isOne();
+    }
+
+    @Test
+    void interruptRacingValueIsNotLost() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            AtomicReference<BlockingPool.Parker<Integer>> parkerRef = new AtomicReference<>();
+            AtomicReference<Object> outcome = new AtomicReference<>();
+            CountDownLatch parking = new CountDownLatch(1);
+            CountDownLatch raced = new CountDownLatch(1);
+            Thread waiter = new Thread(() -> {
+                BlockingPool.Parker<Integer> parker = new BlockingPool.Parker<>();
+                parker.onSubscribe(Operators.emptySubscription());
+                parkerRef.set(parker);
+                parking.countDown();
+                try {
+                    Integer value = parker.awaitInterruptibly();
+                    raced.await(5, TimeUnit.SECONDS);
+                    outcome.set(value != null && Thread.currentThread().isInterrupted());
+                }
+                catch (Throwable e) {
+                    outcome.set(e);
+                }
+            });
+            waiter.start();
+            parking.await(5, TimeUnit.SECONDS);
+
+            RaceTestUtils.race(waiter::interrupt, () -> parkerRef.get().onNext(1));
+            raced.countDown();
+            waiter.join(5000);
+
+            Object result = outcome.get();
+            if (!(result instanceof InterruptedException)) {
+                assertThat(result).as("value returned with the interrupted status, round " + i).isEqualTo(true);
+            }
+        }
+    }
+
+    @Test
+    void allocationErrorIsThrown() {
+        Pool<Integer> pool = from(Mono.<Integer>error(new IllegalStateException("boom"))).sizeMax(1).build();
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> pool.blocking().acquire())
+                .withMessage("boom");
+    }
+
+    @Test
+    void invalidateThenCloseDestroysOnce() throws Exception {
+        AtomicInteger destroyed = new AtomicInteger();
+        Pool<Integer> pool = from(Mono.just(1)).sizeMax(1)
+                                               .destroyHandler(i -> Mono.fromRunnable(destroyed::incrementAndGet))
+                                               .build();
+
+        try (BlockingPool.Lease<Integer> lease = pool.blocking().acquire()) {
+            lease.invalidate();
+        }
+
+        assertThat(destroyed).hasValue(1);
+    }
+}
@@ -25,8 +25,11 @@ import java.util.Formatter;
 import java.util.FormatterClosedException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -43,7 +46,9 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import reactor.core.Disposable;
 import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
 import reactor.core.publisher.SignalType;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
@@ -128,8 +133,25 @@ public class CommonPoolTest {
 		};
 	}
 
+	static final <T> Function<PoolBuilder<T>, AbstractPool<T>> shardedPoolFifo() {
+		return new Function<PoolBuilder<T>, AbstractPool<T>>() {
+			@Override
+			public AbstractPool<T> apply(PoolBuilder<T> builder) {
+				return (AbstractPool<T>) builder.threadAffinity(false)
+				                                .lifo(false)
+				                                .shards(4)
+				                                .build();
+			}
+
+			@Override
+			public String toString() {
+				return "shardedPool FIFO";
+			}
+		};
+	}
+
 	static <T> List<Function<PoolBuilder<T>, AbstractPool<T>>> allPools() {
-		return Arrays.asList(simplePoolFifo(), simplePoolLifo(), affinityPoolFifo(), affinityPoolLifo());
+		return Arrays.asList(simplePoolFifo(), simplePoolLifo(), affinityPoolFifo(), affinityPoolLifo(), shardedPoolFifo());
 	}
 
 	static <T> List<Function<PoolBuilder<T>, AbstractPool<T>>> fifoPools() {
@@ -769,7 +791,7 @@ public class CommonPoolTest {
 				);
 			}
 
-			assertThat(AbstractPool.PENDING_COUNT.get(pool)).as("pending counter limited to 1").isEqualTo(1);
+			assertThat(pool.pendingAcquireSize()).as("pending counter limited to 1").isEqualTo(1);
 
 			assertThat(errorCount).as("immediate error of extraneous pending").hasValue(1);
 			assertThat(otherTerminationCount).as("no other immediate termination").hasValue(0);
@@ -816,7 +838,7 @@ public class CommonPoolTest {
 			);
 			RaceTestUtils.race(runnable, runnable);
 
-			assertThat(AbstractPool.PENDING_COUNT.get(pool)).as("pending counter limited to 1").isEqualTo(1);
+			assertThat(pool.pendingAcquireSize()).as("pending counter limited to 1").isEqualTo(1);
 
 			assertThat(errorCount).as("immediate error of extraneous pending").hasValue(1);
 			assertThat(otherTerminationCount).as("no other immediate termination").hasValue(0);
@@ -1155,6 +1177,341 @@ public class CommonPoolTest {
 				            .hasMessage("Acquire has been pending for more than the configured timeout of 100ms"));
 	}
 
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void acquireBatchEmitsDistinctResources(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocCounter = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocCounter::incrementAndGet))
+		                                          .initialSize(1)
+		                                          .sizeMax(4);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		List<PooledRef<Integer>> refs = pool.acquire(3).collectList().block();
+
+		assertThat(refs).extracting(PooledRef::poolable).containsExactlyInAnyOrder(1, 2, 3);
+		assertThat(pool.acquiredSize()).as("acquired").isEqualTo(3);
+		assertThat(pool.idleSize()).as("idle").isZero();
+
+		Flux.fromIterable(refs).flatMap(PooledRef::release).blockLast();
+
+		assertThat(pool.acquiredSize()).as("acquired after release").isZero();
+		assertThat(pool.idleSize()).as("idle after release").isEqualTo(3);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void acquireBatchRejectsInvalidSizes(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.just(1))
+		                                          .sizeMax(4);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		StepVerifier.create(pool.acquire(0))
+		            .verifyErrorMessage("n must be strictly positive");
+		StepVerifier.create(pool.acquire(5))
+		            .verifyErrorMessage("Cannot acquire 5 resources at once from a pool of maximum size 4");
+		assertThat(pool.allocatedSize()).as("nothing allocated").isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void adaptiveSizeGrowsWithPendingAndShrinksWhenIdle(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		AtomicInteger allocCounter = new AtomicInteger();
+		AtomicInteger destroyCounter = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocCounter::incrementAndGet))
+		                                          .destroyHandler(i -> Mono.fromRunnable(destroyCounter::incrementAndGet))
+		                                          .sizeAdaptive(1, 4, Duration.ofMillis(10))
+		                                          .evictInBackground(Duration.ZERO, vts);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+		try {
+			List<PooledRef<Integer>> acquired = new CopyOnWriteArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				pool.acquire().subscribe(acquired::add);
+			}
+			assertThat(acquired).as("acquired at min size").hasSize(1);
+			assertThat(pool.pendingAcquireSize()).as("pending").isEqualTo(2);
+
+			vts.advanceTimeBy(Duration.ofMillis(10));
+			assertThat(acquired).as("pending for less than the target").hasSize(1);
+
+			vts.advanceTimeBy(Duration.ofMillis(10));
+			assertThat(acquired).as("acquired after growth").hasSize(3);
+			assertThat(pool.allocatedSize()).as("allocated after growth").isEqualTo(3);
+
+			for (PooledRef<Integer> ref : acquired) {
+				ref.release().block();
+			}
+			assertThat(pool.idleSize()).as("all idle").isEqualTo(3);
+
+			vts.advanceTimeBy(Duration.ofMillis(20));
+			assertThat(pool.idleSize()).as("idle after shrinking").isOne();
+			assertThat(destroyCounter).as("surplus destroyed").hasValue(2);
+			assertThat(pool.allocatedSize()).as("allocated after shrinking").isOne();
+		}
+		finally {
+			pool.dispose();
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void adaptiveSizeDoesntGrowWhenAllocatingIsSlowerThanWaiting(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster)
+			throws InterruptedException {
+		VirtualTimeScheduler vts = VirtualTimeScheduler.create();
+		AtomicInteger allocCounter = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(() -> {
+			                                          Thread.sleep(100);
+			                                          return allocCounter.incrementAndGet();
+		                                          }))
+		                                          .sizeAdaptive(1, 4, Duration.ofMillis(10))
+		                                          .evictInBackground(Duration.ZERO, vts);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+		try {
+			List<PooledRef<Integer>> acquired = new CopyOnWriteArrayList<>();
+			for (int i = 0; i < 3; i++) {
+				pool.acquire().subscribe(acquired::add);
+			}
+			assertThat(acquired).as("acquired at min size").hasSize(1);
+			assertThat(pool.pendingAcquireSize()).as("pending").isEqualTo(2);
+
+			vts.advanceTimeBy(Duration.ofMillis(20));
+			assertThat(pool.allocatedSize()).as("allocating is slower than waiting").isOne();
+
+			Thread.sleep(200);
+			acquired.get(0).release().block();
+			assertThat(acquired).as("pending served by the release").hasSize(2);
+
+			vts.advanceTimeBy(Duration.ofMillis(10));
+			assertThat(acquired).as("acquired after growth").hasSize(3);
+			assertThat(pool.allocatedSize()).as("waiting is slower than allocating").isEqualTo(2);
+		}
+		finally {
+			pool.dispose();
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void minIdleIsReplenishedWhenResourcesAreDestroyed(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocCounter = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocCounter::incrementAndGet))
+		                                          .initialSize(2)
+		                                          .minIdle(2)
+		                                          .sizeMax(3);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+		assertThat(pool.idleSize()).as("idle after warmup").isEqualTo(2);
+
+		PooledRef<Integer> first = pool.acquire().block();
+		PooledRef<Integer> second = pool.acquire().block();
+		assertThat(first).isNotNull();
+		assertThat(second).isNotNull();
+		assertThat(pool.idleSize()).as("no idle while acquired").isZero();
+
+		first.invalidate().block();
+		assertThat(allocCounter).as("replacements bounded by the strategy").hasValue(4);
+		assertThat(pool.idleSize()).as("idle after invalidation").isEqualTo(2);
+		assertThat(pool.allocatedSize()).as("allocated").isEqualTo(3);
+
+		second.invalidate().block();
+		assertThat(allocCounter).as("idle floor already reached").hasValue(4);
+		assertThat(pool.idleSize()).as("idle after second invalidation").isEqualTo(2);
+		assertThat(pool.allocatedSize()).as("allocated after second invalidation").isEqualTo(2);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void concurrentAllocationsAreCapped(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		AtomicInteger allocCounter = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.defer(() -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			return Mono.delay(Duration.ofMillis(20))
+			           .map(l -> allocCounter.incrementAndGet())
+			           .doOnNext(v -> inFlight.decrementAndGet());
+		}))
+		                                          .maxConcurrentAllocations(2)
+		                                          .sizeMax(10);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		List<PooledRef<Integer>> acquired = Flux.range(0, 10)
+		                                        .flatMap(i -> pool.acquire())
+		                                        .collectList()
+		                                        .block(Duration.ofSeconds(5));
+
+		assertThat(acquired).as("all served").hasSize(10);
+		assertThat(maxInFlight).as("max in flight").hasValue(2);
+		assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void borrowersWaitingForAllocationSlotAreServedInLine(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		List<MonoProcessor<Integer>> allocations = new CopyOnWriteArrayList<>();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.defer(() -> {
+			MonoProcessor<Integer> allocation = MonoProcessor.create();
+			allocations.add(allocation);
+			return allocation;
+		}))
+		                                          .maxConcurrentAllocations(1)
+		                                          .sizeMax(3);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		AtomicReference<PooledRef<Integer>> first = new AtomicReference<>();
+		pool.acquire().subscribe(first::set);
+		allocations.get(0).onNext(1);
+		assertThat(first.get()).as("first served").isNotNull();
+
+		AtomicReference<PooledRef<Integer>> second = new AtomicReference<>();
+		AtomicReference<PooledRef<Integer>> third = new AtomicReference<>();
+		pool.acquire().subscribe(second::set);
+		pool.acquire().subscribe(third::set);
+		assertThat(allocations).as("single allocation in flight").hasSize(2);
+		assertThat(pool.pendingAcquireSize()).as("third waits for a slot").isOne();
+
+		first.get().release().block();
+		assertThat(second.get()).as("second served by the release").isNotNull();
+		assertThat(second.get().poolable()).isEqualTo(1);
+		assertThat(third.get()).as("third still waiting").isNull();
+
+		allocations.get(1).onNext(2);
+		assertThat(third.get()).as("third served by the allocation").isNotNull();
+		assertThat(third.get().poolable()).isEqualTo(2);
+		assertThat(allocations).as("no extra allocation").hasSize(2);
+		assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void releaseServesBorrowerAwaitingSlowAllocation(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		List<MonoProcessor<Integer>> allocations = new CopyOnWriteArrayList<>();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.defer(() -> {
+			MonoProcessor<Integer> allocation = MonoProcessor.create();
+			allocations.add(allocation);
+			return allocation;
+		}))
+		                                          .sizeMax(2);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		AtomicReference<PooledRef<Integer>> first = new AtomicReference<>();
+		pool.acquire().subscribe(first::set);
+		allocations.get(0).onNext(1);
+		assertThat(first.get()).as("first served").isNotNull();
+
+		AtomicReference<PooledRef<Integer>> second = new AtomicReference<>();
+		pool.acquire().subscribe(second::set);
+		assertThat(allocations).as("allocating for second").hasSize(2);
+
+		first.get().release().block();
+		assertThat(second.get()).as("second served by the release").isNotNull();
+		assertThat(second.get().poolable()).isEqualTo(1);
+
+		allocations.get(1).onNext(2);
+		assertThat(pool.idleSize()).as("allocated resource is idle").isOne();
+
+		AtomicReference<PooledRef<Integer>> third = new AtomicReference<>();
+		pool.acquire().subscribe(third::set);
+		assertThat(third.get()).as("third served").isNotNull();
+		assertThat(third.get().poolable()).as("from the idle resource").isEqualTo(2);
+		assertThat(allocations).as("no extra allocation").hasSize(2);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void withPoolablesReleasesTogether(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocCounter = new AtomicInteger();
+		AtomicInteger releaseCounter = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocCounter::incrementAndGet))
+		                                          .releaseHandler(i -> Mono.fromRunnable(releaseCounter::incrementAndGet))
+		                                          .sizeMax(3);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		StepVerifier.create(pool.withPoolables(3, list -> Mono.just(list)))
+		            .assertNext(list -> assertThat(list).containsExactlyInAnyOrder(1, 2, 3))
+		            .verifyComplete();
+
+		assertThat(releaseCounter).as("released").hasValue(3);
+		assertThat(pool.acquiredSize()).as("acquired").isZero();
+
+		StepVerifier.create(pool.withPoolables(2, list -> Mono.error(new IllegalStateException("boom"))))
+		            .verifyErrorMessage("boom");
+
+		assertThat(releaseCounter).as("released after error").hasValue(5);
+		assertThat(pool.acquiredSize()).as("acquired after error").isZero();
+		assertThat(allocCounter).as("allocations").hasValue(3);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void pendingTimeoutWithTimeoutWheel(Function<PoolBuilder<String>, AbstractPool<String>> configAdjuster) {
+		PoolBuilder<String> builder = PoolBuilder
+				.from(Mono.just("instant"))
+				.sizeMax(1)
+				.acquireTimeoutWheel(Duration.ofMillis(1));
+		AbstractPool<String> pool = configAdjuster.apply(builder);
+
+		PooledRef<String> uniqueRef = pool.acquire().block();
+		assertThat(uniqueRef).isNotNull();
+
+		StepVerifier.create(pool.acquire(Duration.ofMillis(100)).map(PooledRef::poolable))
+		            .expectSubscription()
+		            .expectNoEvent(Duration.ofMillis(90))
+		            .expectErrorSatisfies(e -> assertThat(e)
+				            .isInstanceOf(TimeoutException.class)
+				            .hasMessage("Acquire has been pending for more than the configured timeout of 100ms"))
+		            .verify(Duration.ofSeconds(5));
+
+		pool.dispose();
+		assertThat(pool.poolConfig.acquireTimeoutWheel.isDisposed()).as("pool-owned wheel disposed").isTrue();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void sharedTimeoutWheelNotDisposedWithPool(Function<PoolBuilder<String>, AbstractPool<String>> configAdjuster) {
+		HashedWheelTimer sharedWheel = HashedWheelTimer.create(Duration.ofMillis(1), 64);
+		try {
+			PoolBuilder<String> builder = PoolBuilder
+					.from(Mono.just("instant"))
+					.sizeMax(1)
+					.acquireTimeoutWheel(sharedWheel);
+			AbstractPool<String> pool = configAdjuster.apply(builder);
+
+			PooledRef<String> uniqueRef = pool.acquire().block();
+			assertThat(uniqueRef).isNotNull();
+
+			StepVerifier.create(pool.acquire(Duration.ofMillis(50)).map(PooledRef::poolable))
+			            .then(() -> uniqueRef.release().block())
+			            .expectNext("instant")
+			            .verifyComplete();
+
+			pool.dispose();
+			assertThat(sharedWheel.isDisposed()).as("shared wheel disposed").isFalse();
+		}
+		finally {
+			sharedWheel.dispose();
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void disposedSharedTimeoutWheelFailsPendingAcquire(Function<PoolBuilder<String>, AbstractPool<String>> configAdjuster) {
+		HashedWheelTimer sharedWheel = HashedWheelTimer.create(Duration.ofMillis(1), 64);
+		PoolBuilder<String> builder = PoolBuilder
+				.from(Mono.just("instant"))
+				.sizeMax(1)
+				.acquireTimeoutWheel(sharedWheel);
+		AbstractPool<String> pool = configAdjuster.apply(builder);
+
+		PooledRef<String> uniqueRef = pool.acquire().block();
+		assertThat(uniqueRef).isNotNull();
+		sharedWheel.dispose();
+
+		StepVerifier.create(pool.acquire(Duration.ofMillis(50)))
+		            .expectError(RejectedExecutionException.class)
+		            .verify(Duration.ofSeconds(1));
+		assertThat(pool.pendingAcquireSize()).as("not pending").isZero();
+	}
+
 	@ParameterizedTest
 	@MethodSource("allPools")
 	void pendingTimeoutDoesntCauseExtraReleasePostTimeout(Function<PoolBuilder<AtomicInteger>, AbstractPool<AtomicInteger>> configAdjuster) {
@@ -1182,6 +1539,528 @@ public class CommonPoolTest {
 		assertThat(resource).as("post timeout and after resource available").hasValue(1);
 	}
 
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void evictInBackgroundDestroysIdleResources(Function<PoolBuilder<PoolableTest>, AbstractPool<PoolableTest>> configAdjuster) {
+		VirtualTimeScheduler reaperScheduler = VirtualTimeScheduler.create();
+		AtomicBoolean evict = new AtomicBoolean();
+		PoolBuilder<PoolableTest> builder = PoolBuilder
+				.from(Mono.fromCallable(PoolableTest::new))
+				.sizeMax(3)
+				.initialSize(3)
+				.evictionPredicate((poolable, metadata) -> evict.get())
+				.evictInBackground(Duration.ofSeconds(10), reaperScheduler);
+		AbstractPool<PoolableTest> pool = configAdjuster.apply(builder);
+
+		PooledRef<PoolableTest> acquired = pool.acquire().block();
+		assertThat(acquired).isNotNull();
+
+		reaperScheduler.advanceTimeBy(Duration.ofSeconds(10));
+
+		assertThat(pool.idleSize()).as("idle before eviction").isEqualTo(2);
+		assertThat(pool.allocatedSize()).as("allocated before eviction").isEqualTo(3);
+
+		evict.set(true);
+		reaperScheduler.advanceTimeBy(Duration.ofSeconds(10));
+
+		assertThat(pool.idleSize()).as("idle after eviction").isZero();
+		assertThat(pool.allocatedSize()).as("allocated after eviction").isOne();
+		assertThat(acquired.poolable().isDisposed()).as("acquired resource not evicted").isFalse();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void evictInBackgroundWithSubMillisecondInterval(Function<PoolBuilder<PoolableTest>, AbstractPool<PoolableTest>> configAdjuster) {
+		VirtualTimeScheduler reaperScheduler = VirtualTimeScheduler.create();
+		PoolBuilder<PoolableTest> builder = PoolBuilder
+				.from(Mono.fromCallable(PoolableTest::new))
+				.sizeMax(1)
+				.initialSize(1)
+				.evictionPredicate((poolable, metadata) -> true)
+				.evictInBackground(Duration.ofNanos(500_000), reaperScheduler);
+		AbstractPool<PoolableTest> pool = configAdjuster.apply(builder);
+
+		reaperScheduler.advanceTimeBy(Duration.ofMillis(1));
+
+		assertThat(pool.idleSize()).as("idle after eviction").isZero();
+		assertThat(pool.allocatedSize()).as("allocated after eviction").isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void evictInBackgroundStopsWhenPoolDisposed(Function<PoolBuilder<PoolableTest>, AbstractPool<PoolableTest>> configAdjuster) {
+		VirtualTimeScheduler reaperScheduler = VirtualTimeScheduler.create();
+		AtomicInteger evictionChecks = new AtomicInteger();
+		PoolBuilder<PoolableTest> builder = PoolBuilder
+				.from(Mono.fromCallable(PoolableTest::new))
+				.sizeMax(1)
+				.initialSize(1)
+				.evictionPredicate((poolable, metadata) -> evictionChecks.incrementAndGet() < 0)
+				.evictInBackground(Duration.ofSeconds(10), reaperScheduler);
+		AbstractPool<PoolableTest> pool = configAdjuster.apply(builder);
+
+		reaperScheduler.advanceTimeBy(Duration.ofSeconds(10));
+		assertThat(evictionChecks).as("checked while active").hasValue(1);
+
+		pool.dispose();
+		reaperScheduler.advanceTimeBy(Duration.ofSeconds(30));
+
+		assertThat(evictionChecks).as("not checked once disposed").hasValue(1);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void idleResourceReuseMruOrderReusesLastReleased(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocations = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocations::incrementAndGet))
+		                                          .sizeMax(3)
+		                                          .idleResourceReuseMruOrder();
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		List<PooledRef<Integer>> refs = Flux.range(0, 3)
+		                                    .concatMap(i -> pool.acquire())
+		                                    .collectList()
+		                                    .block();
+		assertThat(refs).extracting(PooledRef::poolable).containsExactly(1, 2, 3);
+		for (PooledRef<Integer> ref : refs) {
+			ref.release().block();
+		}
+
+		PooledRef<Integer> hot = pool.acquire().block();
+		assertThat(hot.poolable()).as("last released reused first").isEqualTo(3);
+		hot.release().block();
+		assertThat(pool.acquire().block().poolable()).as("hot resource reused again").isEqualTo(3);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void idleResourceReuseMruOrderKeptThroughBackgroundEviction(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		VirtualTimeScheduler reaperScheduler = VirtualTimeScheduler.create();
+		AtomicInteger allocations = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocations::incrementAndGet))
+		                                          .sizeMax(3)
+		                                          .idleResourceReuseMruOrder()
+		                                          .evictionPredicate((poolable, metadata) -> poolable == 2)
+		                                          .evictInBackground(Duration.ofSeconds(10), reaperScheduler);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		List<PooledRef<Integer>> refs = Flux.range(0, 3)
+		                                    .concatMap(i -> pool.acquire())
+		                                    .collectList()
+		                                    .block();
+		refs.get(0).release().block();
+		refs.get(2).release().block();
+		//the eviction predicate also applies upon release
+		refs.get(1).release().block();
+		assertThat(pool.idleSize()).as("idle").isEqualTo(2);
+
+		reaperScheduler.advanceTimeBy(Duration.ofSeconds(10));
+
+		assertThat(pool.idleSize()).as("idle after sweep").isEqualTo(2);
+		assertThat(pool.acquire().block().poolable()).as("most recently used").isEqualTo(3);
+		assertThat(pool.acquire().block().poolable()).as("least recently used").isEqualTo(1);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void tryAcquireHandsOutIdleResource(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocations = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.defer(() -> Mono.just(allocations.incrementAndGet())))
+		                                          .initialSize(1)
+		                                          .sizeMax(2);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		PooledRef<Integer> ref = pool.tryAcquire();
+		assertThat(ref).as("idle resource").isNotNull();
+		assertThat(ref.poolable()).isOne();
+		assertThat(ref.metadata().acquireCount()).as("acquireCount").isOne();
+		assertThat(pool.idleSize()).as("idle").isZero();
+		assertThat(pool.acquiredSize()).as("acquired").isOne();
+
+		assertThat(pool.tryAcquire()).as("allocator cannot be called synchronously").isNull();
+		assertThat(allocations).as("allocations").hasValue(1);
+
+		ref.release().block();
+		assertThat(pool.idleSize()).as("idle after release").isOne();
+		assertThat(pool.tryAcquire()).as("released resource").isNotNull();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void tryAcquireAllocatesSynchronously(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocations = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocations::incrementAndGet))
+		                                          .sizeMax(1);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		PooledRef<Integer> ref = pool.tryAcquire();
+		assertThat(ref).as("allocated resource").isNotNull();
+		assertThat(ref.poolable()).isOne();
+		assertThat(pool.allocatedSize()).as("allocated").isOne();
+		assertThat(pool.tryAcquire()).as("no more permits").isNull();
+		assertThat(allocations).as("allocations").hasValue(1);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void tryAcquireAllocationFailureReturnsPermit(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.<Integer>fromCallable(() -> {
+			throw new IllegalStateException("boom");
+		}))
+		                                          .sizeMax(1);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		assertThatExceptionOfType(IllegalStateException.class)
+				.isThrownBy(pool::tryAcquire)
+				.withMessage("boom");
+		assertThat(pool.allocatedSize()).as("permit returned").isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void tryAcquireDoesntOvertakePendingBorrowers(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(() -> 1))
+		                                          .sizeMax(1);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		PooledRef<Integer> held = pool.acquire().block();
+		AtomicReference<PooledRef<Integer>> pending = new AtomicReference<>();
+		pool.acquire().subscribe(pending::set);
+		assertThat(pool.pendingAcquireSize()).as("pending").isOne();
+
+		assertThat(pool.tryAcquire()).as("pool exhausted").isNull();
+
+		held.release().block();
+		assertThat(pending.get()).as("pending borrower served").isNotNull();
+		assertThat(pool.tryAcquire()).as("resource held by pending borrower").isNull();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	@Tag("metrics")
+	void maxLeaseTimeReclaimsHeldResourceForPendingBorrower(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocations = new AtomicInteger();
+		AtomicInteger destroyed = new AtomicInteger();
+		TestUtils.InMemoryPoolMetrics recorder = new TestUtils.InMemoryPoolMetrics();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocations::incrementAndGet))
+		                                          .sizeMax(1)
+		                                          .destroyHandler(i -> Mono.fromRunnable(destroyed::incrementAndGet))
+		                                          .maxLeaseTime(Duration.ofMillis(100))
+		                                          .metricsRecorder(recorder);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		PooledRef<Integer> stuck = pool.acquire().block();
+		assertThat(stuck.poolable()).isOne();
+
+		PooledRef<Integer> replacement = pool.acquire().block(Duration.ofSeconds(5));
+
+		assertThat(replacement.poolable()).as("replacement").isEqualTo(2);
+		assertThat(destroyed).as("stuck resource destroyed").hasValue(1);
+		assertThat(recorder.getLeaseReclaimedCount()).as("forced reclaims").isOne();
+
+		stuck.release().block();
+		assertThat(destroyed).as("late release ignored").hasValue(1);
+		assertThat(pool.allocatedSize()).as("allocated").isOne();
+		assertThat(pool.acquiredSize()).as("acquired").isOne();
+
+		replacement.release().block();
+		assertThat(pool.idleSize()).as("idle").isOne();
+		assertThat(recorder.getLeaseReclaimedCount()).as("released in time").isOne();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void maxLeaseTimeNotReachedKeepsResource(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) throws InterruptedException {
+		AtomicInteger destroyed = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.just(1))
+		                                          .sizeMax(1)
+		                                          .destroyHandler(i -> Mono.fromRunnable(destroyed::incrementAndGet))
+		                                          .maxLeaseTime(Duration.ofMillis(100));
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		pool.acquire().block().release().block();
+		pool.acquire().block().invalidate().block();
+		Thread.sleep(200);
+
+		assertThat(destroyed).as("only the invalidated resource").hasValue(1);
+		assertThat(pool.allocatedSize()).as("allocated").isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void maxLeaseTimeOnDisposedSharedWheelDoesntFailDelivery(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		HashedWheelTimer sharedWheel = HashedWheelTimer.create(Duration.ofMillis(1), 64);
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.just(1))
+		                                          .sizeMax(1)
+		                                          .acquireTimeoutWheel(sharedWheel)
+		                                          .maxLeaseTime(Duration.ofMillis(10));
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+		sharedWheel.dispose();
+
+		PooledRef<Integer> ref = pool.acquire().block(Duration.ofSeconds(1));
+
+		assertThat(ref).as("delivered").isNotNull();
+		ref.release().block();
+		assertThat(pool.idleSize()).as("released").isOne();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	@Tag("metrics")
+	void validateOnAcquireHandsOutValidResource(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocations = new AtomicInteger();
+		AtomicInteger validations = new AtomicInteger();
+		TestUtils.InMemoryPoolMetrics recorder = new TestUtils.InMemoryPoolMetrics();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocations::incrementAndGet))
+		                                          .sizeMax(1)
+		                                          .validateOnAcquire(i -> Mono.fromCallable(validations::incrementAndGet)
+		                                                                      .delayElement(Duration.ofMillis(10))
+		                                                                      .thenReturn(true),
+				                                          Duration.ZERO, Duration.ofSeconds(1))
+		                                          .metricsRecorder(recorder);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		pool.acquire().block().release().block();
+		assertThat(validations).as("allocated resource not validated").hasValue(0);
+
+		PooledRef<Integer> ref = pool.acquire().block(Duration.ofSeconds(5));
+
+		assertThat(ref.poolable()).as("validated resource").isOne();
+		assertThat(validations).as("validations").hasValue(1);
+		assertThat(allocations).as("allocations").hasValue(1);
+		assertThat(recorder.getValidationSuccessCount()).as("successes").isOne();
+		assertThat(recorder.getValidationFailureCount()).as("failures").isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	@Tag("metrics")
+	void validateOnAcquireFailureFallsThroughToAllocation(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocations = new AtomicInteger();
+		AtomicInteger destroyed = new AtomicInteger();
+		TestUtils.InMemoryPoolMetrics recorder = new TestUtils.InMemoryPoolMetrics();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocations::incrementAndGet))
+		                                          .sizeMax(1)
+		                                          .destroyHandler(i -> Mono.fromRunnable(destroyed::incrementAndGet))
+		                                          .validateOnAcquire(i -> Mono.just(i != 1), Duration.ZERO, Duration.ofSeconds(1))
+		                                          .metricsRecorder(recorder);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		pool.acquire().block().release().block();
+		PooledRef<Integer> ref = pool.acquire().block(Duration.ofSeconds(5));
+
+		assertThat(ref.poolable()).as("replacement").isEqualTo(2);
+		assertThat(destroyed).as("invalid resource destroyed").hasValue(1);
+		assertThat(recorder.getValidationFailureCount()).as("failures").isOne();
+		assertThat(pool.allocatedSize()).as("allocated").isOne();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	@Tag("metrics")
+	void validateOnAcquireTimeoutFallsThroughToAllocation(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger allocations = new AtomicInteger();
+		TestUtils.InMemoryPoolMetrics recorder = new TestUtils.InMemoryPoolMetrics();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.fromCallable(allocations::incrementAndGet))
+		                                          .sizeMax(1)
+		                                          .validateOnAcquire(i -> Mono.never(), Duration.ZERO, Duration.ofMillis(50))
+		                                          .metricsRecorder(recorder);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		pool.acquire().block().release().block();
+		PooledRef<Integer> ref = pool.acquire().block(Duration.ofSeconds(5));
+
+		assertThat(ref.poolable()).as("replacement").isEqualTo(2);
+		assertThat(recorder.getValidationFailureCount()).as("failures").isOne();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void validateOnAcquireSkipsRecentlyUsedResource(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger validations = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.just(1))
+		                                          .sizeMax(1)
+		                                          .validateOnAcquire(i -> Mono.fromCallable(() -> validations.incrementAndGet() > 0),
+				                                          Duration.ofMinutes(1), Duration.ofSeconds(1));
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		pool.acquire().block().release().block();
+		pool.acquire().block().release().block();
+		assertThat(pool.tryAcquire()).as("tryAcquire").isNotNull();
+
+		assertThat(validations).as("validations").hasValue(0);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void validateOnAcquireChecksResourceIdleLongerThanThreshold(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster)
+			throws InterruptedException {
+		AtomicInteger validations = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.just(1))
+		                                          .sizeMax(1)
+		                                          .validateOnAcquire(i -> Mono.fromCallable(() -> validations.incrementAndGet() > 0),
+				                                          Duration.ofMillis(50), Duration.ofSeconds(1));
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		pool.acquire().block().release().block();
+		PooledRef<Integer> recent = pool.acquire().block();
+		assertThat(validations).as("validations before threshold").hasValue(0);
+
+		recent.release().block();
+		Thread.sleep(100);
+		PooledRef<Integer> idle = pool.acquire().block(Duration.ofSeconds(1));
+
+		assertThat(idle).as("validated resource").isNotNull();
+		assertThat(validations).as("validations after threshold").hasValue(1);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void acquireFutureCompletesOnRelease(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) throws Exception {
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.just(1))
+		                                          .sizeMax(1);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		CompletableFuture<PooledRef<Integer>> first = pool.acquireFuture();
+		assertThat(first).as("allocated").isCompleted();
+		PooledRef<Integer> ref = first.get();
+		assertThat(ref.poolable()).isOne();
+
+		CompletableFuture<PooledRef<Integer>> second = pool.acquireFuture();
+		assertThat(second).as("pending").isNotDone();
+		assertThat(pool.pendingAcquireSize()).as("pendingAcquireSize").isOne();
+
+		ref.releaseFuture().get(5, TimeUnit.SECONDS);
+		assertThat(second.get(5, TimeUnit.SECONDS).poolable()).as("released resource").isOne();
+		assertThat(pool.pendingAcquireSize()).as("pendingAcquireSize after release").isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void acquireFutureTimeout(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.just(1))
+		                                          .sizeMax(1);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+		pool.acquireFuture().join();
+
+		CompletableFuture<PooledRef<Integer>> pending = pool.acquireFuture(Duration.ofMillis(100));
+
+		assertThatExceptionOfType(ExecutionException.class)
+				.isThrownBy(() -> pending.get(5, TimeUnit.SECONDS))
+				.withCauseInstanceOf(TimeoutException.class);
+		assertThat(pool.pendingAcquireSize()).as("pendingAcquireSize").isZero();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void acquireFutureCancelledWhilePending(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) throws Exception {
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.just(1))
+		                                          .sizeMax(1);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+		PooledRef<Integer> ref = pool.acquireFuture().get();
+
+		CompletableFuture<PooledRef<Integer>> pending = pool.acquireFuture();
+		assertThat(pending.cancel(true)).as("cancelled").isTrue();
+		assertThat(pool.pendingAcquireSize()).as("pendingAcquireSize").isZero();
+
+		ref.releaseFuture().get(5, TimeUnit.SECONDS);
+		assertThat(pool.idleSize()).as("released to the pool rather than to the cancelled future").isOne();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void lazyInitializationAllocatesOnWarmup(Function<PoolBuilder<PoolableTest>, AbstractPool<PoolableTest>> configAdjuster) {
+		AtomicInteger allocations = new AtomicInteger();
+		PoolBuilder<PoolableTest> builder = PoolBuilder
+				.from(Mono.fromCallable(() -> new PoolableTest(allocations.incrementAndGet())))
+				.sizeMax(5)
+				.initialSize(3)
+				.lazyInitialization(true);
+		AbstractPool<PoolableTest> pool = configAdjuster.apply(builder);
+
+		assertThat(allocations).as("allocations before warmup").hasValue(0);
+		assertThat(pool.idleSize()).as("idle before warmup").isZero();
+
+		StepVerifier.create(pool.warmup())
+		            .expectNext(3)
+		            .verifyComplete();
+
+		assertThat(allocations).as("allocations after warmup").hasValue(3);
+		assertThat(pool.idleSize()).as("idle after warmup").isEqualTo(3);
+		assertThat(pool.allocatedSize()).as("allocated after warmup").isEqualTo(3);
+
+		StepVerifier.create(pool.warmup())
+		            .as("second warmup")
+		            .expectNext(0)
+		            .verifyComplete();
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void warmupOnlyAllocatesMissingResources(Function<PoolBuilder<PoolableTest>, AbstractPool<PoolableTest>> configAdjuster) {
+		PoolBuilder<PoolableTest> builder = PoolBuilder
+				.from(Mono.fromCallable(PoolableTest::new))
+				.sizeMax(5)
+				.initialSize(3)
+				.lazyInitialization(true);
+		AbstractPool<PoolableTest> pool = configAdjuster.apply(builder);
+
+		PooledRef<PoolableTest> acquired = pool.acquire().block();
+		assertThat(acquired).isNotNull();
+
+		StepVerifier.create(pool.warmup())
+		            .expectNext(2)
+		            .verifyComplete();
+
+		assertThat(pool.idleSize()).as("idle").isEqualTo(2);
+		assertThat(pool.allocatedSize()).as("allocated").isEqualTo(3);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void warmupAllocatesConcurrently(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder
+				.from(Mono.defer(() -> {
+					maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+					return Mono.delay(Duration.ofMillis(50))
+					           .map(Long::intValue)
+					           .doOnNext(v -> inFlight.decrementAndGet());
+				}))
+				.initialSize(6)
+				.warmupParallelism(3)
+				.lazyInitialization(true);
+		AbstractPool<Integer> pool = configAdjuster.apply(builder);
+
+		StepVerifier.create(pool.warmup())
+		            .expectNext(6)
+		            .verifyComplete();
+
+		assertThat(maxInFlight).as("max concurrent allocations").hasValue(3);
+		assertThat(pool.idleSize()).as("idle").isEqualTo(6);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	void warmupErrorReturnsUnusedPermits(Function<PoolBuilder<String>, AbstractPool<String>> configAdjuster) {
+		AtomicInteger allocations = new AtomicInteger();
+		PoolBuilder<String> builder = PoolBuilder
+				.from(Mono.defer(() -> allocations.incrementAndGet() == 2 ?
+						Mono.<String>error(new IllegalStateException("boom")) :
+						Mono.just("ok")))
+				.sizeMax(4)
+				.initialSize(4)
+				.lazyInitialization(true);
+		AbstractPool<String> pool = configAdjuster.apply(builder);
+
+		StepVerifier.create(pool.warmup())
+		            .verifyErrorMessage("boom");
+
+		assertThat(pool.idleSize()).as("idle").isOne();
+		assertThat(pool.allocatedSize()).as("allocated").isOne();
+	}
+
 	// === METRICS ===
 
 	protected TestUtils.InMemoryPoolMetrics recorder;
@@ -1537,6 +2416,76 @@ public class CommonPoolTest {
 				.isCloseTo(300L, Offset.offset(40L));
 	}
 
+	@ParameterizedTest
+	@MethodSource("allPools")
+	@Tag("metrics")
+	void recordsAcquireLatencyPerPath(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) throws InterruptedException {
+		AtomicInteger allocCounter = new AtomicInteger();
+		PoolBuilder<Integer> builder = PoolBuilder
+				.from(Mono.fromCallable(allocCounter::incrementAndGet).delayElement(Duration.ofMillis(50)))
+				.sizeMax(1)
+				.metricsRecorder(recorder);
+		Pool<Integer> pool = configAdjuster.apply(builder);
+
+		PooledRef<Integer> allocated = pool.acquire().block();
+		assertThat(allocated).as("allocated").isNotNull();
+		allocated.release().block();
+
+		PooledRef<Integer> idle = pool.acquire().block();
+		assertThat(idle).as("idle").isNotNull();
+
+		CountDownLatch pendingDelivered = new CountDownLatch(1);
+		pool.acquire().subscribe(ref -> pendingDelivered.countDown());
+		Thread.sleep(100);
+		idle.release().block();
+		assertThat(pendingDelivered.await(1, TimeUnit.SECONDS)).as("pending delivered").isTrue();
+
+		assertThat(allocCounter).as("allocations").hasValue(1);
+		assertThat(recorder.getAcquireWithAllocationHistogram().getTotalCount()).as("allocation path").isOne();
+		assertThat(recorder.getAcquireWithAllocationHistogram().getMinValue()).as("allocation path latency")
+		                                                                     .isGreaterThanOrEqualTo(50L);
+		assertThat(recorder.getAcquireFromIdleHistogram().getTotalCount()).as("idle path").isOne();
+		assertThat(recorder.getAcquireFromIdleHistogram().getMaxValue()).as("idle path latency")
+		                                                               .isLessThan(50L);
+		assertThat(recorder.getAcquireAfterPendingHistogram().getTotalCount()).as("pending path").isOne();
+		assertThat(recorder.getAcquireAfterPendingHistogram().getMinValue()).as("pending path latency")
+		                                                                   .isGreaterThanOrEqualTo(100L);
+		assertThat(recorder.getPendingTimeHistogram().getTotalCount()).as("pending time").isOne();
+		assertThat(recorder.getPendingTimeHistogram().getMinValue()).as("pending time value")
+		                                                           .isGreaterThanOrEqualTo(100L);
+	}
+
+	@ParameterizedTest
+	@MethodSource("allPools")
+	@Tag("metrics")
+	void recordsPendingTimeoutsAndRejections(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		PoolBuilder<Integer> builder = PoolBuilder
+				.from(Mono.just(1))
+				.sizeMax(1)
+				.maxPendingAcquire(1)
+				.metricsRecorder(recorder);
+		Pool<Integer> pool = configAdjuster.apply(builder);
+
+		PooledRef<Integer> held = pool.acquire().block();
+		assertThat(held).as("held").isNotNull();
+
+		StepVerifier.create(pool.acquire(Duration.ofMillis(50)))
+		            .expectError(TimeoutException.class)
+		            .verify(Duration.ofSeconds(1));
+
+		assertThat(recorder.getPendingTimeoutCount()).as("timeouts").isOne();
+		assertThat(recorder.getPendingRejectedCount()).as("rejections before").isZero();
+
+		Disposable pending = pool.acquire().subscribe();
+		StepVerifier.create(pool.acquire())
+		            .expectErrorMessage("Pending acquire queue has reached its maximum size of 1")
+		            .verify(Duration.ofSeconds(1));
+		pending.dispose();
+
+		assertThat(recorder.getPendingRejectedCount()).as("rejections").isOne();
+		assertThat(recorder.getPendingTimeHistogram().getTotalCount()).as("no served pending").isZero();
+	}
+
 	@ParameterizedTest
 	@MethodSource("allPools")
 	@Tag("metrics")
@@ -1656,6 +2605,25 @@ public class CommonPoolTest {
 		assertThat(acquired.get()).as("acquired after release").isZero();
 	}
 
+	@ParameterizedTest
+	@MethodSource("allPools")
+	@Tag("metrics")
+	void instrumentIdleSizeExactAfterConcurrentAcquireRelease(Function<PoolBuilder<Integer>, AbstractPool<Integer>> configAdjuster) {
+		PoolBuilder<Integer> builder = PoolBuilder.from(Mono.just(1))
+				.initialSize(4)
+				.sizeMax(4);
+		InstrumentedPool<Integer> pool = configAdjuster.apply(builder);
+		PoolMetrics poolMetrics = pool.metrics();
+		Runnable acquireRelease = () -> pool.acquire().flatMap(PooledRef::release).block(Duration.ofSeconds(5));
+
+		for (int round = 0; round < 1000; round++) {
+			RaceTestUtils.race(acquireRelease, acquireRelease);
+		}
+
+		assertThat(poolMetrics.idleSize()).as("idle").isEqualTo(4);
+		assertThat(poolMetrics.acquiredSize()).as("acquired").isZero();
+	}
+
 	@ParameterizedTest
 	@MethodSource("allPools")
 	@Tag("metrics")
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.util.RaceTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class HashedWheelTimerTest {
+
+    HashedWheelTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        timer = HashedWheelTimer.create(Duration.ofMillis(1), 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.dispose();
+    }
+
+    @Test
+    void wheelSizeRoundedToPowerOfTwo() {
+        assertThat(timer.wheel).hasSize(8);
+        assertThat(HashedWheelTimer.create(Duration.ofMillis(1), 100).wheel).hasSize(128);
+    }
+
+    @Test
+    void rejectsInvalidTick() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> HashedWheelTimer.create(Duration.ZERO, 8))
+                .withMessage("tickDuration must be strictly positive");
+    }
+
+    @Test
+    void runsTaskAfterDelay() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timer.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).as("task run").isTrue();
+        assertThat(System.nanoTime() - start).as("elapsed").isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void runsTaskSpanningSeveralRotations() throws InterruptedException {
+        //8 buckets of 1ms: a 30ms delay needs several rotations of the wheel
+        CountDownLatch latch = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        timer.schedule(latch::countDown, 30, TimeUnit.MILLISECONDS);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).as("task run").isTrue();
+        assertThat(System.nanoTime() - start).as("elapsed").isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    @Test
+    void cancelledTaskIsNotRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        Disposable cancelled = timer.schedule(runs::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+        timer.schedule(latch::countDown, 40, TimeUnit.MILLISECONDS);
+        cancelled.dispose();
+
+        assertThat(cancelled.isDisposed()).as("cancelled").isTrue();
+        assertThat(latch.await(5, TimeUnit.SECONDS)).as("later task run").isTrue();
+        assertThat(runs).as("cancelled task runs").hasValue(0);
+    }
+
+    @Test
+    void runsManyTasks() throws InterruptedException {
+        int count = 10_000;
+        CountDownLatch latch = new CountDownLatch(count);
+
+        for (int i = 0; i < count; i++) {
+            timer.schedule(latch::countDown, i % 20, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).as("all tasks run").isTrue();
+    }
+
+    @Test
+    void disposedTimerRejectsTasks() {
+        timer.dispose();
+
+        assertThat(timer.isDisposed()).isTrue();
+        assertThatExceptionOfType(RejectedExecutionException.class)
+                .isThrownBy(() -> timer.schedule(() -> { }, 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void disposeRacingStartDisposesTickTask() {
+        for (int i = 0; i < 1000; i++) {
+            HashedWheelTimer wheel = HashedWheelTimer.create(Duration.ofMillis(1), 8, Schedulers.parallel());
+            RaceTestUtils.race(() -> {
+                try {
+                    wheel.schedule(() -> { }, 1, TimeUnit.SECONDS);
+                }
+                catch (RejectedExecutionException e) {
+                    //disposed first
+                }
+            }, wheel::dispose);
+
+            Disposable tickTask = wheel.tickTask;
+            assertThat(tickTask == null || tickTask.isDisposed()).as("tick task disposed").isTrue();
+        }
+    }
+}
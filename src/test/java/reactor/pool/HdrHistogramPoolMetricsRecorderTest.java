@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+import reactor.pool.HdrHistogramPoolMetricsRecorder.Snapshot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+class HdrHistogramPoolMetricsRecorderTest {
+
+    @Test
+    void createRejectsInvalidParameters() {
+        assertThatNullPointerException()
+                .isThrownBy(() -> HdrHistogramPoolMetricsRecorder.create(null, 3))
+                .withMessage("highestTrackableLatency");
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> HdrHistogramPoolMetricsRecorder.create(Duration.ofNanos(1999), 3))
+                .withMessage("highestTrackableLatency must be at least 2 microseconds");
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> HdrHistogramPoolMetricsRecorder.create(Duration.ofSeconds(1), 6))
+                .withMessage("significantDigits must be between 0 and 5");
+    }
+
+    @Test
+    void snapshotExposesPercentiles() {
+        HdrHistogramPoolMetricsRecorder recorder = HdrHistogramPoolMetricsRecorder.create();
+        for (int i = 1; i <= 1000; i++) {
+            recorder.recordAllocationSuccessAndLatencyNanos(i * 1000L);
+        }
+        recorder.recordAllocationFailureAndLatencyNanos(5000);
+        recorder.recordResetLatencyNanos(6000);
+        recorder.recordDestroyLatencyNanos(7000);
+        recorder.recordLifetimeDurationNanos(8000);
+        recorder.recordIdleTimeNanos(9000);
+        recorder.recordRecycled();
+        recorder.recordSlowPath();
+        recorder.recordFastPath();
+        recorder.recordFastPath();
+
+        Snapshot snapshot = recorder.snapshot();
+        Histogram allocations = snapshot.allocationSuccessLatencies();
+
+        assertThat(allocations.getTotalCount()).as("allocations").isEqualTo(1000);
+        assertThat(allocations.getValueAtPercentile(50)).as("p50").isEqualTo(allocations.highestEquivalentValue(500_000));
+        assertThat(allocations.getValueAtPercentile(99)).as("p99").isEqualTo(allocations.highestEquivalentValue(990_000));
+        assertThat(allocations.getValueAtPercentile(99.9)).as("p999").isEqualTo(allocations.highestEquivalentValue(999_000));
+        assertThat(snapshot.allocationFailureLatencies().getMaxValue()).as("failure")
+                                                       .isEqualTo(snapshot.allocationFailureLatencies().highestEquivalentValue(5000));
+        assertThat(snapshot.resetLatencies().getMaxValue()).as("reset")
+                                                       .isEqualTo(snapshot.resetLatencies().highestEquivalentValue(6000));
+        assertThat(snapshot.destroyLatencies().getMaxValue()).as("destroy")
+                                                       .isEqualTo(snapshot.destroyLatencies().highestEquivalentValue(7000));
+        assertThat(snapshot.lifetimes().getMaxValue()).as("lifetime")
+                                                       .isEqualTo(snapshot.lifetimes().highestEquivalentValue(8000));
+        assertThat(snapshot.idleTimes().getMaxValue()).as("idle")
+                                                       .isEqualTo(snapshot.idleTimes().highestEquivalentValue(9000));
+        assertThat(snapshot.recycledCount()).as("recycled").isOne();
+        assertThat(snapshot.slowPathCount()).as("slowPath").isOne();
+        assertThat(snapshot.fastPathCount()).as("fastPath").isEqualTo(2);
+    }
+
+    @Test
+    void snapshotResetsInterval() {
+        HdrHistogramPoolMetricsRecorder recorder = HdrHistogramPoolMetricsRecorder.create();
+        recorder.recordResetLatency(100);
+        recorder.recordRecycled();
+
+        Snapshot first = recorder.snapshot();
+        recorder.recordResetLatencyNanos(80_000);
+        Snapshot second = recorder.snapshot();
+
+        assertThat(first.resetLatencies().getTotalCount()).as("first count").isOne();
+        assertThat(first.resetLatencies().getMaxValue()).as("first max, converted from ms")
+                                                         .isEqualTo(first.resetLatencies().highestEquivalentValue(100_000_000));
+        assertThat(first.recycledCount()).as("first recycled").isOne();
+        assertThat(second.resetLatencies().getTotalCount()).as("second count").isOne();
+        assertThat(second.resetLatencies().getMaxValue()).as("second max, sub-millisecond")
+                                                          .isEqualTo(second.resetLatencies().highestEquivalentValue(80_000));
+        assertThat(second.recycledCount()).as("second recycled").isZero();
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        HdrHistogramPoolMetricsRecorder recorder = HdrHistogramPoolMetricsRecorder.create(Duration.ofSeconds(1), 2);
+        recorder.recordDestroyLatency(Long.MAX_VALUE);
+        recorder.recordDestroyLatency(-1);
+
+        Histogram destroy = recorder.snapshot().destroyLatencies();
+
+        assertThat(destroy.getTotalCount()).isEqualTo(2);
+        assertThat(destroy.getMinValue()).as("min").isZero();
+        assertThat(destroy.getMaxValue()).as("max").isEqualTo(destroy.highestEquivalentValue(1_000_000_000));
+    }
+
+    @Test
+    void recordsPoolActivity() {
+        HdrHistogramPoolMetricsRecorder recorder = HdrHistogramPoolMetricsRecorder.create();
+        Pool<String> pool = PoolBuilder.from(Mono.just("foo"))
+                                       .sizeMax(1)
+                                       .metricsRecorder(recorder)
+                                       .build();
+
+        for (int i = 0; i < 10; i++) {
+            pool.withPoolable(Mono::just).blockLast();
+        }
+        pool.dispose();
+
+        Snapshot snapshot = recorder.snapshot();
+        assertThat(snapshot.allocationSuccessLatencies().getTotalCount()).as("allocations").isOne();
+        assertThat(snapshot.resetLatencies().getTotalCount()).as("resets").isEqualTo(10);
+        assertThat(snapshot.idleTimes().getTotalCount()).as("idle times").isEqualTo(10);
+    }
+}
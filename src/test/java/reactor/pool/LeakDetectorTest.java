@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.awaitility.Awaitility.await;
+import static reactor.pool.PoolBuilder.from;
+
+class LeakDetectorTest {
+
+    @Test
+    void heldLongerThanThresholdIsReportedOnce() throws InterruptedException {
+        AbstractPool<Integer> pool = (AbstractPool<Integer>) from(Mono.just(1)).sizeMax(1)
+                                                                               .leakDetection(Duration.ofMillis(10))
+                                                                               .build();
+        LeakDetector detector = pool.poolConfig.leakDetector;
+        PooledRef<Integer> ref = pool.acquire().block();
+
+        detector.sweep();
+        assertThat(detector.tracked).hasSize(1)
+                                    .allSatisfy(record -> assertThat(record.reported).as("reported early").isFalse());
+
+        Thread.sleep(50);
+        detector.sweep();
+        assertThat(detector.tracked).hasSize(1)
+                                    .allSatisfy(record -> assertThat(record.reported).as("reported").isTrue());
+
+        ref.release().block();
+        pool.dispose();
+    }
+
+    @Test
+    void releaseAndInvalidateStopTracking() {
+        AbstractPool<Integer> pool = (AbstractPool<Integer>) from(Mono.just(1)).sizeMax(2)
+                                                                               .leakDetection(Duration.ofMinutes(1))
+                                                                               .build();
+        LeakDetector detector = pool.poolConfig.leakDetector;
+        PooledRef<Integer> released = pool.acquire().block();
+        PooledRef<Integer> invalidated = pool.acquire().block();
+        assertThat(detector.tracked).as("tracked").hasSize(2);
+
+        released.release().block();
+        invalidated.invalidate().block();
+
+        assertThat(detector.tracked).as("tracked after release").isEmpty();
+        assertThat(((AbstractPool.AbstractPooledRef<Integer>) released).leaseRecord).isNull();
+        pool.dispose();
+    }
+
+    @Test
+    void samplingSkipsUntrackedRefs() {
+        AbstractPool<Integer> pool = (AbstractPool<Integer>) from(Mono.just(1))
+                .sizeMax(10)
+                .leakDetection(Duration.ofMinutes(1), Double.MIN_VALUE, false)
+                .build();
+
+        for (int i = 0; i < 10; i++) {
+            pool.acquire().block();
+        }
+
+        assertThat(pool.poolConfig.leakDetector.tracked).isEmpty();
+        pool.dispose();
+    }
+
+    @Test
+    void unreachableRefIsReclaimed() {
+        AtomicInteger allocated = new AtomicInteger();
+        AtomicInteger destroyed = new AtomicInteger();
+        AbstractPool<Integer> pool = (AbstractPool<Integer>) from(Mono.fromCallable(allocated::incrementAndGet))
+                .sizeMax(1)
+                .destroyHandler(i -> Mono.fromRunnable(destroyed::incrementAndGet))
+                .leakDetection(Duration.ofMinutes(1), 1d, true)
+                .build();
+        LeakDetector detector = pool.poolConfig.leakDetector;
+
+        leak(pool);
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> {
+            System.gc();
+            detector.sweep();
+            return destroyed.get() == 1;
+        });
+
+        assertThat(pool.metrics().allocatedSize()).as("permit reclaimed").isZero();
+        assertThat(pool.acquire().block(Duration.ofSeconds(1)).poolable()).as("reallocated").isEqualTo(2);
+        pool.dispose();
+    }
+
+    private static void leak(Pool<Integer> pool) {
+        assertThat(pool.acquire().block()).isNotNull();
+    }
+
+    @Test
+    void builderRejectsInvalidParameters() {
+        PoolBuilder<Integer> builder = from(Mono.just(1));
+
+        assertThatIllegalArgumentException().isThrownBy(() -> builder.leakDetection(Duration.ZERO));
+        assertThatIllegalArgumentException().isThrownBy(() -> builder.leakDetection(Duration.ofSeconds(1), 0d, false));
+        assertThatIllegalArgumentException().isThrownBy(() -> builder.leakDetection(Duration.ofSeconds(1), 1.5d, false));
+    }
+}
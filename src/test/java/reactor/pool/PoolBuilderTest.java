@@ -30,6 +30,7 @@ import reactor.test.StepVerifier;
 import reactor.test.publisher.PublisherProbe;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 class PoolBuilderTest {
 
@@ -108,9 +109,70 @@ class PoolBuilderTest {
                     .verifyComplete();
     }
 
+    @Test
+    void evictInBackgroundRejectsNegativeInterval() {
+        PoolBuilder<Integer> poolBuilder = PoolBuilder.from(Mono.just(1));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> poolBuilder.evictInBackground(Duration.ofMillis(-1)))
+                .withMessage("evictionInterval must be positive or zero");
+    }
+
+    @Test
+    void evictInBackgroundDefaultToDisabled() {
+        AbstractPool.DefaultPoolConfig<Integer> config = PoolBuilder.from(Mono.just(1)).buildConfig();
+
+        assertThat(config.evictionInterval).as("evictionInterval").isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void warmupParallelismRejectsZero() {
+        PoolBuilder<Integer> poolBuilder = PoolBuilder.from(Mono.just(1));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> poolBuilder.warmupParallelism(0))
+                .withMessage("warmupParallelism must be >= 1");
+    }
+
+    @Test
+    void shardsRejectsZero() {
+        PoolBuilder<Integer> poolBuilder = PoolBuilder.from(Mono.just(1));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> poolBuilder.shards(0))
+                .withMessage("shardCount must be >= 1");
+    }
+
     @Test
     void threadAffinityDefaultToFalse() {
         PoolBuilder<Integer> poolBuilder = PoolBuilder.from(Mono.just(1));
         assertThat(poolBuilder.isThreadAffinity).as("threadAffinity").isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    void affinityKeyActivatesThreadAffinity() {
+        PoolBuilder<Integer> poolBuilder = PoolBuilder.from(Mono.just(1))
+                                                      .affinityKey(ctx -> ctx.getOrDefault("key", null));
+
+        assertThat(poolBuilder.isThreadAffinity).as("threadAffinity").isTrue();
+        assertThat(poolBuilder.build()).isInstanceOf(AffinityPool.class);
+    }
+
+    @Test
+    void minIdleRejectsNegative() {
+        PoolBuilder<Integer> poolBuilder = PoolBuilder.from(Mono.just(1));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> poolBuilder.minIdle(-1))
+                .withMessage("minIdle must be >= 0");
+    }
+
+    @Test
+    void maxConcurrentAllocationsRejectsZero() {
+        PoolBuilder<Integer> poolBuilder = PoolBuilder.from(Mono.just(1));
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> poolBuilder.maxConcurrentAllocations(0))
+                .withMessage("maxConcurrentAllocations must be >= 1");
+    }
+}
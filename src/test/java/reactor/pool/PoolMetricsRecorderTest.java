@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PoolMetricsRecorderTest {
+
+    @Test
+    void nanosecondsClockAdaptsMillisecondsClock() {
+        MillisecondsRecorder recorder = new MillisecondsRecorder();
+        recorder.clock = 3;
+
+        long start = recorder.nowNanos();
+        recorder.clock = 10;
+
+        assertThat(start).as("nowNanos").isEqualTo(3_000_000L);
+        assertThat(recorder.measureNanos(start)).as("measureNanos").isEqualTo(7_000_000L);
+    }
+
+    @Test
+    void nanosecondsRecordingAdaptsMillisecondsRecording() {
+        MillisecondsRecorder recorder = new MillisecondsRecorder();
+
+        recorder.recordAllocationSuccessAndLatencyNanos(1_999_999L);
+        recorder.recordAllocationFailureAndLatencyNanos(2_000_000L);
+        recorder.recordResetLatencyNanos(80_000L);
+        recorder.recordDestroyLatencyNanos(4_500_000L);
+        recorder.recordLifetimeDurationNanos(5_000_001L);
+        recorder.recordIdleTimeNanos(6_000_000L);
+
+        assertThat(recorder.recorded).containsExactly(
+                "allocationSuccess=1",
+                "allocationFailure=2",
+                "reset=0",
+                "destroy=4",
+                "lifetime=5",
+                "idle=6");
+    }
+
+    @Test
+    void millisecondsRecorderStillUsableByPool() {
+        MillisecondsRecorder recorder = new MillisecondsRecorder();
+        Pool<String> pool = PoolBuilder.from(Mono.just("foo"))
+                                       .metricsRecorder(recorder)
+                                       .build();
+
+        pool.withPoolable(Mono::just).blockLast();
+        pool.dispose();
+
+        assertThat(recorder.recorded).contains("allocationSuccess=0", "reset=0", "idle=0", "destroy=0", "lifetime=0");
+    }
+
+    static final class MillisecondsRecorder implements PoolMetricsRecorder {
+
+        final List<String> recorded = new ArrayList<>();
+        long clock;
+
+        @Override
+        public long measureTime(long startTimeMillis) {
+            return clock - startTimeMillis;
+        }
+
+        @Override
+        public long now() {
+            return clock;
+        }
+
+        @Override
+        public void recordAllocationSuccessAndLatency(long latencyMs) {
+            recorded.add("allocationSuccess=" + latencyMs);
+        }
+
+        @Override
+        public void recordAllocationFailureAndLatency(long latencyMs) {
+            recorded.add("allocationFailure=" + latencyMs);
+        }
+
+        @Override
+        public void recordResetLatency(long latencyMs) {
+            recorded.add("reset=" + latencyMs);
+        }
+
+        @Override
+        public void recordDestroyLatency(long latencyMs) {
+            recorded.add("destroy=" + latencyMs);
+        }
+
+        @Override
+        public void recordRecycled() {
+            recorded.add("recycled");
+        }
+
+        @Override
+        public void recordLifetimeDuration(long millisecondsSinceAllocation) {
+            recorded.add("lifetime=" + millisecondsSinceAllocation);
+        }
+
+        @Override
+        public void recordIdleTime(long millisecondsIdle) {
+            recorded.add("idle=" + millisecondsIdle);
+        }
+
+        @Override
+        public void recordSlowPath() {
+            recorded.add("slowPath");
+        }
+
+        @Override
+        public void recordFastPath() {
+            recorded.add("fastPath");
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static reactor.pool.PoolBuilder.from;
+
+class ShardedPoolTest {
+
+    @Test
+    void builderCreatesShardedPool() {
+        Pool<Integer> pool = from(Mono.just(1)).shards(4).build();
+
+        assertThat(pool).isInstanceOf(ShardedPool.class);
+        assertThat(((ShardedPool<Integer>) pool).shards).hasSize(4);
+    }
+
+    @Test
+    void onlyTheShardedPoolStartsBackgroundTasks() {
+        AtomicInteger periodicTasks = new AtomicInteger();
+        Scheduler scheduler = new Scheduler() {
+            @Override
+            public Disposable schedule(Runnable task) {
+                return Schedulers.immediate().schedule(task);
+            }
+
+            @Override
+            public Disposable schedulePeriodically(Runnable task, long initialDelay, long period, TimeUnit unit) {
+                periodicTasks.incrementAndGet();
+                return Disposables.disposed();
+            }
+
+            @Override
+            public Worker createWorker() {
+                return Schedulers.immediate().createWorker();
+            }
+        };
+        ShardedPool<Integer> pool = new ShardedPool<>(
+                from(Mono.just(1))
+                        .sizeAdaptive(1, 4, Duration.ofMillis(10))
+                        .leakDetection(Duration.ofSeconds(1))
+                        .evictInBackground(Duration.ofSeconds(1), scheduler)
+                        .buildConfig(), 4);
+
+        assertThat(periodicTasks).as("eviction, adaptation and leak detection, once").hasValue(3);
+        pool.dispose();
+    }
+
+    @Test
+    void warmupSpreadsResourcesBetweenShards() {
+        AtomicInteger allocations = new AtomicInteger();
+        ShardedPool<Integer> pool = new ShardedPool<>(
+                from(Mono.fromCallable(allocations::incrementAndGet))
+                        .initialSize(4)
+                        .sizeMax(4)
+                        .buildConfig(), 2);
+
+        assertThat(pool.idleSize()).as("idle").isEqualTo(4);
+        assertThat(pool.shards[0].idleSize()).as("shard 0").isEqualTo(2);
+        assertThat(pool.shards[1].idleSize()).as("shard 1").isEqualTo(2);
+    }
+
+    @Test
+    void acquireTakesIdleResourcesOfOtherShardsBeforeAllocating() {
+        AtomicInteger allocations = new AtomicInteger();
+        ShardedPool<Integer> pool = new ShardedPool<>(
+                from(Mono.fromCallable(allocations::incrementAndGet))
+                        .initialSize(4)
+                        .sizeMax(8)
+                        .buildConfig(), 4);
+
+        List<PooledRef<Integer>> refs = Flux.range(0, 4)
+                                            .concatMap(i -> pool.acquire())
+                                            .collectList()
+                                            .block();
+
+        assertThat(refs).extracting(PooledRef::poolable).containsExactlyInAnyOrder(1, 2, 3, 4);
+        assertThat(allocations).as("no extra allocation").hasValue(4);
+        assertThat(pool.idleSize()).as("idle").isZero();
+    }
+
+    @Test
+    void starvedShardIsServedByReleaseInAnotherShard() {
+        ShardedPool<Integer> pool = new ShardedPool<>(
+                from(Mono.just(1))
+                        .sizeMax(1)
+                        .buildConfig(), 2);
+        PooledRef<Integer> held = pool.shards[0].acquire().block();
+        assertThat(held).isNotNull();
+
+        AtomicReference<PooledRef<Integer>> stolen = new AtomicReference<>();
+        pool.shards[1].acquire().subscribe(stolen::set);
+        assertThat(pool.pendingAcquireSize()).as("pending in starved shard").isOne();
+
+        held.release().block();
+
+        assertThat(stolen.get()).as("served from the other shard").isNotNull();
+        assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+
+        stolen.get().release().block();
+        assertThat(pool.shards[0].idleSize()).as("released back to its shard").isOne();
+    }
+
+    @Test
+    void starvedShardIsServedByPermitReturnedInAnotherShard() {
+        AtomicInteger allocations = new AtomicInteger();
+        ShardedPool<Integer> pool = new ShardedPool<>(
+                from(Mono.fromCallable(allocations::incrementAndGet))
+                        .sizeMax(1)
+                        .buildConfig(), 2);
+        PooledRef<Integer> held = pool.shards[0].acquire().block();
+        assertThat(held).isNotNull();
+
+        AtomicReference<PooledRef<Integer>> allocated = new AtomicReference<>();
+        pool.shards[1].acquire().subscribe(allocated::set);
+        assertThat(allocated.get()).as("pending").isNull();
+
+        held.invalidate().block();
+
+        assertThat(allocated.get()).as("served").isNotNull();
+        assertThat(allocated.get().poolable()).as("new allocation").isEqualTo(2);
+        assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+    }
+
+    @Test
+    void batchOfStarvedShardIsFilledFromOtherShards() {
+        ShardedPool<Integer> pool = new ShardedPool<>(
+                from(Mono.just(1))
+                        .sizeMax(3)
+                        .buildConfig(), 3);
+        PooledRef<Integer> held0 = pool.shards[0].acquire().block();
+        PooledRef<Integer> held1 = pool.shards[1].acquire().block();
+        PooledRef<Integer> held2 = pool.shards[2].acquire().block();
+
+        List<PooledRef<Integer>> batch = new CopyOnWriteArrayList<>();
+        pool.shards[2].acquireBatch(3).subscribe(batch::add);
+
+        held0.release().block();
+        held1.release().block();
+        assertThat(batch).as("batch incomplete").isEmpty();
+
+        held2.release().block();
+        assertThat(batch).as("batch complete").hasSize(3);
+        assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+    }
+
+    @Test
+    void maxPendingAppliesToWholePool() {
+        ShardedPool<Integer> pool = new ShardedPool<>(
+                from(Mono.just(1))
+                        .sizeMax(1)
+                        .maxPendingAcquire(3)
+                        .buildConfig(), 2);
+        PooledRef<Integer> held = pool.acquire().block();
+        assertThat(held).as("held").isNotNull();
+
+        AtomicInteger errors = new AtomicInteger();
+        pool.shards[0].acquire().subscribe(null, e -> errors.incrementAndGet());
+        pool.shards[1].acquire().subscribe(null, e -> errors.incrementAndGet());
+        pool.shards[1].acquire().subscribe(null, e -> errors.incrementAndGet());
+        assertThat(errors).as("within limit").hasValue(0);
+
+        pool.shards[0].acquire().subscribe(null, e -> errors.incrementAndGet());
+
+        assertThat(errors).as("over limit").hasValue(1);
+        assertThat(pool.pendingAcquireSize()).as("pending").isEqualTo(3);
+        assertThat(pool.getMaxPendingAcquireSize()).as("whole pool").isEqualTo(3);
+
+        held.release().block();
+        assertThat(pool.pendingAcquireSize()).as("pending after release").isEqualTo(2);
+        pool.dispose();
+    }
+
+    @Test
+    void concurrentAcquireReleaseAcrossShards() throws InterruptedException {
+        Scheduler scheduler = Schedulers.newParallel("sharded", 4);
+        ShardedPool<Integer> pool = new ShardedPool<>(
+                from(Mono.just(1))
+                        .sizeMax(3)
+                        .buildConfig(), 4);
+        try {
+            int borrowers = 1000;
+            CountDownLatch latch = new CountDownLatch(borrowers);
+            for (int i = 0; i < borrowers; i++) {
+                pool.acquire()
+                    .subscribeOn(scheduler)
+                    .flatMap(ref -> ref.release().subscribeOn(scheduler))
+                    .subscribe(null, e -> latch.countDown(), latch::countDown);
+            }
+
+            assertThat(latch.await(10, TimeUnit.SECONDS)).as("all borrowers served").isTrue();
+            assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+            assertThat(pool.acquiredSize()).as("all released").isZero();
+            assertThat(pool.allocatedSize()).as("bounded").isLessThanOrEqualTo(3);
+        }
+        finally {
+            pool.dispose();
+            scheduler.dispose();
+        }
+    }
+
+    @Test
+    void disposeDisposesShards() {
+        ShardedPool<Integer> pool = new ShardedPool<>(
+                from(Mono.just(1))
+                        .initialSize(2)
+                        .buildConfig(), 2);
+
+        pool.dispose();
+
+        assertThat(pool.isDisposed()).as("pool disposed").isTrue();
+        assertThat(pool.shards).allMatch(SimplePool::isDisposed, "shard disposed");
+        assertThat(pool.idleSize()).as("idle destroyed").isZero();
+    }
+}
@@ -17,6 +17,8 @@ package reactor.pool;
 
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -32,6 +34,7 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.reactivestreams.Subscription;
 
+import reactor.core.Disposable;
 import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -39,6 +42,7 @@ import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.pool.AbstractPool.DefaultPoolConfig;
 import reactor.pool.TestUtils.PoolableTest;
+import reactor.test.StepVerifier;
 import reactor.util.function.Tuple2;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -887,4 +891,155 @@ class SimpleFifoPoolTest {
 
         assertThat(pool.acquired).as("after releases").isEqualTo(0);
     }
-}
\ No newline at end of file
+
+    @Test
+    void cancelledPendingAreTombstonedAndPurged() {
+        SimpleFifoPool<PoolableTest> pool = new SimpleFifoPool<>(
+                from(Mono.fromCallable(PoolableTest::new))
+                        .lifo(false)
+                        .threadAffinity(false)
+                        .sizeMax(1)
+                        .maxPendingAcquire(1000)
+                        .buildConfig());
+        PooledRef<PoolableTest> held = pool.acquire().block();
+        assertThat(held).as("held").isNotNull();
+
+        AtomicReference<PooledRef<PoolableTest>> survivorRef = new AtomicReference<>();
+        AtomicInteger errors = new AtomicInteger();
+        Disposable[] borrowers = new Disposable[1000];
+        for (int i = 0; i < borrowers.length; i++) {
+            if (i == 500) {
+                borrowers[i] = pool.acquire().subscribe(survivorRef::set);
+            }
+            else {
+                borrowers[i] = pool.acquire().subscribe(null, e -> errors.incrementAndGet());
+            }
+        }
+        assertThat(pool.pendingAcquireSize()).as("all pending").isEqualTo(1000);
+
+        for (int i = 0; i < borrowers.length; i++) {
+            if (i != 500) {
+                borrowers[i].dispose();
+            }
+        }
+
+        assertThat(pool.pendingAcquireSize()).as("pending after cancellations").isOne();
+        assertThat(pool.pending.size()).as("tombstones purged")
+                                       .isLessThanOrEqualTo(SimplePool.TOMBSTONES_PURGE_THRESHOLD + 1);
+
+        Disposable[] newBorrowers = new Disposable[999];
+        for (int i = 0; i < newBorrowers.length; i++) {
+            newBorrowers[i] = pool.acquire().subscribe(null, e -> errors.incrementAndGet());
+        }
+        assertThat(errors).as("maxPending only counts live borrowers").hasValue(0);
+        assertThat(pool.pendingAcquireSize()).as("pending at max").isEqualTo(1000);
+
+        for (Disposable d : newBorrowers) {
+            d.dispose();
+        }
+        held.release().block();
+
+        assertThat(survivorRef.get()).as("survivor served").isNotNull();
+        assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+    }
+
+    @Test
+    void polledTombstonesAreNoLongerCounted() {
+        SimpleFifoPool<PoolableTest> pool = new SimpleFifoPool<>(
+                from(Mono.fromCallable(PoolableTest::new))
+                        .lifo(false)
+                        .threadAffinity(false)
+                        .sizeMax(1)
+                        .buildConfig());
+        PooledRef<PoolableTest> held = pool.acquire().block();
+        assertThat(held).as("held").isNotNull();
+
+        Disposable[] cancelled = new Disposable[5];
+        for (int i = 0; i < cancelled.length; i++) {
+            cancelled[i] = pool.acquire().subscribe();
+        }
+        AtomicReference<PooledRef<PoolableTest>> survivorRef = new AtomicReference<>();
+        pool.acquire().subscribe(survivorRef::set);
+        for (Disposable d : cancelled) {
+            d.dispose();
+        }
+        assertThat(pool.cancelledPending).as("tombstones").isEqualTo(5);
+
+        held.release().block();
+
+        assertThat(survivorRef.get()).as("survivor served").isNotNull();
+        assertThat(pool.cancelledPending).as("tombstones after poll").isZero();
+    }
+
+    @Test
+    void batchIsFilledBeforeLaterBorrowers() {
+        SimpleFifoPool<PoolableTest> pool = new SimpleFifoPool<>(
+                from(Mono.fromCallable(PoolableTest::new))
+                        .sizeMax(3)
+                        .buildConfig());
+        PooledRef<PoolableTest> held1 = pool.acquire().block();
+        PooledRef<PoolableTest> held2 = pool.acquire().block();
+        assertThat(held1).isNotNull();
+        assertThat(held2).isNotNull();
+
+        List<PooledRef<PoolableTest>> batch = new CopyOnWriteArrayList<>();
+        AtomicReference<PooledRef<PoolableTest>> single = new AtomicReference<>();
+        pool.acquire(3).subscribe(batch::add);
+        pool.acquire().subscribe(single::set);
+
+        assertThat(pool.pendingAcquireSize()).as("batch counts as one pending").isEqualTo(2);
+        assertThat(batch).as("batch not emitted while incomplete").isEmpty();
+
+        held1.release().block();
+        assertThat(batch).as("batch still incomplete").isEmpty();
+        assertThat(single.get()).as("later borrower not served before batch").isNull();
+
+        held2.release().block();
+        assertThat(batch).as("batch emitted").hasSize(3);
+        assertThat(single.get()).as("later borrower still waiting").isNull();
+        assertThat(pool.pendingAcquireSize()).as("only the later borrower is pending").isOne();
+
+        batch.get(0).release().block();
+        assertThat(single.get()).as("later borrower served").isNotNull();
+        assertThat(pool.pendingAcquireSize()).isZero();
+    }
+
+    @Test
+    void cancelledBatchReleasesPartialResources() {
+        SimpleFifoPool<PoolableTest> pool = new SimpleFifoPool<>(
+                from(Mono.fromCallable(PoolableTest::new))
+                        .sizeMax(2)
+                        .buildConfig());
+        PooledRef<PoolableTest> held = pool.acquire().block();
+        assertThat(held).isNotNull();
+
+        Disposable batch = pool.acquire(2).subscribe();
+        assertThat(pool.acquiredSize()).as("held plus the one resource of the batch").isEqualTo(2);
+
+        batch.dispose();
+        assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+        assertThat(pool.acquiredSize()).as("partial batch released").isOne();
+
+        held.release().block();
+        assertThat(pool.idleSize()).as("all idle").isEqualTo(2);
+        assertThat(pool.acquire(2).collectList().block()).hasSize(2);
+    }
+
+    @Test
+    void allocationErrorFailsBatchAndReturnsPermits() {
+        AtomicInteger allocations = new AtomicInteger();
+        SimpleFifoPool<PoolableTest> pool = new SimpleFifoPool<>(
+                from(Mono.defer(() -> allocations.incrementAndGet() == 2
+                        ? Mono.<PoolableTest>error(new IllegalStateException("boom"))
+                        : Mono.fromCallable(PoolableTest::new)))
+                        .sizeMax(3)
+                        .buildConfig());
+
+        StepVerifier.create(pool.acquire(3))
+                    .verifyErrorMessage("boom");
+
+        assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+        assertThat(pool.acquiredSize()).as("nothing acquired").isZero();
+        assertThat(pool.acquire(3).collectList().block()).as("permits returned").hasSize(3);
+    }
+}
@@ -32,6 +32,7 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.reactivestreams.Subscription;
 
+import reactor.core.Disposable;
 import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -761,4 +762,55 @@ class SimpleLifoPoolTest {
 
         assertThat(pool.acquired).as("after releases").isEqualTo(0);
     }
-}
\ No newline at end of file
+
+    @Test
+    void cancelledPendingAreTombstonedAndPurged() {
+        SimpleLifoPool<PoolableTest> pool = new SimpleLifoPool<>(
+                from(Mono.fromCallable(PoolableTest::new))
+                        .lifo(true)
+                        .threadAffinity(false)
+                        .sizeMax(1)
+                        .maxPendingAcquire(1000)
+                        .buildConfig());
+        PooledRef<PoolableTest> held = pool.acquire().block();
+        assertThat(held).as("held").isNotNull();
+
+        AtomicReference<PooledRef<PoolableTest>> survivorRef = new AtomicReference<>();
+        AtomicInteger errors = new AtomicInteger();
+        Disposable[] borrowers = new Disposable[1000];
+        for (int i = 0; i < borrowers.length; i++) {
+            if (i == 500) {
+                borrowers[i] = pool.acquire().subscribe(survivorRef::set);
+            }
+            else {
+                borrowers[i] = pool.acquire().subscribe(null, e -> errors.incrementAndGet());
+            }
+        }
+        assertThat(pool.pendingAcquireSize()).as("all pending").isEqualTo(1000);
+
+        for (int i = 0; i < borrowers.length; i++) {
+            if (i != 500) {
+                borrowers[i].dispose();
+            }
+        }
+
+        assertThat(pool.pendingAcquireSize()).as("pending after cancellations").isOne();
+        assertThat(pool.pending.size()).as("tombstones purged")
+                                       .isLessThanOrEqualTo(SimplePool.TOMBSTONES_PURGE_THRESHOLD + 1);
+
+        Disposable[] newBorrowers = new Disposable[999];
+        for (int i = 0; i < newBorrowers.length; i++) {
+            newBorrowers[i] = pool.acquire().subscribe(null, e -> errors.incrementAndGet());
+        }
+        assertThat(errors).as("maxPending only counts live borrowers").hasValue(0);
+        assertThat(pool.pendingAcquireSize()).as("pending at max").isEqualTo(1000);
+
+        for (Disposable d : newBorrowers) {
+            d.dispose();
+        }
+        held.release().block();
+
+        assertThat(survivorRef.get()).as("survivor served").isNotNull();
+        assertThat(pool.pendingAcquireSize()).as("no more pending").isZero();
+    }
+}
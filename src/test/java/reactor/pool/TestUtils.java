@@ -144,6 +144,15 @@ public class TestUtils {
         private final LongAdder fastPathCounter;
         private final Histogram lifetimeHistogram;
         private final Histogram idleTimeHistogram;
+        private final Histogram acquireFromIdleHistogram;
+        private final Histogram acquireWithAllocationHistogram;
+        private final Histogram acquireAfterPendingHistogram;
+        private final Histogram pendingTimeHistogram;
+        private final LongAdder pendingTimeoutCounter;
+        private final LongAdder pendingRejectedCounter;
+        private final LongAdder leaseReclaimedCounter;
+        private final Histogram validationSuccessHistogram;
+        private final Histogram validationFailureHistogram;
 
         public InMemoryPoolMetrics() {
             long maxLatency = TimeUnit.HOURS.toMillis(1);
@@ -154,6 +163,15 @@ public class TestUtils {
             destroyHistogram = new ShortCountsHistogram(1L, maxLatency, precision);
             lifetimeHistogram = new Histogram(precision);
             idleTimeHistogram = new Histogram(precision);
+            acquireFromIdleHistogram = new Histogram(precision);
+            acquireWithAllocationHistogram = new Histogram(precision);
+            acquireAfterPendingHistogram = new Histogram(precision);
+            pendingTimeHistogram = new Histogram(precision);
+            pendingTimeoutCounter = new LongAdder();
+            pendingRejectedCounter = new LongAdder();
+            leaseReclaimedCounter = new LongAdder();
+            validationSuccessHistogram = new Histogram(precision);
+            validationFailureHistogram = new Histogram(precision);
             recycledCounter = new LongAdder();
             slowPathCounter = new LongAdder();
             fastPathCounter = new LongAdder();
@@ -216,6 +234,51 @@ public class TestUtils {
             this.fastPathCounter.increment();
         }
 
+        @Override
+        public void recordAcquireLatencyFromIdleNanos(long latencyNanos) {
+            this.acquireFromIdleHistogram.recordValue(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+
+        @Override
+        public void recordAcquireLatencyWithAllocationNanos(long latencyNanos) {
+            this.acquireWithAllocationHistogram.recordValue(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+
+        @Override
+        public void recordAcquireLatencyAfterPendingNanos(long latencyNanos) {
+            this.acquireAfterPendingHistogram.recordValue(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+
+        @Override
+        public void recordPendingTimeNanos(long pendingNanos) {
+            this.pendingTimeHistogram.recordValue(TimeUnit.NANOSECONDS.toMillis(pendingNanos));
+        }
+
+        @Override
+        public void recordPendingTimeout() {
+            this.pendingTimeoutCounter.increment();
+        }
+
+        @Override
+        public void recordPendingRejected() {
+            this.pendingRejectedCounter.increment();
+        }
+
+        @Override
+        public void recordLeaseReclaimed() {
+            this.leaseReclaimedCounter.increment();
+        }
+
+        @Override
+        public void recordValidationSuccessAndLatencyNanos(long latencyNanos) {
+            this.validationSuccessHistogram.recordValue(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+
+        @Override
+        public void recordValidationFailureAndLatencyNanos(long latencyNanos) {
+            this.validationFailureHistogram.recordValue(TimeUnit.NANOSECONDS.toMillis(latencyNanos));
+        }
+
         public long getAllocationTotalCount() {
             return allocationSuccessHistogram.getTotalCount() + allocationErrorHistogram.getTotalCount();
         }
@@ -271,5 +334,41 @@ public class TestUtils {
         public long getSlowPathCount() {
             return slowPathCounter.sum();
         }
+
+        public Histogram getAcquireFromIdleHistogram() {
+            return acquireFromIdleHistogram;
+        }
+
+        public Histogram getAcquireWithAllocationHistogram() {
+            return acquireWithAllocationHistogram;
+        }
+
+        public Histogram getAcquireAfterPendingHistogram() {
+            return acquireAfterPendingHistogram;
+        }
+
+        public Histogram getPendingTimeHistogram() {
+            return pendingTimeHistogram;
+        }
+
+        public long getPendingTimeoutCount() {
+            return pendingTimeoutCounter.sum();
+        }
+
+        public long getPendingRejectedCount() {
+            return pendingRejectedCounter.sum();
+        }
+
+        public long getLeaseReclaimedCount() {
+            return leaseReclaimedCounter.sum();
+        }
+
+        public long getValidationSuccessCount() {
+            return validationSuccessHistogram.getTotalCount();
+        }
+
+        public long getValidationFailureCount() {
+            return validationFailureHistogram.getTotalCount();
+        }
     }
 }
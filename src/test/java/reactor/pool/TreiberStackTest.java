@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2018-Present Pivotal Software Inc, All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reactor.pool;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+
+import reactor.test.util.RaceTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TreiberStackTest {
+
+    @Test
+    void pollsMostRecentlyOfferedFirst() {
+        TreiberStack<Integer> stack = new TreiberStack<>();
+        stack.offer(1);
+        stack.offer(2);
+        stack.offer(3);
+
+        assertThat(stack).as("iteration order").containsExactly(3, 2, 1);
+        assertThat(stack.size()).as("size").isEqualTo(3);
+        assertThat(stack.peek()).as("peek").isEqualTo(3);
+        assertThat(stack.poll()).isEqualTo(3);
+        assertThat(stack.poll()).isEqualTo(2);
+        assertThat(stack.poll()).isEqualTo(1);
+        assertThat(stack.poll()).as("empty").isNull();
+        assertThat(stack.isEmpty()).as("isEmpty").isTrue();
+    }
+
+    @Test
+    void concurrentOffersAndPollsLoseNothing() {
+        for (int round = 0; round < 1000; round++) {
+            TreiberStack<Integer> stack = new TreiberStack<>();
+            Set<Integer> polled = ConcurrentHashMap.newKeySet();
+            stack.offer(0);
+            stack.offer(1);
+
+            RaceTestUtils.race(
+                    () -> {
+                        stack.offer(2);
+                        polled.add(stack.poll());
+                    },
+                    () -> {
+                        stack.offer(3);
+                        polled.add(stack.poll());
+                    });
+
+            Integer remaining;
+            while ((remaining = stack.poll()) != null) {
+                polled.add(remaining);
+            }
+            assertThat(polled).as("round " + round).containsExactlyInAnyOrder(0, 1, 2, 3);
+        }
+    }
+}